@@ -0,0 +1,74 @@
+package com.api.storemanagement;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Moves the ID sequences past the IDs already in use, once the schema is up to date and before any row
+ * is added. Databases created while IDs were generated by identity columns get the sequences created
+ * at their start value, below the existing rows, so the first inserts would collide with them.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class SequenceAligner {
+	/**
+	 * IDs reserved per sequence call, as declared by the @SequenceGenerator of the entities. Hibernate hands
+	 * out the IDs up to a value read from a sequence, from that value minus the allocation size.
+	 */
+	static final int ALLOCATION_SIZE = 50;
+
+	/**
+	 * Sequences and the tables holding the IDs they generated
+	 */
+	private static final List<SequenceTables> SEQUENCES = List.of(
+			new SequenceTables("product_seq", List.of("product")),
+			new SequenceTables("orders_seq", List.of("orders", "archived_orders")),
+			new SequenceTables("order_item_seq", List.of("order_item")));
+
+	private final JdbcTemplate jdbcTemplate;
+
+	/**
+	 * Logger
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(SequenceAligner.class);
+
+	@Autowired
+	public SequenceAligner(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	/**
+	 * Restart every sequence which would generate IDs already in use. Sequences of empty tables are left
+	 * alone; reading any other sequence uses up one block of IDs, so each startup leaves a gap of at most
+	 * {@link #ALLOCATION_SIZE} IDs.
+	 */
+	@PostConstruct
+	public void align() {
+		for (SequenceTables sequence : SEQUENCES) {
+			long maxId = 0;
+			for (String table : sequence.tables()) {
+				Long tableMaxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+				maxId = Math.max(maxId, tableMaxId == null ? 0 : tableMaxId);
+			}
+			if (maxId == 0) {
+				continue;
+			}
+			Long next = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + sequence.name(), Long.class);
+			// IDs are handed out from the value read minus the allocation size, plus one: they must all be unused
+			if (next != null && next - ALLOCATION_SIZE + 1 <= maxId) {
+				long restart = maxId + ALLOCATION_SIZE;
+				jdbcTemplate.execute("ALTER SEQUENCE " + sequence.name() + " RESTART WITH " + restart);
+				logger.warn("Sequence {} restarted at {}, past the IDs already in use.", sequence.name(), restart);
+			}
+		}
+	}
+
+	private record SequenceTables(String name, List<String> tables) {}
+}
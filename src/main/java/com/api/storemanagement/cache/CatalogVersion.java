@@ -0,0 +1,43 @@
+package com.api.storemanagement.cache;
+
+import com.api.storemanagement.product.ProductChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Component keeping a version of the whole catalog, changed whenever a product is added, modified or removed.
+ * Listings are validated against it, so polling clients can skip unchanged catalogs. The version starts from
+ * the startup time, so versions handed out before a restart are never matched after it.
+ */
+@Component
+public class CatalogVersion {
+	private final long startedAt = System.currentTimeMillis();
+	private final AtomicLong changes = new AtomicLong();
+	private volatile long lastModified = startedAt;
+
+	/**
+	 * Change the version once the change is committed, so that a version is never handed out with an older catalog
+	 * @param event - product change
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductChanged(ProductChangedEvent event) {
+		lastModified = System.currentTimeMillis();
+		changes.incrementAndGet();
+	}
+
+	/**
+	 * @return current version of the catalog
+	 */
+	public String version() {
+		return Long.toHexString(startedAt) + "-" + changes.get();
+	}
+
+	/**
+	 * @return time of the last change of the catalog, in epoch milliseconds
+	 */
+	public long lastModified() {
+		return lastModified;
+	}
+}
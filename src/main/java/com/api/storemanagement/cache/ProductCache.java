@@ -0,0 +1,81 @@
+package com.api.storemanagement.cache;
+
+import com.api.storemanagement.product.Product;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Component reading and writing the product cache. The cache holds copies of products and hands out copies,
+ * so callers never share an instance. Every eviction is counted on a stripe of product IDs; a product loaded
+ * while its stripe was evicted may be older than the change, so it is dropped instead of being cached.
+ */
+@Component
+public class ProductCache {
+	private static final int STRIPES = 1024;
+
+	private final CacheManager cacheManager;
+
+	/**
+	 * Evictions made on each stripe of product IDs
+	 */
+	private final AtomicLongArray evictions = new AtomicLongArray(STRIPES);
+
+	@Autowired
+	public ProductCache(CacheManager cacheManager) {
+		this.cacheManager = cacheManager;
+	}
+
+	/**
+	 * @param productId - ID of product
+	 * @return copy of the cached product, or null if it is not cached
+	 */
+	public Product get(Long productId) {
+		Cache.ValueWrapper cached = cache().get(productId);
+		return cached == null ? null : ((Product) cached.get()).copy();
+	}
+
+	/**
+	 * Take the stamp of a product before loading it, to be handed back when caching it
+	 * @param productId - ID of product
+	 * @return number of evictions made so far on the stripe of the product
+	 */
+	public long stamp(Long productId) {
+		return evictions.get(stripeOf(productId));
+	}
+
+	/**
+	 * Cache a copy of a loaded product, unless it was evicted since it started being loaded
+	 * @param product - product, as loaded
+	 * @param stamp - stamp of the product, taken before it was loaded
+	 */
+	public void put(Product product, long stamp) {
+		Cache cache = cache();
+		cache.put(product.getId(), product.copy());
+		// An eviction counted before this check may have run before the put: the product may be stale, drop it.
+		// One counted after it evicts the product itself.
+		if (evictions.get(stripeOf(product.getId())) != stamp) {
+			cache.evict(product.getId());
+		}
+	}
+
+	/**
+	 * Evict a changed product, and drop the copies of it being loaded
+	 * @param productId - ID of product
+	 */
+	public void evict(Long productId) {
+		evictions.incrementAndGet(stripeOf(productId));
+		cache().evict(productId);
+	}
+
+	private Cache cache() {
+		return cacheManager.getCache(ProductCacheConfig.PRODUCTS);
+	}
+
+	private static int stripeOf(Long productId) {
+		return Long.hashCode(productId) & (STRIPES - 1);
+	}
+}
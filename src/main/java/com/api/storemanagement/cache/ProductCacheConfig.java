@@ -0,0 +1,17 @@
+package com.api.storemanagement.cache;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Cache configuration. Caches are backed by Caffeine, sized and expired through the
+ * spring.cache.caffeine.spec property; hit, miss and eviction counts are exposed as cache.* metrics.
+ */
+@Configuration
+@EnableCaching
+public class ProductCacheConfig {
+	/**
+	 * Cache of products, by ID
+	 */
+	public static final String PRODUCTS = "products";
+}
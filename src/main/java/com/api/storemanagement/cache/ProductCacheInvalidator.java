@@ -0,0 +1,28 @@
+package com.api.storemanagement.cache;
+
+import com.api.storemanagement.product.ProductChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Component evicting changed products from the product cache
+ */
+@Component
+public class ProductCacheInvalidator {
+	private final ProductCache productCache;
+
+	@Autowired
+	public ProductCacheInvalidator(ProductCache productCache) {
+		this.productCache = productCache;
+	}
+
+	/**
+	 * Evict a product once the change is committed, so that the next read loads the committed state
+	 * @param event - product change
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductChanged(ProductChangedEvent event) {
+		productCache.evict(event.productId());
+	}
+}
@@ -0,0 +1,10 @@
+package com.api.storemanagement.exceptions;
+
+/**
+ * Exception thrown when an update keeps conflicting with concurrent updates of the same data
+ */
+public class ConcurrentUpdateException extends RuntimeException {
+	public ConcurrentUpdateException(String message) {
+		super(message);
+	}
+}
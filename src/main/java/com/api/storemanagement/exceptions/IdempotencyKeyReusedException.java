@@ -0,0 +1,10 @@
+package com.api.storemanagement.exceptions;
+
+/**
+ * Exception thrown when an idempotency key already used by a user is sent again with a different request
+ */
+public class IdempotencyKeyReusedException extends RuntimeException {
+	public IdempotencyKeyReusedException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,10 @@
+package com.api.storemanagement.exceptions;
+
+/**
+ * Exception thrown when an order request is malformed (missing product IDs, non-positive quantities)
+ */
+public class InvalidOrderException extends RuntimeException {
+	public InvalidOrderException(String message) {
+		super(message);
+	}
+}
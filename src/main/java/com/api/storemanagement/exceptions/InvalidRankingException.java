@@ -0,0 +1,10 @@
+package com.api.storemanagement.exceptions;
+
+/**
+ * Exception thrown when a sales report is asked to rank by an unknown measure
+ */
+public class InvalidRankingException extends RuntimeException {
+	public InvalidRankingException(String message) {
+		super(message);
+	}
+}
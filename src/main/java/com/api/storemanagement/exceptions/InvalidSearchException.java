@@ -0,0 +1,10 @@
+package com.api.storemanagement.exceptions;
+
+/**
+ * Exception thrown when a search query is too short to be looked up in the search index
+ */
+public class InvalidSearchException extends RuntimeException {
+	public InvalidSearchException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,10 @@
+package com.api.storemanagement.exceptions;
+
+/**
+ * Exception thrown when an order cannot be found, neither among current nor among archived orders
+ */
+public class OrderNotFoundException extends RuntimeException {
+	public OrderNotFoundException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,10 @@
+package com.api.storemanagement.exceptions;
+
+/**
+ * Exception thrown when an order cannot be accepted because the queue of orders waiting to be placed is full
+ */
+public class OrderQueueFullException extends RuntimeException {
+	public OrderQueueFullException(String message) {
+		super(message);
+	}
+}
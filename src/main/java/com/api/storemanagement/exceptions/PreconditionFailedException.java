@@ -0,0 +1,10 @@
+package com.api.storemanagement.exceptions;
+
+/**
+ * Exception thrown when a conditional request expects a version of a resource which is no longer the current one
+ */
+public class PreconditionFailedException extends RuntimeException {
+	public PreconditionFailedException(String message) {
+		super(message);
+	}
+}
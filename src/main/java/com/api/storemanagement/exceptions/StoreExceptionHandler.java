@@ -1,6 +1,8 @@
 package com.api.storemanagement.exceptions;
 
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -18,12 +20,74 @@ public class StoreExceptionHandler {
 		return new ResponseEntity<>(bodyOfResponse, HttpStatus.NOT_FOUND);
 	}
 
+	@ExceptionHandler(OrderNotFoundException.class)
+	public ResponseEntity<?> handleOrderNotFoundException(OrderNotFoundException ex, WebRequest request) {
+		String bodyOfResponse = ex.getMessage();
+		return new ResponseEntity<>(bodyOfResponse, HttpStatus.NOT_FOUND);
+	}
+
 	@ExceptionHandler(InsufficientQuantityException.class)
 	public ResponseEntity<?> handleInsufficientQuantityException(InsufficientQuantityException ex, WebRequest request) {
 		String bodyOfResponse = ex.getMessage();
 		return new ResponseEntity<>(bodyOfResponse, HttpStatus.UNPROCESSABLE_ENTITY);
 	}
 
+	@ExceptionHandler(InvalidOrderException.class)
+	public ResponseEntity<?> handleInvalidOrderException(InvalidOrderException ex, WebRequest request) {
+		String bodyOfResponse = ex.getMessage();
+		return new ResponseEntity<>(bodyOfResponse, HttpStatus.BAD_REQUEST);
+	}
+
+	@ExceptionHandler(InvalidSearchException.class)
+	public ResponseEntity<?> handleInvalidSearchException(InvalidSearchException ex, WebRequest request) {
+		String bodyOfResponse = ex.getMessage();
+		return new ResponseEntity<>(bodyOfResponse, HttpStatus.BAD_REQUEST);
+	}
+
+	@ExceptionHandler(InvalidRankingException.class)
+	public ResponseEntity<?> handleInvalidRankingException(InvalidRankingException ex, WebRequest request) {
+		String bodyOfResponse = ex.getMessage();
+		return new ResponseEntity<>(bodyOfResponse, HttpStatus.BAD_REQUEST);
+	}
+
+	@ExceptionHandler(PatchErrorException.class)
+	public ResponseEntity<?> handlePatchErrorException(PatchErrorException ex, WebRequest request) {
+		String bodyOfResponse = ex.getMessage();
+		return new ResponseEntity<>(bodyOfResponse, HttpStatus.BAD_REQUEST);
+	}
+
+	@ExceptionHandler(PreconditionFailedException.class)
+	public ResponseEntity<?> handlePreconditionFailedException(PreconditionFailedException ex, WebRequest request) {
+		String bodyOfResponse = ex.getMessage();
+		return new ResponseEntity<>(bodyOfResponse, HttpStatus.PRECONDITION_FAILED);
+	}
+
+	@ExceptionHandler(ConcurrentUpdateException.class)
+	public ResponseEntity<?> handleConcurrentUpdateException(ConcurrentUpdateException ex, WebRequest request) {
+		String bodyOfResponse = ex.getMessage();
+		return new ResponseEntity<>(bodyOfResponse, HttpStatus.CONFLICT);
+	}
+
+	@ExceptionHandler(OptimisticLockingFailureException.class)
+	public ResponseEntity<?> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex, WebRequest request) {
+		// Updates which are not retried
+		return new ResponseEntity<>("Data was modified concurrently, please retry.", HttpStatus.CONFLICT);
+	}
+
+	@ExceptionHandler(IdempotencyKeyReusedException.class)
+	public ResponseEntity<?> handleIdempotencyKeyReusedException(IdempotencyKeyReusedException ex, WebRequest request) {
+		String bodyOfResponse = ex.getMessage();
+		return new ResponseEntity<>(bodyOfResponse, HttpStatus.UNPROCESSABLE_ENTITY);
+	}
+
+	@ExceptionHandler(OrderQueueFullException.class)
+	public ResponseEntity<?> handleOrderQueueFullException(OrderQueueFullException ex, WebRequest request) {
+		String bodyOfResponse = ex.getMessage();
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, "1")
+				.body(bodyOfResponse);
+	}
+
 	@ExceptionHandler(DataIntegrityViolationException.class)
 	public ResponseEntity<?> handleDataIntegrityViolationException(DataIntegrityViolationException ex, WebRequest request) {
 		// Handle cases where data integrity is violated (e.g., null constraints, duplicate keys)
@@ -0,0 +1,79 @@
+package com.api.storemanagement.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AsyncAppenderBase;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous appender counting the events it drops. Configured with neverBlock, a full queue drops
+ * events instead of blocking the logging thread; once the queue is nearly full (below the discarding
+ * threshold), events of level INFO and below are dropped too. Counts are shared by all instances, as
+ * appenders are created by Logback rather than by Spring.
+ * Events are queued here rather than by the base class, which does not tell whether its queue took an
+ * event, so that an event is counted as dropped exactly when the queue refused it.
+ */
+public class CountingAsyncAppender extends AsyncAppender {
+	private static final AtomicLong DROPPED = new AtomicLong();
+
+	/**
+	 * Queue of the base class, drained by its worker. Null if it cannot be reached, events are then queued
+	 * by the base class and not counted.
+	 */
+	private BlockingQueue<ILoggingEvent> queue;
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void start() {
+		super.start();
+		try {
+			Field field = AsyncAppenderBase.class.getDeclaredField("blockingQueue");
+			field.setAccessible(true);
+			queue = (BlockingQueue<ILoggingEvent>) field.get(this);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			addWarn("Cannot reach the queue of the appender, dropped events will not be counted.", e);
+		}
+	}
+
+	@Override
+	protected void append(ILoggingEvent event) {
+		BlockingQueue<ILoggingEvent> current = queue;
+		if (current == null) {
+			super.append(event);
+			return;
+		}
+		if (current.remainingCapacity() < getDiscardingThreshold() && isDiscardable(event)) {
+			DROPPED.incrementAndGet();
+			return;
+		}
+		preprocess(event);
+		if (isNeverBlock()) {
+			if (!current.offer(event)) {
+				DROPPED.incrementAndGet();
+			}
+			return;
+		}
+		boolean interrupted = false;
+		while (true) {
+			try {
+				current.put(event);
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return number of events dropped by all counting appenders since startup
+	 */
+	public static long droppedEvents() {
+		return DROPPED.get();
+	}
+}
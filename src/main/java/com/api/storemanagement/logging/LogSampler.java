@@ -0,0 +1,40 @@
+package com.api.storemanagement.logging;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate limiter of log lines on hot paths: at most one line per interval is let through, the others are
+ * only counted. Deciding costs a clock read and a compare-and-set, without allocation.
+ */
+public final class LogSampler {
+	private final long intervalNanos;
+	private final AtomicLong nextSample = new AtomicLong(System.nanoTime());
+	private final AtomicLong skipped = new AtomicLong();
+
+	private LogSampler(Duration interval) {
+		this.intervalNanos = interval.toNanos();
+	}
+
+	/**
+	 * @param interval - minimum time between two sampled lines
+	 * @return sampler letting through at most one line per interval
+	 */
+	public static LogSampler atMostEvery(Duration interval) {
+		return new LogSampler(interval);
+	}
+
+	/**
+	 * Decide whether to log a line
+	 * @return number of lines skipped since the last sampled one if this line should be logged, -1 otherwise
+	 */
+	public long sample() {
+		long now = System.nanoTime();
+		long next = nextSample.get();
+		if (now - next < 0 || !nextSample.compareAndSet(next, now + intervalNanos)) {
+			skipped.incrementAndGet();
+			return -1;
+		}
+		return skipped.getAndSet(0);
+	}
+}
@@ -0,0 +1,86 @@
+package com.api.storemanagement.logging;
+
+import com.api.storemanagement.metrics.StatementCounter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.security.Principal;
+
+/**
+ * Filter logging a single summary line per request, as key=value pairs: endpoint, status, duration, SQL
+ * statements run by the request thread and user. Replaces per-call INFO lines on hot paths, and is disabled unless
+ * store.logging.request-summary.enabled is set. Asynchronous requests are summarized once they complete.
+ */
+@Component
+public class RequestSummaryFilter extends OncePerRequestFilter {
+	/**
+	 * Logger of request summaries, which can be routed or filtered on its own
+	 */
+	private static final Logger summaryLogger = LoggerFactory.getLogger("com.api.storemanagement.requests");
+
+	private static final String START_ATTRIBUTE = RequestSummaryFilter.class.getName() + ".start";
+
+	private final ObjectProvider<StatementCounter> statementCounter;
+	private final boolean enabled;
+
+	public RequestSummaryFilter(ObjectProvider<StatementCounter> statementCounter,
+								@Value("${store.logging.request-summary.enabled:false}") boolean enabled) {
+		this.statementCounter = statementCounter;
+		this.enabled = enabled;
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !enabled || !summaryLogger.isInfoEnabled();
+	}
+
+	@Override
+	protected boolean shouldNotFilterAsyncDispatch() {
+		return false;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		if (!isAsyncDispatch(request)) {
+			request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+			StatementCounter counter = statementCounter.getIfAvailable();
+			if (counter != null) {
+				counter.reset();
+			}
+		}
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			if (!isAsyncStarted(request)) {
+				summarize(request, response);
+			}
+		}
+	}
+
+	private void summarize(HttpServletRequest request, HttpServletResponse response) {
+		Object start = request.getAttribute(START_ATTRIBUTE);
+		long durationMicros = start instanceof Long startNanos ? (System.nanoTime() - startNanos) / 1_000 : -1;
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		Principal principal = request.getUserPrincipal();
+		StatementCounter counter = statementCounter.getIfAvailable();
+		summaryLogger.info("method={} uri={} path={} status={} duration_us={} statements={} user={}",
+				request.getMethod(),
+				pattern != null ? pattern : "UNKNOWN",
+				request.getRequestURI(),
+				response.getStatus(),
+				durationMicros,
+				counter != null ? counter.count() : -1,
+				principal != null ? principal.getName() : "-");
+	}
+}
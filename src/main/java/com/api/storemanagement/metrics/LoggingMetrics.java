@@ -0,0 +1,20 @@
+package com.api.storemanagement.metrics;
+
+import com.api.storemanagement.logging.CountingAsyncAppender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Metrics of logging: log events dropped by the asynchronous appenders because their queue was full
+ */
+@Component
+public class LoggingMetrics implements MeterBinder {
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder("store.logging.dropped", CountingAsyncAppender.class, ignored -> CountingAsyncAppender.droppedEvents())
+				.description("Log events dropped by asynchronous appenders")
+				.register(registry);
+	}
+}
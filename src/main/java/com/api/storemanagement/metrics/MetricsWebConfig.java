@@ -0,0 +1,30 @@
+package com.api.storemanagement.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registers the interceptor recording SQL statements per request, when statements are counted
+ */
+@Configuration
+public class MetricsWebConfig implements WebMvcConfigurer {
+	private final ObjectProvider<StatementCounter> statementCounter;
+	private final ObjectProvider<MeterRegistry> meterRegistry;
+
+	public MetricsWebConfig(ObjectProvider<StatementCounter> statementCounter, ObjectProvider<MeterRegistry> meterRegistry) {
+		this.statementCounter = statementCounter;
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		StatementCounter counter = statementCounter.getIfAvailable();
+		MeterRegistry meters = meterRegistry.getIfAvailable();
+		if (counter != null && meters != null) {
+			registry.addInterceptor(new StatementCountInterceptor(counter, meters));
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package com.api.storemanagement.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Metrics of order creation: created orders, failed orders by reason and items per order
+ */
+@Component
+public class OrderMetrics {
+	private final MeterRegistry meterRegistry;
+	private final Counter createdOrders;
+	private final DistributionSummary itemsPerOrder;
+
+	@Autowired
+	public OrderMetrics(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+		this.createdOrders = Counter.builder("store.orders.created")
+				.description("Orders created")
+				.register(meterRegistry);
+		this.itemsPerOrder = DistributionSummary.builder("store.orders.items")
+				.description("Distinct products per created order")
+				.publishPercentileHistogram()
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Record a created order
+	 * @param itemCount - number of items in the order
+	 */
+	public void orderCreated(int itemCount) {
+		createdOrders.increment();
+		itemsPerOrder.record(itemCount);
+	}
+
+	/**
+	 * Record an order which could not be created
+	 * @param reason - exception which rejected the order, its class names the reason
+	 */
+	public void orderFailed(Exception reason) {
+		Counter.builder("store.orders.failed")
+				.description("Orders rejected or failed, by exception")
+				.tag("reason", reason.getClass().getSimpleName())
+				.register(meterRegistry)
+				.increment();
+	}
+}
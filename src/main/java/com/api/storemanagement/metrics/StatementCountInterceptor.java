@@ -0,0 +1,40 @@
+package com.api.storemanagement.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Interceptor recording the number of SQL statements run by each request, by endpoint,
+ * so that N+1 query regressions show up as a growing statement count
+ */
+public class StatementCountInterceptor implements HandlerInterceptor {
+	private final StatementCounter statementCounter;
+	private final MeterRegistry meterRegistry;
+
+	public StatementCountInterceptor(StatementCounter statementCounter, MeterRegistry meterRegistry) {
+		this.statementCounter = statementCounter;
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		statementCounter.reset();
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		DistributionSummary.builder("store.http.statements")
+				.description("SQL statements run per request")
+				.tag("method", request.getMethod())
+				.tag("uri", pattern != null ? pattern.toString() : "UNKNOWN")
+				.publishPercentileHistogram()
+				.register(meterRegistry)
+				.record(statementCounter.count());
+	}
+}
@@ -0,0 +1,30 @@
+package com.api.storemanagement.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate statement inspector counting the SQL statements prepared by the current thread
+ */
+public class StatementCounter implements StatementInspector {
+	private final ThreadLocal<int[]> statements = ThreadLocal.withInitial(() -> new int[1]);
+
+	@Override
+	public String inspect(String sql) {
+		statements.get()[0]++;
+		return sql;
+	}
+
+	/**
+	 * Start counting statements of the current thread from zero
+	 */
+	public void reset() {
+		statements.get()[0] = 0;
+	}
+
+	/**
+	 * @return number of statements prepared by the current thread since the last reset
+	 */
+	public int count() {
+		return statements.get()[0];
+	}
+}
@@ -0,0 +1,71 @@
+package com.api.storemanagement.metrics;
+
+import com.api.storemanagement.product.ProductRepository;
+import com.api.storemanagement.product.StockLevels;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gauges of the stock of the catalog. Levels are aggregated by a single query, refreshed periodically
+ * rather than on every scrape, and per product levels are left out to keep the number of series bounded.
+ */
+@Component
+public class StockMetrics {
+	/**
+	 * Logger
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(StockMetrics.class);
+
+	private final ProductRepository productRepository;
+	private final int lowStockThreshold;
+
+	private final AtomicLong products = new AtomicLong();
+	private final AtomicLong units = new AtomicLong();
+	private final AtomicLong outOfStockProducts = new AtomicLong();
+	private final AtomicLong lowStockProducts = new AtomicLong();
+
+	@Autowired
+	public StockMetrics(ProductRepository productRepository, MeterRegistry meterRegistry,
+						@Value("${store.metrics.stock.low-threshold:10}") int lowStockThreshold) {
+		this.productRepository = productRepository;
+		this.lowStockThreshold = lowStockThreshold;
+
+		Gauge.builder("store.stock.products", products, AtomicLong::get)
+				.description("Products in the catalog")
+				.register(meterRegistry);
+		Gauge.builder("store.stock.units", units, AtomicLong::get)
+				.description("Units in stock over all products")
+				.register(meterRegistry);
+		Gauge.builder("store.stock.out", outOfStockProducts, AtomicLong::get)
+				.description("Products out of stock")
+				.register(meterRegistry);
+		Gauge.builder("store.stock.low", lowStockProducts, AtomicLong::get)
+				.description("Products in stock, at or below the low stock threshold")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Read the current stock levels into the gauges
+	 */
+	@Scheduled(fixedDelayString = "${store.metrics.stock.refresh-interval:PT30S}")
+	public void refresh() {
+		try {
+			StockLevels levels = productRepository.findStockLevels(lowStockThreshold);
+			products.set(levels.products());
+			units.set(levels.units());
+			outOfStockProducts.set(levels.outOfStock());
+			lowStockProducts.set(levels.lowStock());
+		} catch (DataAccessException e) {
+			logger.warn("Failed to refresh stock metrics: {}", e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package com.api.storemanagement.metrics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Metrics configuration: counts the SQL statements of each request through Hibernate,
+ * and schedules the refresh of the stock gauges
+ */
+@Configuration
+@EnableScheduling
+public class StoreMetricsConfig {
+	@Bean
+	public StatementCounter statementCounter() {
+		return new StatementCounter();
+	}
+
+	@Bean
+	public HibernatePropertiesCustomizer statementCounterCustomizer(StatementCounter statementCounter) {
+		return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementCounter);
+	}
+}
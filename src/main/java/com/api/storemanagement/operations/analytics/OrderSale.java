@@ -0,0 +1,72 @@
+package com.api.storemanagement.operations.analytics;
+
+import com.api.storemanagement.orders.ArchivedOrder;
+import com.api.storemanagement.orders.Order;
+import com.api.storemanagement.orders.OrderItemSale;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fields of an order counted by the sales aggregates, whether the order is current or archived
+ * @param orderId - ID of order
+ * @param username - user who placed the order
+ * @param orderTime - time the order was placed
+ * @param items - ordered products, quantities and unit prices
+ */
+record OrderSale(Long orderId, String username, LocalDateTime orderTime, List<Item> items) {
+	/**
+	 * @param productId - ID of product, null if the product was removed
+	 * @param quantity - ordered quantity
+	 * @param unitPrice - price of the product when it was ordered, null if it was not recorded
+	 */
+	record Item(Long productId, int quantity, BigDecimal unitPrice) {
+		BigDecimal revenue() {
+			return unitPrice == null ? BigDecimal.ZERO : unitPrice.multiply(BigDecimal.valueOf(quantity));
+		}
+	}
+
+	static OrderSale of(Order order) {
+		return new OrderSale(order.getId(), order.getUsername(), order.getOrderTime(), order.getItems().stream()
+				.map(item -> new Item(item.getProduct() == null ? null : item.getProduct().getId(), item.getQuantity(), item.getUnitPrice()))
+				.toList());
+	}
+
+	static OrderSale of(ArchivedOrder order) {
+		return new OrderSale(order.getId(), order.getUsername(), order.getOrderTime(), order.getItems().stream()
+				.map(item -> new Item(item.productId(), item.quantity(), item.unitPrice()))
+				.toList());
+	}
+
+	/**
+	 * Group items read row by row into orders
+	 * @param rows - items of orders, grouped by order; a row without quantity stands for an order without items
+	 * @return orders, in the order of the rows
+	 */
+	static List<OrderSale> of(List<OrderItemSale> rows) {
+		List<OrderSale> sales = new ArrayList<>();
+		OrderSale current = null;
+		for (OrderItemSale row : rows) {
+			if (current == null || !current.orderId().equals(row.orderId())) {
+				current = new OrderSale(row.orderId(), row.username(), row.orderTime(), new ArrayList<>());
+				sales.add(current);
+			}
+			if (row.quantity() != null) {
+				current.items().add(new Item(row.productId(), row.quantity(), row.unitPrice()));
+			}
+		}
+		return sales;
+	}
+
+	SalesTotals totals() {
+		long units = 0;
+		BigDecimal revenue = BigDecimal.ZERO;
+		for (Item item : items) {
+			units += item.quantity();
+			revenue = revenue.add(item.revenue());
+		}
+		return new SalesTotals(1, units, revenue);
+	}
+}
@@ -0,0 +1,8 @@
+package com.api.storemanagement.operations.analytics;
+
+/**
+ * Sales of a product over a period
+ * @param productId - ID of product
+ * @param sales - orders of the product, units sold and revenue
+ */
+public record ProductSales(Long productId, SalesTotals sales) {}
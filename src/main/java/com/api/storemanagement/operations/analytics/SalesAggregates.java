@@ -0,0 +1,203 @@
+package com.api.storemanagement.operations.analytics;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Sales added up by time bucket, by product within each bucket and by user. Product sales are also
+ * rolled up over runs of {@link #ROLLUP_BUCKETS} buckets and over all time, so that rankings over long
+ * periods merge a few totals per product instead of one per bucket. Orders are added and subtracted
+ * concurrently; each total is updated atomically, so queries see every order either fully counted in a
+ * total or not at all.
+ */
+class SalesAggregates {
+	/**
+	 * Buckets per roll-up of product sales
+	 */
+	static final int ROLLUP_BUCKETS = 64;
+
+	/**
+	 * Length of time buckets, in seconds
+	 */
+	private final long bucketSeconds;
+
+	/**
+	 * Totals by bucket, all products included, and by bucket then product. Buckets are keyed by their
+	 * number since the epoch.
+	 */
+	private final ConcurrentSkipListMap<Long, SalesTotals> bucketTotals = new ConcurrentSkipListMap<>();
+	private final ConcurrentSkipListMap<Long, ConcurrentMap<Long, SalesTotals>> productTotals = new ConcurrentSkipListMap<>();
+
+	/**
+	 * Totals by roll-up then product, keyed by the number of the roll-up, and by product over all time
+	 */
+	private final ConcurrentSkipListMap<Long, ConcurrentMap<Long, SalesTotals>> rollupTotals = new ConcurrentSkipListMap<>();
+	private final ConcurrentMap<Long, SalesTotals> allTimeProductTotals = new ConcurrentHashMap<>();
+
+	/**
+	 * Totals by user, over all time
+	 */
+	private final ConcurrentMap<String, SalesTotals> userTotals = new ConcurrentHashMap<>();
+
+	SalesAggregates(long bucketSeconds) {
+		this.bucketSeconds = bucketSeconds;
+	}
+
+	void add(OrderSale sale) {
+		apply(sale, false);
+	}
+
+	void subtract(OrderSale sale) {
+		apply(sale, true);
+	}
+
+	private void apply(OrderSale sale, boolean subtract) {
+		long bucket = bucketOf(sale.orderTime() == null ? LocalDateTime.now() : sale.orderTime());
+		SalesTotals orderTotals = sale.totals();
+		merge(bucketTotals, bucket, subtract ? orderTotals.negate() : orderTotals);
+		merge(userTotals, sale.username(), subtract ? orderTotals.negate() : orderTotals);
+
+		ConcurrentMap<Long, SalesTotals> products = productTotals.computeIfAbsent(bucket, key -> new ConcurrentHashMap<>());
+		ConcurrentMap<Long, SalesTotals> rollup = rollupTotals.computeIfAbsent(Math.floorDiv(bucket, ROLLUP_BUCKETS),
+				key -> new ConcurrentHashMap<>());
+		for (OrderSale.Item item : sale.items()) {
+			if (item.productId() != null) {
+				SalesTotals itemTotals = new SalesTotals(1, item.quantity(), item.revenue());
+				SalesTotals delta = subtract ? itemTotals.negate() : itemTotals;
+				merge(products, item.productId(), delta);
+				merge(rollup, item.productId(), delta);
+				merge(allTimeProductTotals, item.productId(), delta);
+			}
+		}
+	}
+
+	/**
+	 * Add to a total atomically, dropping totals back to zero
+	 */
+	private static <K> void merge(ConcurrentMap<K, SalesTotals> totals, K key, SalesTotals delta) {
+		totals.compute(key, (ignored, total) -> {
+			SalesTotals sum = total == null ? delta : total.plus(delta);
+			return sum.isZero() ? null : sum;
+		});
+	}
+
+	/**
+	 * Products with the most sales over the buckets of a period
+	 * @param from - inclusive lower bound of the period, rounded down to its bucket, or null
+	 * @param to - exclusive upper bound of the period, rounded up to its bucket, or null
+	 * @param limit - maximum number of products
+	 * @param ranking - order of products, best first
+	 * @return best selling products
+	 */
+	List<ProductSales> topProducts(LocalDateTime from, LocalDateTime to, int limit, Comparator<SalesTotals> ranking) {
+		Map<Long, SalesTotals> sums;
+		if (from == null && to == null) {
+			sums = allTimeProductTotals;
+		} else {
+			long first = from == null ? Long.MIN_VALUE : bucketOf(from);
+			long end = to == null ? Long.MAX_VALUE : endOf(to);
+			sums = new HashMap<>();
+			// Roll-ups lying whole in the period, then the buckets of the period outside them
+			long firstRollup = Math.floorDiv(first, ROLLUP_BUCKETS) + (Math.floorMod(first, ROLLUP_BUCKETS) == 0 ? 0 : 1);
+			long endRollup = Math.floorDiv(end, ROLLUP_BUCKETS);
+			if (firstRollup < endRollup) {
+				addUp(sums, rollupTotals.subMap(firstRollup, endRollup));
+				addUp(sums, productTotals.subMap(first, firstRollup * ROLLUP_BUCKETS));
+				addUp(sums, productTotals.subMap(endRollup * ROLLUP_BUCKETS, end));
+			} else if (first < end) {
+				addUp(sums, productTotals.subMap(first, end));
+			}
+		}
+		return sums.entrySet().stream()
+				.sorted(Map.Entry.<Long, SalesTotals>comparingByValue(ranking).thenComparing(Map.Entry.comparingByKey()))
+				.limit(limit)
+				.map(entry -> new ProductSales(entry.getKey(), entry.getValue()))
+				.toList();
+	}
+
+	private static void addUp(Map<Long, SalesTotals> sums, Map<Long, ConcurrentMap<Long, SalesTotals>> buckets) {
+		for (Map<Long, SalesTotals> products : buckets.values()) {
+			products.forEach((productId, totals) -> sums.merge(productId, totals, SalesTotals::plus));
+		}
+	}
+
+	/**
+	 * Sales of each bucket of a period which has any, of a product or of all products
+	 * @param productId - ID of product, or null for all products
+	 * @param from - inclusive lower bound of the period, rounded down to its bucket, or null
+	 * @param to - exclusive upper bound of the period, rounded up to its bucket, or null
+	 * @return sales by bucket, oldest first
+	 */
+	List<SalesPoint> salesOverTime(Long productId, LocalDateTime from, LocalDateTime to) {
+		List<SalesPoint> points = new ArrayList<>();
+		if (productId == null) {
+			range(bucketTotals, from, to).forEach((bucket, totals) -> points.add(new SalesPoint(startOf(bucket), totals)));
+		} else {
+			range(productTotals, from, to).forEach((bucket, products) -> {
+				SalesTotals totals = products.get(productId);
+				if (totals != null) {
+					points.add(new SalesPoint(startOf(bucket), totals));
+				}
+			});
+		}
+		return points;
+	}
+
+	/**
+	 * @return totals of a user over all time
+	 */
+	SalesTotals userSales(String username) {
+		return userTotals.getOrDefault(username, SalesTotals.ZERO);
+	}
+
+	/**
+	 * Users with the most sales over all time
+	 * @param limit - maximum number of users
+	 * @param ranking - order of users, best first
+	 * @return best customers
+	 */
+	List<UserSales> topUsers(int limit, Comparator<SalesTotals> ranking) {
+		return userTotals.entrySet().stream()
+				.sorted(Map.Entry.<String, SalesTotals>comparingByValue(ranking).thenComparing(Map.Entry.comparingByKey()))
+				.limit(limit)
+				.map(entry -> new UserSales(entry.getKey(), entry.getValue()))
+				.toList();
+	}
+
+	private <V> NavigableMap<Long, V> range(ConcurrentSkipListMap<Long, V> buckets, LocalDateTime from, LocalDateTime to) {
+		long first = from == null ? Long.MIN_VALUE : bucketOf(from);
+		long last = to == null ? Long.MAX_VALUE : bucketOf(to);
+		if (first > last) {
+			return Collections.emptyNavigableMap();
+		}
+		// The bucket holding the upper bound is included unless the bound is its start
+		return buckets.subMap(first, true, last, to == null || !startOf(last).equals(to));
+	}
+
+	/**
+	 * @return number of the first bucket after a period ending at a time, exclusive
+	 */
+	private long endOf(LocalDateTime to) {
+		long last = bucketOf(to);
+		// The bucket holding the upper bound is included unless the bound is its start
+		return startOf(last).equals(to) ? last : last + 1;
+	}
+
+	private long bucketOf(LocalDateTime time) {
+		return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), bucketSeconds);
+	}
+
+	private LocalDateTime startOf(long bucket) {
+		return LocalDateTime.ofEpochSecond(bucket * bucketSeconds, 0, ZoneOffset.UTC);
+	}
+}
@@ -0,0 +1,321 @@
+package com.api.storemanagement.operations.analytics;
+
+import com.api.storemanagement.orders.ArchivedOrderRepository;
+import com.api.storemanagement.orders.OrderChangedEvent;
+import com.api.storemanagement.orders.OrderRepository;
+import com.api.storemanagement.orders.OrdersDeletedEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Sales reporting answered from in-memory aggregates, without reading the order tables: units sold and
+ * revenue by product and time bucket, and totals by user. Aggregates are updated by every placed and
+ * removed order, and rebuilt from the order history (archived orders included) at startup, after bulk
+ * deletions and on demand, by scanning ranges of order IDs in parallel. Orders archived while the history
+ * is scanned may be counted twice or missed until the next rebuild.
+ */
+@Service
+public class SalesAnalytics {
+	/**
+	 * Rankings of products and users, best first
+	 */
+	public static final Comparator<SalesTotals> BY_UNITS = Comparator.comparingLong(SalesTotals::units).reversed();
+	public static final Comparator<SalesTotals> BY_REVENUE = Comparator.comparing(SalesTotals::revenue).reversed();
+
+	/**
+	 * Scans of the history made by a rebuild before giving up on orders changing during the scan
+	 */
+	private static final int MAX_REBUILD_PASSES = 3;
+
+	private final OrderRepository orderRepository;
+	private final ArchivedOrderRepository archivedOrderRepository;
+	private final TransactionTemplate transactionTemplate;
+
+	/**
+	 * Length of time buckets, in seconds, at least one
+	 */
+	private final long bucketSeconds;
+
+	/**
+	 * Number of order IDs read per scanned chunk, and threads scanning chunks
+	 */
+	private final int chunkSize;
+	private final ExecutorService scanners;
+
+	private volatile SalesAggregates aggregates;
+
+	/**
+	 * Orders changed while a rebuild scans the history, applied to the rebuilt aggregates. Order events
+	 * hold the read lock, swapping in rebuilt aggregates the write lock.
+	 */
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Queue<OrderChangedEvent> changedDuringRebuild = new ConcurrentLinkedQueue<>();
+	private volatile boolean rebuilding;
+
+	/**
+	 * Whether a rebuild is waiting to run in the background
+	 */
+	private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+	/**
+	 * Logger
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(SalesAnalytics.class);
+
+	@Autowired
+	public SalesAnalytics(OrderRepository orderRepository, ArchivedOrderRepository archivedOrderRepository,
+						  PlatformTransactionManager transactionManager,
+						  @Value("${store.analytics.bucket:PT1H}") Duration bucket,
+						  @Value("${store.analytics.rebuild.chunk-size:5000}") int chunkSize,
+						  @Value("${store.analytics.rebuild.threads:4}") int threads) {
+		this.orderRepository = orderRepository;
+		this.archivedOrderRepository = archivedOrderRepository;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+		if (bucket.compareTo(Duration.ofSeconds(1)) < 0) {
+			throw new IllegalArgumentException("Sales buckets must last at least one second: " + bucket);
+		}
+		this.bucketSeconds = bucket.toSeconds();
+		this.chunkSize = chunkSize;
+		this.aggregates = new SalesAggregates(bucketSeconds);
+
+		AtomicInteger scannerNumber = new AtomicInteger();
+		this.scanners = Executors.newFixedThreadPool(threads, task -> {
+			Thread scanner = new Thread(task, "sales-analytics-" + scannerNumber.incrementAndGet());
+			scanner.setDaemon(true);
+			return scanner;
+		});
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		scanners.shutdownNow();
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void buildOnStartup() {
+		rebuildInBackground();
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onOrderChanged(OrderChangedEvent event) {
+		OrderSale sale = OrderSale.of(event.order());
+		lock.readLock().lock();
+		try {
+			if (event.removal()) {
+				aggregates.subtract(sale);
+			} else {
+				aggregates.add(sale);
+			}
+			if (rebuilding) {
+				changedDuringRebuild.add(event);
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onOrdersDeleted(OrdersDeletedEvent event) {
+		// Bulk deletions do not report which orders were deleted
+		if (event.orders() > 0) {
+			rebuildInBackground();
+		}
+	}
+
+	/**
+	 * Products with the most sales over a period. Periods are made of whole buckets.
+	 * @param from - inclusive lower bound of the period, rounded down to its bucket, or null
+	 * @param to - exclusive upper bound of the period, rounded up to its bucket, or null
+	 * @param limit - maximum number of products
+	 * @param ranking - order of products, best first
+	 * @return best selling products
+	 */
+	public List<ProductSales> topProducts(LocalDateTime from, LocalDateTime to, int limit, Comparator<SalesTotals> ranking) {
+		return aggregates.topProducts(from, to, limit, ranking);
+	}
+
+	/**
+	 * Sales of each bucket of a period, of a product or of all products. Buckets without sales are left out.
+	 * @param productId - ID of product, or null for all products
+	 * @param from - inclusive lower bound of the period, rounded down to its bucket, or null
+	 * @param to - exclusive upper bound of the period, rounded up to its bucket, or null
+	 * @return sales by bucket, oldest first
+	 */
+	public List<SalesPoint> salesOverTime(Long productId, LocalDateTime from, LocalDateTime to) {
+		return aggregates.salesOverTime(productId, from, to);
+	}
+
+	/**
+	 * @return orders placed by a user, over all time
+	 */
+	public UserSales userSales(String username) {
+		return new UserSales(username, aggregates.userSales(username));
+	}
+
+	/**
+	 * Users with the most sales over all time
+	 * @param limit - maximum number of users
+	 * @param ranking - order of users, best first
+	 * @return best customers
+	 */
+	public List<UserSales> topUsers(int limit, Comparator<SalesTotals> ranking) {
+		return aggregates.topUsers(limit, ranking);
+	}
+
+	/**
+	 * Rebuild the aggregates in the background, unless a rebuild is already waiting to run
+	 */
+	public void rebuildInBackground() {
+		if (rebuildScheduled.compareAndSet(false, true)) {
+			Thread rebuilder = new Thread(() -> {
+				try {
+					rebuild();
+				} catch (RuntimeException e) {
+					logger.error("Sales aggregates could not be rebuilt.", e);
+				}
+			}, "sales-analytics-rebuild");
+			rebuilder.setDaemon(true);
+			rebuilder.start();
+		}
+	}
+
+	/**
+	 * Rebuild the aggregates from the order history, archived orders included. Queries keep being answered
+	 * from the current aggregates until the rebuilt ones replace them. Orders placed during the scan are
+	 * applied to the rebuilt aggregates afterwards; if orders the scan may already have read change, the
+	 * history is scanned again.
+	 * @return numbers of scanned orders
+	 */
+	public synchronized SalesRebuildReport rebuild() {
+		rebuildScheduled.set(false);
+		long start = System.nanoTime();
+		for (int pass = 1; ; pass++) {
+			SalesAggregates rebuilt = new SalesAggregates(bucketSeconds);
+			changedDuringRebuild.clear();
+			rebuilding = true;
+			long[] scanned;
+			long lastScannedId;
+			try {
+				// Orders placed from now on are applied after the scan, the scan stops before them
+				lastScannedId = maxOrNone(orderRepository.findMaxId());
+				scanned = scan(rebuilt, lastScannedId);
+			} catch (RuntimeException e) {
+				rebuilding = false;
+				throw e;
+			}
+
+			boolean consistent = true;
+			lock.writeLock().lock();
+			try {
+				for (OrderChangedEvent event : changedDuringRebuild) {
+					if (event.order().getId() > lastScannedId) {
+						if (event.removal()) {
+							rebuilt.subtract(OrderSale.of(event.order()));
+						} else {
+							rebuilt.add(OrderSale.of(event.order()));
+						}
+					} else {
+						consistent = false;
+					}
+				}
+				if (consistent || pass == MAX_REBUILD_PASSES) {
+					aggregates = rebuilt;
+					rebuilding = false;
+					changedDuringRebuild.clear();
+				}
+			} finally {
+				lock.writeLock().unlock();
+			}
+
+			if (consistent || pass == MAX_REBUILD_PASSES) {
+				long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+				if (!consistent) {
+					logger.warn("Orders kept changing while sales aggregates were rebuilt, they may be slightly off.");
+				}
+				logger.info("Sales aggregates rebuilt from {} orders and {} archived orders in {} ms.", scanned[0], scanned[1], elapsedMillis);
+				return new SalesRebuildReport(scanned[0], scanned[1], pass, elapsedMillis);
+			}
+			logger.debug("Orders changed while sales aggregates were rebuilt, scanning again.");
+		}
+	}
+
+	/**
+	 * Add the whole history to aggregates, each chunk of order IDs read in its own transaction by a scanner thread
+	 * @return numbers of scanned orders and archived orders
+	 */
+	private long[] scan(SalesAggregates rebuilt, long lastOrderId) {
+		List<Future<Long>> orderChunks = submitChunks(orderRepository.findMinId(), lastOrderId, (fromId, toId) -> {
+			List<OrderSale> sales = OrderSale.of(orderRepository.findItemSalesByOrderIdBetween(fromId, toId));
+			sales.forEach(rebuilt::add);
+			return sales.size();
+		});
+		List<Future<Long>> archivedChunks = submitChunks(archivedOrderRepository.findMinId(),
+				maxOrNone(archivedOrderRepository.findMaxId()), (fromId, toId) -> {
+			List<OrderSale> sales = archivedOrderRepository.findByIdBetween(fromId, toId).stream().map(OrderSale::of).toList();
+			sales.forEach(rebuilt::add);
+			return sales.size();
+		});
+		return new long[]{sum(orderChunks), sum(archivedChunks)};
+	}
+
+	private List<Future<Long>> submitChunks(Long minId, long maxId, LongBinaryOperator scanChunk) {
+		List<Future<Long>> chunks = new ArrayList<>();
+		if (minId == null) {
+			return chunks;
+		}
+		for (long fromId = minId; fromId <= maxId; fromId += chunkSize) {
+			long chunkFromId = fromId;
+			long chunkToId = Math.min(maxId, fromId + chunkSize - 1);
+			chunks.add(scanners.submit(() -> transactionTemplate.execute(status -> scanChunk.applyAsLong(chunkFromId, chunkToId))));
+		}
+		return chunks;
+	}
+
+	private static long sum(List<Future<Long>> chunks) {
+		long total = 0;
+		try {
+			for (Future<Long> chunk : chunks) {
+				total += chunk.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			chunks.forEach(chunk -> chunk.cancel(true));
+			throw new IllegalStateException("Sales aggregates rebuild was interrupted", e);
+		} catch (ExecutionException e) {
+			chunks.forEach(chunk -> chunk.cancel(true));
+			throw new IllegalStateException("Sales aggregates could not be rebuilt", e.getCause());
+		}
+		return total;
+	}
+
+	private static long maxOrNone(Long maxId) {
+		return maxId == null ? Long.MIN_VALUE : maxId;
+	}
+}
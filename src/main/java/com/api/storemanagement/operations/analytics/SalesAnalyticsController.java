@@ -0,0 +1,76 @@
+package com.api.storemanagement.operations.analytics;
+
+import com.api.storemanagement.exceptions.InvalidRankingException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+@RestController
+@RequestMapping("/orders/admin/analytics")
+public class SalesAnalyticsController {
+	private static final int DEFAULT_LIMIT = 10;
+	private static final int MAX_LIMIT = 100;
+
+	private final SalesAnalytics salesAnalytics;
+
+	@Autowired
+	public SalesAnalyticsController(SalesAnalytics salesAnalytics) {
+		this.salesAnalytics = salesAnalytics;
+	}
+
+	@GetMapping("/top-products")
+	@PreAuthorize("hasRole('ADMIN')")
+	public ResponseEntity<List<ProductSales>> topProducts(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+														 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+														 @RequestParam(required = false) Integer limit,
+														 @RequestParam(defaultValue = "units") String by) {
+		return ResponseEntity.ok(salesAnalytics.topProducts(from, to, limitOf(limit), rankingOf(by)));
+	}
+
+	@GetMapping("/sales")
+	@PreAuthorize("hasRole('ADMIN')")
+	public ResponseEntity<List<SalesPoint>> salesOverTime(@RequestParam(required = false) Long productId,
+														 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+														 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+		return ResponseEntity.ok(salesAnalytics.salesOverTime(productId, from, to));
+	}
+
+	@GetMapping("/users/{username}")
+	@PreAuthorize("hasRole('ADMIN')")
+	public ResponseEntity<UserSales> userSales(@PathVariable String username) {
+		return ResponseEntity.ok(salesAnalytics.userSales(username));
+	}
+
+	@GetMapping("/top-users")
+	@PreAuthorize("hasRole('ADMIN')")
+	public ResponseEntity<List<UserSales>> topUsers(@RequestParam(required = false) Integer limit,
+												   @RequestParam(defaultValue = "revenue") String by) {
+		return ResponseEntity.ok(salesAnalytics.topUsers(limitOf(limit), rankingOf(by)));
+	}
+
+	@PostMapping("/rebuild")
+	@PreAuthorize("hasRole('ADMIN')")
+	public ResponseEntity<SalesRebuildReport> rebuild() {
+		return ResponseEntity.ok(salesAnalytics.rebuild());
+	}
+
+	private static int limitOf(Integer limit) {
+		return limit == null ? DEFAULT_LIMIT : Math.min(Math.max(limit, 1), MAX_LIMIT);
+	}
+
+	private static Comparator<SalesTotals> rankingOf(String by) {
+		if ("units".equalsIgnoreCase(by)) {
+			return SalesAnalytics.BY_UNITS;
+		}
+		if ("revenue".equalsIgnoreCase(by)) {
+			return SalesAnalytics.BY_REVENUE;
+		}
+		throw new InvalidRankingException("Sales can only be ranked by units or revenue, not by " + by + ".");
+	}
+}
@@ -0,0 +1,10 @@
+package com.api.storemanagement.operations.analytics;
+
+import java.time.LocalDateTime;
+
+/**
+ * Sales of a time bucket
+ * @param start - start of the bucket
+ * @param sales - orders, units sold and revenue of the bucket
+ */
+public record SalesPoint(LocalDateTime start, SalesTotals sales) {}
@@ -0,0 +1,10 @@
+package com.api.storemanagement.operations.analytics;
+
+/**
+ * Outcome of a rebuild of the sales aggregates from the order history
+ * @param orders - number of orders scanned
+ * @param archivedOrders - number of archived orders scanned
+ * @param passes - number of scans of the history, more than one if orders changed during a scan
+ * @param elapsedMillis - duration of the rebuild
+ */
+public record SalesRebuildReport(long orders, long archivedOrders, int passes, long elapsedMillis) {}
@@ -0,0 +1,25 @@
+package com.api.storemanagement.operations.analytics;
+
+import java.math.BigDecimal;
+
+/**
+ * Sales added up over orders
+ * @param orders - number of orders
+ * @param units - number of units sold
+ * @param revenue - revenue at the prices products were ordered at; items without a recorded price add nothing
+ */
+public record SalesTotals(long orders, long units, BigDecimal revenue) {
+	public static final SalesTotals ZERO = new SalesTotals(0, 0, BigDecimal.ZERO);
+
+	public SalesTotals plus(SalesTotals other) {
+		return new SalesTotals(orders + other.orders, units + other.units, revenue.add(other.revenue));
+	}
+
+	public SalesTotals negate() {
+		return new SalesTotals(-orders, -units, revenue.negate());
+	}
+
+	public boolean isZero() {
+		return orders == 0 && units == 0 && revenue.signum() == 0;
+	}
+}
@@ -0,0 +1,8 @@
+package com.api.storemanagement.operations.analytics;
+
+/**
+ * Orders placed by a user, over all time
+ * @param username - user who placed the orders
+ * @param sales - orders placed, units bought and amount spent
+ */
+public record UserSales(String username, SalesTotals sales) {}
@@ -0,0 +1,63 @@
+package com.api.storemanagement.operations.orders;
+
+import com.api.storemanagement.operations.orders.OrderSubmissionStatus.Status;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.security.Principal;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/orders/async")
+public class AsyncOrderController {
+	public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+	/**
+	 * Longest time a status request waits for the order to complete, below the async request timeout
+	 */
+	public static final long MAX_WAIT_SECONDS = 20;
+
+	private final OrderPipeline orderPipeline;
+
+	@Autowired
+	public AsyncOrderController(OrderPipeline orderPipeline) {
+		this.orderPipeline = orderPipeline;
+	}
+
+	@PostMapping
+	@PreAuthorize("hasRole('USER')")
+	public ResponseEntity<OrderSubmissionStatus> submitOrder(@RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+															 @RequestBody OrderRequest request, Principal principal) {
+		OrderSubmission submission = orderPipeline.submit(principal.getName(), idempotencyKey, request.items());
+		return ResponseEntity.accepted()
+				.location(URI.create("/orders/async/" + submission.handle()))
+				.body(submission.status());
+	}
+
+	@GetMapping("/{handle}")
+	@PreAuthorize("hasRole('USER')")
+	public CompletableFuture<ResponseEntity<OrderSubmissionStatus>> getOrderStatus(@PathVariable String handle,
+																				  @RequestParam(defaultValue = "0") long waitSeconds,
+																				  Principal principal) {
+		Optional<OrderSubmission> found = orderPipeline.find(principal.getName(), handle);
+		if (found.isEmpty()) {
+			return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+		}
+
+		// Long poll: answer as soon as the order completes, or with the queued status after the wait
+		OrderSubmission submission = found.get();
+		OrderSubmissionStatus status = submission.status();
+		long wait = Math.min(Math.max(waitSeconds, 0), MAX_WAIT_SECONDS);
+		if (wait == 0 || status.status() != Status.QUEUED) {
+			return CompletableFuture.completedFuture(ResponseEntity.ok(status));
+		}
+		return submission.completion().copy()
+				.completeOnTimeout(status, wait, TimeUnit.SECONDS)
+				.thenApply(ResponseEntity::ok);
+	}
+}
@@ -0,0 +1,118 @@
+package com.api.storemanagement.operations.orders;
+
+import com.api.storemanagement.orders.ArchivedOrder;
+import com.api.storemanagement.orders.ArchivedOrderItem;
+import com.api.storemanagement.orders.Order;
+import com.api.storemanagement.orders.OrderItem;
+import com.api.storemanagement.orders.OrderRepository;
+import com.api.storemanagement.product.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Service moving old orders out of the orders and order_item tables into the archived_orders table,
+ * so that the tables written by orders stay small however long the history grows. Orders are moved
+ * in chunks, each in its own transaction, oldest first.
+ */
+@Service
+public class OrderArchiver {
+	private final OrderRepository orderRepository;
+	private final TransactionTemplate transactionTemplate;
+
+	/**
+	 * Age after which orders are archived
+	 */
+	private final Duration age;
+
+	/**
+	 * Number of orders moved per transaction
+	 */
+	private final int chunkSize;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	/**
+	 * Logger
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(OrderArchiver.class);
+
+	@Autowired
+	public OrderArchiver(OrderRepository orderRepository, PlatformTransactionManager transactionManager,
+						 @Value("${store.orders.archive.age:P90D}") Duration age,
+						 @Value("${store.orders.archive.chunk-size:500}") int chunkSize) {
+		this.orderRepository = orderRepository;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.age = age;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Archive the orders older than the configured age
+	 */
+	@Scheduled(fixedDelayString = "${store.orders.archive.interval:PT1H}")
+	public void archive() {
+		int archived = archiveOrdersBefore(LocalDateTime.now().minus(age));
+		if (archived > 0) {
+			logger.info("Archived {} orders older than {}.", archived, age);
+		}
+	}
+
+	/**
+	 * Archive the orders placed before a given time
+	 * @param before - exclusive upper bound of order time
+	 * @return number of archived orders
+	 */
+	public int archiveOrdersBefore(LocalDateTime before) {
+		int total = 0;
+		int archived;
+		do {
+			archived = transactionTemplate.execute(status -> archiveChunk(before));
+			total += archived;
+		} while (archived == chunkSize);
+		return total;
+	}
+
+	private int archiveChunk(LocalDateTime before) {
+		List<Long> orderIds = orderRepository.findIdsOrderedBefore(before, Limit.of(chunkSize));
+		if (orderIds.isEmpty()) {
+			return 0;
+		}
+
+		LocalDateTime archivedAt = LocalDateTime.now();
+		for (Order order : orderRepository.findWithItemsByIdIn(orderIds)) {
+			entityManager.persist(new ArchivedOrder(order.getId(), order.getUsername(), order.getOrderTime(),
+					archivedAt, order.getSubtotal(), order.getItemCount(),
+					order.getItems().stream().map(OrderArchiver::archivedItem).toList()));
+		}
+		entityManager.flush();
+		// Archived orders are detached before the bulk deletes, which bypass the persistence context
+		entityManager.clear();
+
+		orderRepository.deleteItemsByOrderIdIn(orderIds);
+		orderRepository.deleteByIdIn(orderIds);
+		logger.debug("Archived orders {} to {}.", orderIds.get(0), orderIds.get(orderIds.size() - 1));
+		return orderIds.size();
+	}
+
+	private static ArchivedOrderItem archivedItem(OrderItem item) {
+		Product product = item.getProduct();
+		return product == null
+				? new ArchivedOrderItem(item.getId(), null, null, 0, item.getQuantity(), item.getUnitPrice())
+				: new ArchivedOrderItem(item.getId(), product.getId(), product.getName(), product.getPrice(), item.getQuantity(),
+						item.getUnitPrice());
+	}
+}
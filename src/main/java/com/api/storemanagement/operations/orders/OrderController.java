@@ -1,17 +1,23 @@
 package com.api.storemanagement.operations.orders;
 
 import com.api.storemanagement.orders.Order;
+import com.api.storemanagement.orders.OrderSummary;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.security.Principal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
 @RequestMapping("/orders")
 public class OrderController {
+	private static final int DEFAULT_PAGE_SIZE = 20;
+	private static final int MAX_PAGE_SIZE = 100;
+
 	private final OrderService orderService;
 
 	@Autowired
@@ -29,18 +35,36 @@ public class OrderController {
 
 	@GetMapping
 	@PreAuthorize("hasRole('USER')")
-	public ResponseEntity<List<Order>> getUserOrders(Principal principal) {
-		// Retrieve orders by the username of the logged-in user
-		List<Order> orders = orderService.findOrdersByUsername(principal.getName());
+	public ResponseEntity<List<OrderResponse>> getUserOrders(@RequestParam(required = false) Integer page,
+															@RequestParam(required = false) Integer size,
+															Principal principal) {
+		// Retrieve orders by the username of the logged-in user, all of them unless a page is requested
+		if (page == null && size == null) {
+			return ResponseEntity.ok(orderService.findOrdersByUsername(principal.getName()));
+		}
+		int pageNumber = page == null ? 0 : Math.max(page, 0);
+		int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+		List<OrderResponse> orders = orderService.findOrdersByUsername(principal.getName(), pageNumber, pageSize);
 		return ResponseEntity.ok(orders);
 	}
 
+	@GetMapping("/summaries")
+	@PreAuthorize("hasRole('USER')")
+	public ResponseEntity<List<OrderSummary>> getUserOrderSummaries(@RequestParam(required = false) Integer page,
+																   @RequestParam(required = false) Integer size,
+																   Principal principal) {
+		// Totals of the orders of the logged-in user, without their items
+		int pageNumber = page == null ? 0 : Math.max(page, 0);
+		int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+		return ResponseEntity.ok(orderService.findOrderSummariesByUsername(principal.getName(), pageNumber, pageSize));
+	}
+
 	@GetMapping("/{orderId}")
 	@PreAuthorize("hasRole('USER')")
-	public ResponseEntity<Order> getOrderById(@PathVariable Long orderId, Principal principal) {
-		Order order = orderService.findOrderById(orderId);
+	public ResponseEntity<OrderResponse> getOrderById(@PathVariable Long orderId, Principal principal) {
+		OrderResponse order = orderService.findOrderById(orderId);
 		// Check if the order belongs to the requesting user
-		if (!order.getUsername().equals(principal.getName())) {
+		if (!order.username().equals(principal.getName())) {
 			return ResponseEntity.status(403).build();
 		}
 		return ResponseEntity.ok(order);
@@ -49,9 +73,9 @@ public class OrderController {
 	@DeleteMapping("/{orderId}")
 	@PreAuthorize("hasRole('USER')")
 	public ResponseEntity<Void> deleteOrder(@PathVariable Long orderId, Principal principal) {
-		Order order = orderService.findOrderById(orderId);
+		OrderResponse order = orderService.findOrderById(orderId);
 		// Check if the requesting user is allowed to delete this order
-		if (!order.getUsername().equals(principal.getName())) {
+		if (!order.username().equals(principal.getName())) {
 			return ResponseEntity.status(403).build();
 		}
 		orderService.deleteOrderById(orderId);
@@ -60,8 +84,10 @@ public class OrderController {
 
 	@DeleteMapping("/admin/all")
 	@PreAuthorize("hasRole('ADMIN')")
-	public ResponseEntity<String> deleteAll() {
-		orderService.deleteAll();
-		return ResponseEntity.ok("Deleted all orders");
+	public ResponseEntity<OrderDeletionReport> deleteAll(@RequestParam(required = false) String username,
+														@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+														@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+		// Only admins delete orders in bulk, as the filter may cover orders of other users
+		return ResponseEntity.ok(orderService.deleteOrders(username, from, to));
 	}
 }
@@ -0,0 +1,9 @@
+package com.api.storemanagement.operations.orders;
+
+/**
+ * Record reporting what a bulk deletion of orders removed
+ * @param orders - number of deleted orders
+ * @param items - number of deleted order items
+ * @param archivedOrders - number of deleted archived orders
+ */
+public record OrderDeletionReport(long orders, long items, long archivedOrders) {}
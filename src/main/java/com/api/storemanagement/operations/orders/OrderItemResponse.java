@@ -0,0 +1,35 @@
+package com.api.storemanagement.operations.orders;
+
+import com.api.storemanagement.orders.ArchivedOrderItem;
+import com.api.storemanagement.orders.OrderItem;
+import com.api.storemanagement.product.Product;
+
+import java.math.BigDecimal;
+
+/**
+ * Record encapsulating an item of a listed order
+ * @param id - ID of order item
+ * @param product - summary of ordered product
+ * @param quantity - ordered quantity
+ * @param unitPrice - price of the product when it was ordered, null if it was not recorded
+ */
+public record OrderItemResponse(Long id, ProductSummary product, int quantity, BigDecimal unitPrice) {
+	public static OrderItemResponse from(OrderItem item) {
+		Product product = item.getProduct();
+		ProductSummary summary = product == null ? null : new ProductSummary(product.getId(), product.getName(), product.getPrice());
+		return new OrderItemResponse(item.getId(), summary, item.getQuantity(), item.getUnitPrice());
+	}
+
+	public static OrderItemResponse from(ArchivedOrderItem item) {
+		ProductSummary summary = item.productId() == null ? null : new ProductSummary(item.productId(), item.productName(), item.productPrice());
+		return new OrderItemResponse(item.id(), summary, item.quantity(), item.unitPrice());
+	}
+
+	/**
+	 * Fields of the ordered product needed to display an order
+	 * @param id - ID of product
+	 * @param name - name of product
+	 * @param price - price of product
+	 */
+	public record ProductSummary(Long id, String name, double price) {}
+}
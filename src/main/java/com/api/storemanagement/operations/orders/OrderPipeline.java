@@ -0,0 +1,251 @@
+package com.api.storemanagement.operations.orders;
+
+import com.api.storemanagement.exceptions.IdempotencyKeyReusedException;
+import com.api.storemanagement.exceptions.InvalidOrderException;
+import com.api.storemanagement.exceptions.OrderQueueFullException;
+import com.api.storemanagement.metrics.OrderMetrics;
+import com.api.storemanagement.orders.Order;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service placing orders asynchronously. Accepted orders wait in a bounded queue, and workers place them
+ * in batches, one transaction per batch, so that checkout spikes are smoothed and database writes coalesced.
+ * Orders are identified by a client supplied idempotency key, so retried submissions never create duplicates.
+ * Queued orders are only kept in memory: orders still queued when the application stops abruptly are lost.
+ * Workers start with the application context, on virtual threads when they are enabled.
+ */
+@Service
+public class OrderPipeline implements SmartLifecycle {
+	/**
+	 * Maximum length of an idempotency key
+	 */
+	public static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
+	/**
+	 * Logger
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(OrderPipeline.class);
+
+	/**
+	 * Idempotency keys are scoped to the user sending them
+	 */
+	private record SubmissionKey(String username, String idempotencyKey) {}
+
+	private final OrderService orderService;
+	private final OrderMetrics orderMetrics;
+	private final BlockingQueue<OrderSubmission> queue;
+	private final int batchSize;
+	private final int workerCount;
+	private final SimpleAsyncTaskExecutor workers;
+
+	/**
+	 * Submissions by idempotency key and by handle, remembered for a while after they complete
+	 */
+	private final Cache<SubmissionKey, OrderSubmission> submissionsByKey;
+	private final Cache<String, OrderSubmission> submissionsByHandle;
+
+	private volatile boolean running;
+
+	@Autowired
+	public OrderPipeline(OrderService orderService, OrderMetrics orderMetrics, MeterRegistry meterRegistry, Environment environment,
+						 @Value("${store.orders.async.queue-capacity:10000}") int queueCapacity,
+						 @Value("${store.orders.async.workers:2}") int workerCount,
+						 @Value("${store.orders.async.batch-size:50}") int batchSize,
+						 @Value("${store.orders.async.idempotency-ttl:PT24H}") Duration idempotencyTtl,
+						 @Value("${store.orders.async.idempotency-maximum-size:100000}") long idempotencyMaximumSize) {
+		this.orderService = orderService;
+		this.orderMetrics = orderMetrics;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		this.batchSize = batchSize;
+		this.workerCount = workerCount;
+		this.submissionsByKey = Caffeine.newBuilder()
+				.expireAfterWrite(idempotencyTtl)
+				.maximumSize(idempotencyMaximumSize)
+				.build();
+		this.submissionsByHandle = Caffeine.newBuilder()
+				.expireAfterWrite(idempotencyTtl)
+				.maximumSize(idempotencyMaximumSize)
+				.build();
+
+		Gauge.builder("store.orders.queued", queue, BlockingQueue::size)
+				.description("Orders waiting to be placed")
+				.register(meterRegistry);
+
+		// Stopping waits for the workers to place the queued orders
+		this.workers = new SimpleAsyncTaskExecutor("order-pipeline-");
+		this.workers.setVirtualThreads(Threading.VIRTUAL.isActive(environment));
+		this.workers.setDaemon(true);
+		this.workers.setTaskTerminationTimeout(TimeUnit.SECONDS.toMillis(30));
+	}
+
+	/**
+	 * Start the workers once the application context is refreshed
+	 */
+	@Override
+	public void start() {
+		running = true;
+		for (int i = 0; i < workerCount; i++) {
+			workers.execute(this::work);
+		}
+		logger.info("OrderPipeline started with {} workers, batches of {} orders.", workerCount, batchSize);
+	}
+
+	/**
+	 * Stop accepting orders and wait for the queued ones to be placed
+	 */
+	@Override
+	public void stop() {
+		running = false;
+		workers.close();
+		if (!queue.isEmpty()) {
+			logger.warn("Stopped with {} orders still queued.", queue.size());
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Accept an order to be placed asynchronously. Submitting the same idempotency key again returns the
+	 * original submission instead of queueing another order.
+	 * @param username - user placing the order
+	 * @param idempotencyKey - key chosen by the client, unique per order
+	 * @param items - list of items in the order
+	 * @return accepted submission
+	 * @throws InvalidOrderException if the key or the items are missing
+	 * @throws IdempotencyKeyReusedException if the key was already used for a different order
+	 * @throws OrderQueueFullException if too many orders are waiting to be placed
+	 */
+	public OrderSubmission submit(String username, String idempotencyKey, List<OrderItemRequest> items) {
+		if (idempotencyKey == null || idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+			throw new InvalidOrderException("An idempotency key of at most " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters is required.");
+		}
+		if (items == null || items.isEmpty() || items.stream().anyMatch(Objects::isNull)) {
+			throw new InvalidOrderException("Order needs at least one item.");
+		}
+
+		SubmissionKey key = new SubmissionKey(username, idempotencyKey);
+		OrderSubmission candidate = new OrderSubmission(UUID.randomUUID().toString(), username, List.copyOf(items));
+		// Queued atomically with its key: submissions of the same key wait, and only see it once queued. Its handle
+		// is known before a worker can complete it. A submission which cannot be queued is never seen.
+		OrderSubmission submission = submissionsByKey.asMap().compute(key, (ignored, existing) -> {
+			if (existing != null) {
+				return existing;
+			}
+			submissionsByHandle.put(candidate.handle(), candidate);
+			if (!running || !queue.offer(candidate)) {
+				submissionsByHandle.invalidate(candidate.handle());
+				return null;
+			}
+			return candidate;
+		});
+		if (submission == null) {
+			throw new OrderQueueFullException("Too many orders waiting to be placed, retry later.");
+		}
+		if (submission != candidate) {
+			if (!submission.isFor(items)) {
+				throw new IdempotencyKeyReusedException("Idempotency key " + idempotencyKey + " was already used for a different order.");
+			}
+			logger.debug("Order with idempotency key {} already submitted as {}.", idempotencyKey, submission.handle());
+			return submission;
+		}
+		logger.info("Queued order {} for user: {}", submission.handle(), username);
+		return submission;
+	}
+
+	/**
+	 * Find a submission of a user by its handle
+	 * @param username - user who submitted the order
+	 * @param handle - handle of the submission
+	 * @return submission, if it exists and belongs to the user
+	 */
+	public Optional<OrderSubmission> find(String username, String handle) {
+		return Optional.ofNullable(submissionsByHandle.getIfPresent(handle))
+				.filter(submission -> submission.username().equals(username));
+	}
+
+	private void work() {
+		List<OrderSubmission> batch = new ArrayList<>(batchSize);
+		while (running || !queue.isEmpty()) {
+			try {
+				OrderSubmission first = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				queue.drainTo(batch, batchSize - 1);
+				place(batch);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (RuntimeException e) {
+				logger.error("Order pipeline worker failed on a batch of {} orders.", batch.size(), e);
+				batch.forEach(submission -> submission.failed("Order could not be placed."));
+			} finally {
+				batch.clear();
+			}
+		}
+	}
+
+	/**
+	 * Place a batch of orders in one transaction. If the transaction fails as a whole (e.g. a database error),
+	 * orders are placed again one by one, so a single faulty order cannot fail the others.
+	 */
+	private void place(List<OrderSubmission> batch) {
+		List<OrderPlacementResult> results;
+		try {
+			results = orderService.createOrders(batch.stream().map(OrderSubmission::placement).toList());
+		} catch (RuntimeException e) {
+			logger.warn("Batch of {} orders failed, placing them one by one: {}", batch.size(), e.getMessage());
+			batch.forEach(this::placeAlone);
+			return;
+		}
+
+		for (int i = 0; i < batch.size(); i++) {
+			OrderSubmission submission = batch.get(i);
+			OrderPlacementResult result = results.get(i);
+			if (result.order() != null) {
+				orderMetrics.orderCreated(result.order().getItems().size());
+				submission.created(result.order().getId());
+			} else {
+				orderMetrics.orderFailed(result.failure());
+				submission.failed(result.failure().getMessage());
+			}
+		}
+		logger.debug("Placed batch of {} orders.", batch.size());
+	}
+
+	private void placeAlone(OrderSubmission submission) {
+		OrderPlacement placement = submission.placement();
+		try {
+			Order order = orderService.createOrder(placement.username(), placement.items());
+			submission.created(order.getId());
+		} catch (RuntimeException e) {
+			submission.failed(e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,10 @@
+package com.api.storemanagement.operations.orders;
+
+import java.util.List;
+
+/**
+ * Record encapsulating an order to place for a user
+ * @param username - user placing the order
+ * @param items - list of order items
+ */
+public record OrderPlacement(String username, List<OrderItemRequest> items) {}
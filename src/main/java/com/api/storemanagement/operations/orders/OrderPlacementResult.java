@@ -0,0 +1,18 @@
+package com.api.storemanagement.operations.orders;
+
+import com.api.storemanagement.orders.Order;
+
+/**
+ * Record holding the outcome of placing an order within a batch
+ * @param order - created order, null if the order failed
+ * @param failure - reason the order could not be placed, null if it was created
+ */
+public record OrderPlacementResult(Order order, RuntimeException failure) {
+	public static OrderPlacementResult created(Order order) {
+		return new OrderPlacementResult(order, null);
+	}
+
+	public static OrderPlacementResult failed(RuntimeException failure) {
+		return new OrderPlacementResult(null, failure);
+	}
+}
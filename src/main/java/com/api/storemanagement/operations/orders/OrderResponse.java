@@ -0,0 +1,30 @@
+package com.api.storemanagement.operations.orders;
+
+import com.api.storemanagement.orders.ArchivedOrder;
+import com.api.storemanagement.orders.Order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Record returned when listing the orders of a user
+ * @param id - ID of order
+ * @param username - user who placed the order
+ * @param orderTime - time the order was placed
+ * @param subtotal - total of the items at the prices they were ordered at, null if it was not recorded
+ * @param itemCount - number of units ordered
+ * @param items - items of the order
+ */
+public record OrderResponse(Long id, String username, LocalDateTime orderTime, BigDecimal subtotal, int itemCount,
+							List<OrderItemResponse> items) {
+	public static OrderResponse from(Order order) {
+		return new OrderResponse(order.getId(), order.getUsername(), order.getOrderTime(), order.getSubtotal(),
+				order.getItemCount(), order.getItems().stream().map(OrderItemResponse::from).toList());
+	}
+
+	public static OrderResponse from(ArchivedOrder order) {
+		return new OrderResponse(order.getId(), order.getUsername(), order.getOrderTime(), order.getSubtotal(),
+				order.getItemCount(), order.getItems().stream().map(OrderItemResponse::from).toList());
+	}
+}
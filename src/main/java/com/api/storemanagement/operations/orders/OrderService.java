@@ -1,21 +1,53 @@
 package com.api.storemanagement.operations.orders;
 
 import com.api.storemanagement.exceptions.InsufficientQuantityException;
+import com.api.storemanagement.exceptions.InvalidOrderException;
+import com.api.storemanagement.exceptions.OrderNotFoundException;
 import com.api.storemanagement.exceptions.ProductNotFoundException;
-import com.api.storemanagement.operations.products.ProductService;
+import com.api.storemanagement.metrics.OrderMetrics;
+import com.api.storemanagement.logging.LogSampler;
+import com.api.storemanagement.operations.stock.InventoryIndex;
+import com.api.storemanagement.operations.stock.InventoryLedger;
+import com.api.storemanagement.operations.stock.StockReservationService;
+import com.api.storemanagement.orders.ArchivedOrderRepository;
 import com.api.storemanagement.orders.Order;
+import com.api.storemanagement.orders.OrderChangedEvent;
 import com.api.storemanagement.orders.OrderItem;
 import com.api.storemanagement.orders.OrderRepository;
+import com.api.storemanagement.orders.OrderSummary;
+import com.api.storemanagement.orders.OrdersDeletedEvent;
 import com.api.storemanagement.product.Product;
+import com.api.storemanagement.product.ProductChangedEvent;
 import com.api.storemanagement.product.ProductRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Service that does operations on an order repository
@@ -28,93 +60,394 @@ public class OrderService {
 	private final OrderRepository orderRepository;
 	private final ProductRepository productRepository;
 
+	/**
+	 * Repository of orders moved out of the orders table once old enough
+	 */
+	private final ArchivedOrderRepository archivedOrderRepository;
+
+	/**
+	 * Service taking ordered quantities out of stock
+	 */
+	private final StockReservationService stockReservationService;
+
+	/**
+	 * Live stock of products, when stock is written behind
+	 */
+	private final InventoryLedger inventoryLedger;
+
+	/**
+	 * In-memory stock of products, rejecting orders which cannot be served before the database is touched
+	 */
+	private final InventoryIndex inventoryIndex;
+
+	/**
+	 * Publisher of stock and order changes
+	 */
+	private final ApplicationEventPublisher eventPublisher;
+
+	/**
+	 * Metrics of created and failed orders
+	 */
+	private final OrderMetrics orderMetrics;
+
+	/**
+	 * Transactions of bulk deletions, and number of orders deleted per transaction
+	 */
+	private final TransactionTemplate transactionTemplate;
+	private final int deletionChunkSize;
+
+	/**
+	 * Number of deleted chunks between two progress reports
+	 */
+	private static final int PROGRESS_CHUNKS = 20;
+
 	/**
 	 * Logger
 	 */
-	private static final Logger logger = LoggerFactory.getLogger(ProductService.class);
+	private static final Logger logger = LoggerFactory.getLogger(OrderService.class);
+
+	/**
+	 * Samplers of read log lines, at most one per second for each message, so that frequent reads of one
+	 * kind do not hide the others
+	 */
+	private static final LogSampler ordersLogSampler = LogSampler.atMostEvery(Duration.ofSeconds(1));
+	private static final LogSampler orderPageLogSampler = LogSampler.atMostEvery(Duration.ofSeconds(1));
+	private static final LogSampler orderLogSampler = LogSampler.atMostEvery(Duration.ofSeconds(1));
 
 	/**
 	 * Constructor
 	 * @param orderRepository
 	 * @param productRepository
+	 * @param archivedOrderRepository
+	 * @param stockReservationService
+	 * @param inventoryLedger
+	 * @param inventoryIndex
+	 * @param eventPublisher
+	 * @param orderMetrics
+	 * @param transactionManager
+	 * @param deletionChunkSize - number of orders deleted per transaction
 	 */
 	@Autowired
-	public OrderService(OrderRepository orderRepository, ProductRepository productRepository) {
+	public OrderService(OrderRepository orderRepository, ProductRepository productRepository,
+						ArchivedOrderRepository archivedOrderRepository, StockReservationService stockReservationService, InventoryLedger inventoryLedger,
+						InventoryIndex inventoryIndex, ApplicationEventPublisher eventPublisher, OrderMetrics orderMetrics, PlatformTransactionManager transactionManager,
+						@Value("${store.orders.delete.chunk-size:1000}") int deletionChunkSize) {
 		this.orderRepository = orderRepository;
 		this.productRepository = productRepository;
+		this.archivedOrderRepository = archivedOrderRepository;
+		this.stockReservationService = stockReservationService;
+		this.inventoryLedger = inventoryLedger;
+		this.inventoryIndex = inventoryIndex;
+		this.eventPublisher = eventPublisher;
+		this.orderMetrics = orderMetrics;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.deletionChunkSize = deletionChunkSize;
 		logger.info("OrderService initialized");
 	}
 
 	/**
-	 * Find orders for a given username
+	 * Find orders for a given username, archived orders included. Orders, items and products are fetched
+	 * in a single query.
 	 * @param username - user for which to retrieve orders
-	 * @return list of orders for the user
+	 * @return list of orders for the user, oldest first
 	 */
 	@Transactional(readOnly = true)
-	public List<Order> findOrdersByUsername(String username) {
-		logger.info("Retrieving orders for user: {}", username);
-		return orderRepository.findByUsername(username);
+	public List<OrderResponse> findOrdersByUsername(String username) {
+		long skipped = logger.isInfoEnabled() ? ordersLogSampler.sample() : -1;
+		if (skipped >= 0) {
+			logger.info("Retrieving orders for user: {} ({} similar lines skipped)", username, skipped);
+		}
+		List<OrderResponse> orders = new ArrayList<>();
+		archivedOrderRepository.findByUsernameOrderByOrderTimeAscIdAsc(username, Pageable.unpaged())
+				.forEach(order -> orders.add(OrderResponse.from(order)));
+		orderRepository.findWithItemsByUsername(username)
+				.forEach(order -> orders.add(OrderResponse.from(order)));
+		return orders;
 	}
 
 	/**
-	 * Create an order for a given user
+	 * Find a page of the orders of a given username, archived orders included. Archived orders are
+	 * older than all other orders, so they come first; a page may hold both. The archived orders are
+	 * counted and the page is read in the same snapshot, so orders archived meanwhile are neither
+	 * skipped nor repeated.
+	 * @param username - user for which to retrieve orders
+	 * @param page - number of the page, from 0
+	 * @param size - number of orders per page
+	 * @return page of orders for the user, oldest first
+	 */
+	@Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+	public List<OrderResponse> findOrdersByUsername(String username, int page, int size) {
+		long skipped = logger.isInfoEnabled() ? orderPageLogSampler.sample() : -1;
+		if (skipped >= 0) {
+			logger.info("Retrieving page {} of orders for user: {} ({} similar lines skipped)", page, username, skipped);
+		}
+		long offset = (long) page * size;
+		long archivedCount = archivedOrderRepository.countByUsername(username);
+
+		List<OrderResponse> orders = new ArrayList<>(size);
+		if (offset < archivedCount) {
+			archivedOrderRepository.findByUsernameOrderByOrderTimeAscIdAsc(username, PageRequest.of(page, size))
+					.forEach(order -> orders.add(OrderResponse.from(order)));
+		}
+		if (orders.size() < size) {
+			// Only IDs go through the offset, then the orders of the page are fetched with their items
+			List<Long> orderIds = orderRepository.findIdsByUsername(username,
+					Math.max(0, offset - archivedCount), size - orders.size());
+			List<Order> hotOrders = orderIds.isEmpty() ? Collections.emptyList() : orderRepository.findWithItemsByIdIn(orderIds);
+			hotOrders.forEach(order -> orders.add(OrderResponse.from(order)));
+		}
+		return orders;
+	}
+
+	/**
+	 * Find a page of the order summaries of a given username, archived orders included. Summaries carry
+	 * the totals recorded when orders were placed, so neither items nor products are read. Counted and
+	 * read in the same snapshot, as pages of orders are.
+	 * @param username - user for which to retrieve orders
+	 * @param page - number of the page, from 0
+	 * @param size - number of orders per page
+	 * @return page of order summaries for the user, oldest first
+	 */
+	@Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+	public List<OrderSummary> findOrderSummariesByUsername(String username, int page, int size) {
+		long offset = (long) page * size;
+		long archivedCount = archivedOrderRepository.countByUsername(username);
+
+		List<OrderSummary> summaries = new ArrayList<>(size);
+		if (offset < archivedCount) {
+			summaries.addAll(archivedOrderRepository.findSummariesByUsername(username, offset, size));
+		}
+		if (summaries.size() < size) {
+			summaries.addAll(orderRepository.findSummariesByUsername(username,
+					Math.max(0, offset - archivedCount), size - summaries.size()));
+		}
+		return summaries;
+	}
+
+	/**
+	 * Create an order for a given user. The order is counted as created or failed once its transaction
+	 * completes, so failures raised when it commits are counted too.
 	 * @param username
 	 * @param items - list of items in the order
 	 * @return created order
 	 */
-	@Transactional
 	public Order createOrder(String username, List<OrderItemRequest> items) {
+		try {
+			Order order = transactionTemplate.execute(status -> placeOrder(username, items));
+			orderMetrics.orderCreated(order.getItems().size());
+			return order;
+		} catch (RuntimeException e) {
+			orderMetrics.orderFailed(e);
+			throw e;
+		}
+	}
+
+	/**
+	 * Create a batch of orders in a single transaction, so that their writes are coalesced.
+	 * Products of the whole batch are locked up front in ascending ID order; an order which cannot be
+	 * placed is reported as failed and its stock is left untouched, without affecting the other orders.
+	 * @param placements - orders to create
+	 * @return outcome of every order, in the order of the placements
+	 */
+	@Transactional
+	public List<OrderPlacementResult> createOrders(List<OrderPlacement> placements) {
+		stockReservationService.lock(placements.stream()
+				.flatMap(placement -> placement.items().stream())
+				.map(OrderItemRequest::productId)
+				.filter(Objects::nonNull)
+				.collect(Collectors.toCollection(TreeSet::new)));
+
+		List<OrderPlacementResult> results = new ArrayList<>(placements.size());
+		for (OrderPlacement placement : placements) {
+			try {
+				results.add(OrderPlacementResult.created(placeOrder(placement.username(), placement.items())));
+			} catch (InvalidOrderException | ProductNotFoundException | InsufficientQuantityException e) {
+				results.add(OrderPlacementResult.failed(e));
+			}
+		}
+		return results;
+	}
+
+	private Order placeOrder(String username, List<OrderItemRequest> items) {
 		Order order = new Order();
 		order.setUsername(username);
 
-		List<OrderItem> orderItems = new ArrayList<>();
-		items.stream().forEach(item -> {
-			Product product = productRepository.findById(item.productId()).orElseThrow(() -> new ProductNotFoundException("Product not found with id: " + item.productId() + "."));
-
-			OrderItem orderItem = new OrderItem();
-			orderItem.setProduct(product);
+		// Merge items ordering the same product, keyed in ascending product ID order
+		SortedMap<Long, Integer> quantities = new TreeMap<>();
+		items.forEach(item -> {
+			if (item.productId() == null || item.quantity() == null || item.quantity() <= 0) {
+				throw new InvalidOrderException("Order items need a product ID and a positive quantity.");
+			}
+			quantities.merge(item.productId(), item.quantity(), Integer::sum);
+		});
 
-			if (item.quantity() > product.getQuantity()) {
-				throw new InsufficientQuantityException("Cannot place order for product " + item.productId() + ". Quantity available is " + product.getQuantity() + ".");
+		// Orders the index knows to exceed the stock are rejected without touching the database. It may lag
+		// behind concurrent changes, so orders it lets through are still checked by the reservation. Stock
+		// written behind changes without a new product version, so the index cannot tell which change is the
+		// latest: the ledger's own counters decide instead, without touching the database either.
+		if (!inventoryLedger.isEnabled()) {
+			List<Long> shortProductIds = inventoryIndex.findShort(quantities);
+			if (!shortProductIds.isEmpty()) {
+				throw unavailableProducts(shortProductIds, productId -> {
+					int quantity = inventoryIndex.quantity(productId);
+					return quantity == InventoryIndex.UNKNOWN ? null : quantity;
+				});
 			}
+		}
 
-			orderItem.setQuantity(item.quantity());
+		// Take the ordered quantities out of stock, then load all products with a single query
+		List<Long> rejectedProductIds = stockReservationService.reserve(quantities);
+		Map<Long, Product> products = productRepository.findAllById(quantities.keySet()).stream()
+				.collect(Collectors.toMap(Product::getId, Function.identity()));
+		if (!rejectedProductIds.isEmpty()) {
+			throw unavailableProducts(rejectedProductIds, productId -> products.containsKey(productId)
+					? inventoryLedger.withLiveQuantity(products.get(productId)).getQuantity() : null);
+		}
+		products.values().forEach(product -> eventPublisher.publishEvent(ProductChangedEvent.saved(inventoryLedger.withLiveQuantity(product))));
+
+		// Items keep the price they are ordered at, and the order its totals, in exact decimal arithmetic at the scale they are stored at
+		List<OrderItem> orderItems = new ArrayList<>();
+		BigDecimal subtotal = BigDecimal.ZERO;
+		int itemCount = 0;
+		for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+			Product product = products.get(entry.getKey());
+			OrderItem orderItem = new OrderItem();
+			orderItem.setProduct(product);
+			orderItem.setQuantity(entry.getValue());
+			orderItem.setUnitPrice(BigDecimal.valueOf(product.getPrice()).setScale(OrderItem.PRICE_SCALE, RoundingMode.HALF_EVEN));
 			orderItem.setOrder(order);
 			orderItems.add(orderItem); // Add item to the list
-		});
+
+			subtotal = subtotal.add(orderItem.getUnitPrice().multiply(BigDecimal.valueOf(entry.getValue())));
+			itemCount = Math.addExact(itemCount, entry.getValue());
+		}
 
 		order.setItems(orderItems);
-		return orderRepository.save(order);
+		order.setSubtotal(subtotal);
+		order.setItemCount(itemCount);
+		Order placed = orderRepository.save(order);
+		eventPublisher.publishEvent(OrderChangedEvent.placed(placed));
+		return placed;
 	}
 
 	/**
-	 * Find an order by its id
+	 * Find an order by its id, with its items and products, among archived orders if it was archived
 	 * @param orderId - order ID
 	 * @return retrieved order
 	 */
 	@Transactional(readOnly = true)
-	public Order findOrderById(Long orderId) {
-		logger.info("Retrieving order with ID: {}", orderId);
-		return orderRepository.findById(orderId)
-				.orElseThrow(() -> new IllegalArgumentException("Order not found with id: " + orderId));
+	public OrderResponse findOrderById(Long orderId) {
+		long skipped = logger.isInfoEnabled() ? orderLogSampler.sample() : -1;
+		if (skipped >= 0) {
+			logger.info("Retrieving order with ID: {} ({} similar lines skipped)", orderId, skipped);
+		}
+		return orderRepository.findWithItemsById(orderId)
+				.map(OrderResponse::from)
+				.or(() -> archivedOrderRepository.findById(orderId).map(OrderResponse::from))
+				.orElseThrow(() -> new OrderNotFoundException("Order not found with id: " + orderId));
 	}
 
 	/**
-	 * Delete a given order
+	 * Delete a given order, archived or not
 	 * @param orderId - order ID
 	 */
 	@Transactional
 	public void deleteOrderById(Long orderId) {
 		logger.info("Deleting order with ID: {}", orderId);
-		orderRepository.deleteById(orderId);
+		Order order = orderRepository.findWithItemsById(orderId).orElse(null);
+		if (order != null) {
+			orderRepository.delete(order);
+			eventPublisher.publishEvent(OrderChangedEvent.removed(order));
+		} else if (archivedOrderRepository.deleteByIdIn(List.of(orderId)) > 0) {
+			// Archived orders are not entities of the in-memory views, which rebuild from the database
+			eventPublisher.publishEvent(new OrdersDeletedEvent(1));
+		}
 	}
 
 	/**
 	 * Warning - delete all orders! Only for admins
+	 * @return numbers of deleted orders, items and archived orders
 	 */
-	@Transactional
-	public void deleteAll() {
-		logger.warn("Deleting all orders!");
-		orderRepository.deleteAll();
+	public OrderDeletionReport deleteAll() {
+		return deleteOrders(null, null, null);
+	}
+
+	/**
+	 * Delete the orders matching an optional filter, archived orders included. Callers check that the
+	 * filter only covers orders they may delete. Orders are deleted with set-based statements, items first,
+	 * a chunk of orders per transaction, so neither memory use nor transaction size grows with the number
+	 * of orders. Each chunk is found from the last ID of the previous one.
+	 * @param username - user who placed the orders, or null for all users
+	 * @param from - inclusive lower bound of order time, or null
+	 * @param to - exclusive upper bound of order time, or null
+	 * @return numbers of deleted orders, items and archived orders
+	 */
+	public OrderDeletionReport deleteOrders(String username, LocalDateTime from, LocalDateTime to) {
+		logger.warn("Deleting orders of user {} placed from {} to {}.", username == null ? "(any)" : username,
+				from == null ? "(any)" : from, to == null ? "(any)" : to);
+		long orders = 0;
+		long items = 0;
+		int chunks = 0;
+		// Order IDs are generated from 1
+		long lastId = 0;
+		List<Long> orderIds;
+		do {
+			orderIds = orderRepository.findIdsMatching(username, from, to, lastId, Limit.of(deletionChunkSize));
+			if (!orderIds.isEmpty()) {
+				List<Long> chunk = orderIds;
+				lastId = chunk.get(chunk.size() - 1);
+				// Items go first, in the same transaction as their orders
+				int[] deleted = transactionTemplate.execute(status -> new int[]{
+						orderRepository.deleteItemsByOrderIdIn(chunk), orderRepository.deleteByIdIn(chunk)});
+				items += deleted[0];
+				orders += deleted[1];
+				if (++chunks % PROGRESS_CHUNKS == 0) {
+					logger.info("Deleted {} orders and {} items so far.", orders, items);
+				}
+			}
+		} while (orderIds.size() == deletionChunkSize);
+
+		long archivedOrders = 0;
+		lastId = 0;
+		List<Long> archivedOrderIds;
+		do {
+			archivedOrderIds = archivedOrderRepository.findIdsMatching(username, from, to, lastId, Limit.of(deletionChunkSize));
+			if (!archivedOrderIds.isEmpty()) {
+				List<Long> chunk = archivedOrderIds;
+				lastId = chunk.get(chunk.size() - 1);
+				archivedOrders += transactionTemplate.execute(status -> archivedOrderRepository.deleteByIdIn(chunk));
+			}
+		} while (archivedOrderIds.size() == deletionChunkSize);
+
+		logger.warn("Deleted {} orders, {} items and {} archived orders.", orders, items, archivedOrders);
+		eventPublisher.publishEvent(new OrdersDeletedEvent(orders + archivedOrders));
+		return new OrderDeletionReport(orders, items, archivedOrders);
+	}
+
+	/**
+	 * Build a single error reporting every product of an order that could not be reserved
+	 * @param rejectedProductIds - IDs of products that could not be reserved
+	 * @param availableQuantity - stock of a product by ID, null if the product does not exist
+	 * @return exception to throw, rolling back the order
+	 */
+	private RuntimeException unavailableProducts(List<Long> rejectedProductIds, Function<Long, Integer> availableQuantity) {
+		Map<Long, Integer> available = new HashMap<>();
+		rejectedProductIds.forEach(productId -> available.put(productId, availableQuantity.apply(productId)));
+		List<Long> missingProductIds = rejectedProductIds.stream()
+				.filter(productId -> available.get(productId) == null)
+				.toList();
+		String insufficientProducts = rejectedProductIds.stream()
+				.filter(productId -> available.get(productId) != null)
+				.map(productId -> "Cannot place order for product " + productId + ". Quantity available is "
+						+ available.get(productId) + ".")
+				.collect(Collectors.joining(" "));
+
+		if (missingProductIds.isEmpty()) {
+			return new InsufficientQuantityException(insufficientProducts);
+		}
+		String message = "Product not found with id: " + missingProductIds.stream()
+				.map(String::valueOf)
+				.collect(Collectors.joining(", ")) + ".";
+		return new ProductNotFoundException(insufficientProducts.isEmpty() ? message : message + " " + insufficientProducts);
 	}
 }
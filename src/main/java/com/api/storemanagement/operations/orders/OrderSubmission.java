@@ -0,0 +1,69 @@
+package com.api.storemanagement.operations.orders;
+
+import com.api.storemanagement.operations.orders.OrderSubmissionStatus.Status;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Order accepted for asynchronous placement, tracked by its handle until it is created or failed
+ */
+public class OrderSubmission {
+	private final String handle;
+	private final String username;
+	private final List<OrderItemRequest> items;
+
+	/**
+	 * Completed with the final status once the order is created or failed
+	 */
+	private final CompletableFuture<OrderSubmissionStatus> completion = new CompletableFuture<>();
+
+	private volatile OrderSubmissionStatus status;
+
+	OrderSubmission(String handle, String username, List<OrderItemRequest> items) {
+		this.handle = handle;
+		this.username = username;
+		this.items = items;
+		this.status = new OrderSubmissionStatus(handle, Status.QUEUED, null, null);
+	}
+
+	public String handle() {
+		return handle;
+	}
+
+	public String username() {
+		return username;
+	}
+
+	public OrderSubmissionStatus status() {
+		return status;
+	}
+
+	/**
+	 * @return future completed with the final status of the submission; must not be completed by callers
+	 */
+	public CompletableFuture<OrderSubmissionStatus> completion() {
+		return completion;
+	}
+
+	OrderPlacement placement() {
+		return new OrderPlacement(username, items);
+	}
+
+	boolean isFor(List<OrderItemRequest> requestedItems) {
+		return items.equals(requestedItems);
+	}
+
+	void created(Long orderId) {
+		complete(new OrderSubmissionStatus(handle, Status.CREATED, orderId, null));
+	}
+
+	void failed(String error) {
+		complete(new OrderSubmissionStatus(handle, Status.FAILED, null, error));
+	}
+
+	private void complete(OrderSubmissionStatus finalStatus) {
+		status = finalStatus;
+		completion.complete(finalStatus);
+	}
+}
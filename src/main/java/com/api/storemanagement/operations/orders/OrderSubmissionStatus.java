@@ -0,0 +1,16 @@
+package com.api.storemanagement.operations.orders;
+
+/**
+ * Record describing the state of an order accepted for asynchronous placement
+ * @param handle - handle of the submission, to poll its status
+ * @param status - state of the submission
+ * @param orderId - ID of created order, null unless the order was created
+ * @param error - reason the order could not be placed, null unless the order failed
+ */
+public record OrderSubmissionStatus(String handle, Status status, Long orderId, String error) {
+	public enum Status {
+		QUEUED,
+		CREATED,
+		FAILED
+	}
+}
@@ -0,0 +1,294 @@
+package com.api.storemanagement.operations.products;
+
+import com.api.storemanagement.product.Product;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary snapshot of the catalog, read through a memory-mapped file. Products are stored by column:
+ * fixed-width columns of IDs, prices, quantities, versions and timestamps, then names and descriptions as
+ * references into a dictionary of distinct strings. Rows are decoded one at a time, only when read.
+ * <p>
+ * Layout: header (magic, format version, number of products, number of strings, snapshot time), the
+ * columns, then the dictionary (offsets of each string, followed by their UTF-8 bytes). Times are stored
+ * as nanoseconds since the epoch; null times and versions are stored as {@link #NO_VALUE}, null strings as {@link #NONE}.
+ */
+public final class CatalogSnapshot {
+	/**
+	 * "CSNP", and version of the layout, increased whenever it changes
+	 */
+	private static final int MAGIC = 0x43534E50;
+	private static final int FORMAT_VERSION = 1;
+
+	private static final int HEADER_SIZE = 4 * Integer.BYTES + Long.BYTES;
+
+	/**
+	 * Bytes per product of the fixed-width columns: ID, price, quantity, version, creation and
+	 * modification times, name and description references
+	 */
+	private static final int ROW_SIZE = 4 * Long.BYTES + Double.BYTES + 3 * Integer.BYTES;
+
+	private static final int NONE = -1;
+	private static final long NO_VALUE = Long.MIN_VALUE;
+
+	private final MappedByteBuffer buffer;
+	private final int size;
+	private final LocalDateTime takenAt;
+
+	/**
+	 * Start of each column, and of the dictionary
+	 */
+	private final int ids;
+	private final int prices;
+	private final int quantities;
+	private final int versions;
+	private final int createdAts;
+	private final int updatedAts;
+	private final int names;
+	private final int descriptions;
+	private final int stringOffsets;
+	private final int stringBytes;
+
+	private CatalogSnapshot(MappedByteBuffer buffer) {
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			throw new IllegalArgumentException("Not a catalog snapshot");
+		}
+		if (buffer.getInt(Integer.BYTES) != FORMAT_VERSION) {
+			throw new IllegalArgumentException("Unsupported catalog snapshot version " + buffer.getInt(Integer.BYTES));
+		}
+		this.buffer = buffer;
+		this.size = buffer.getInt(2 * Integer.BYTES);
+		int strings = buffer.getInt(3 * Integer.BYTES);
+		this.takenAt = timeOf(buffer.getLong(4 * Integer.BYTES));
+		if (size < 0 || strings < 0 || HEADER_SIZE + (long) size * ROW_SIZE + (strings + 1L) * Integer.BYTES > buffer.capacity()) {
+			throw new IllegalArgumentException("Truncated catalog snapshot");
+		}
+
+		this.ids = HEADER_SIZE;
+		this.prices = ids + size * Long.BYTES;
+		this.quantities = prices + size * Double.BYTES;
+		this.versions = quantities + size * Integer.BYTES;
+		this.createdAts = versions + size * Long.BYTES;
+		this.updatedAts = createdAts + size * Long.BYTES;
+		this.names = updatedAts + size * Long.BYTES;
+		this.descriptions = names + size * Integer.BYTES;
+		this.stringOffsets = descriptions + size * Integer.BYTES;
+		this.stringBytes = stringOffsets + (strings + 1) * Integer.BYTES;
+		if (stringBytes + (long) buffer.getInt(stringOffsets + strings * Integer.BYTES) != buffer.capacity()) {
+			throw new IllegalArgumentException("Truncated catalog snapshot");
+		}
+	}
+
+	/**
+	 * Map a snapshot file
+	 * @param path - file of the snapshot
+	 * @return snapshot, whose products are read from the file on demand
+	 * @throws IllegalArgumentException if the file is not a complete snapshot of a supported version
+	 */
+	public static CatalogSnapshot read(Path path) {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			// The mapping stays valid once the channel is closed
+			return new CatalogSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot read catalog snapshot " + path, e);
+		}
+	}
+
+	/**
+	 * Write a snapshot of products. The snapshot is written next to the file and moved over it once complete,
+	 * so a crash never leaves a partial snapshot behind.
+	 * @param path - file of the snapshot
+	 * @param takenAt - time the products were read at; products changed afterwards may be missing from the snapshot
+	 * @param products - products to write
+	 * @return size of the snapshot, in bytes
+	 */
+	public static long write(Path path, LocalDateTime takenAt, Iterator<Product> products) {
+		Columns columns = new Columns();
+		products.forEachRemaining(columns::add);
+
+		long size = HEADER_SIZE + (long) columns.size * ROW_SIZE + (columns.strings.size() + 1L) * Integer.BYTES + columns.stringBytes;
+		if (size > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Catalog too large for a snapshot");
+		}
+		try {
+			if (path.toAbsolutePath().getParent() != null) {
+				Files.createDirectories(path.toAbsolutePath().getParent());
+			}
+			Path partial = path.resolveSibling(path.getFileName() + ".partial");
+			try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+					StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+				columns.writeTo(buffer, takenAt);
+				buffer.force();
+			}
+			Files.move(partial, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			return size;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot write catalog snapshot " + path, e);
+		}
+	}
+
+	/**
+	 * @return time the products were read at
+	 */
+	public LocalDateTime takenAt() {
+		return takenAt;
+	}
+
+	/**
+	 * @return number of products
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Decode a product
+	 * @param row - row of the product, from 0, in the order products were written
+	 * @return product
+	 */
+	public Product product(int row) {
+		Product product = new Product(buffer.getLong(ids + row * Long.BYTES), stringAt(buffer.getInt(names + row * Integer.BYTES)),
+				stringAt(buffer.getInt(descriptions + row * Integer.BYTES)), buffer.getDouble(prices + row * Double.BYTES),
+				buffer.getInt(quantities + row * Integer.BYTES));
+		long version = buffer.getLong(versions + row * Long.BYTES);
+		product.setVersion(version == NO_VALUE ? null : version);
+		product.setCreatedAt(timeOf(buffer.getLong(createdAts + row * Long.BYTES)));
+		product.setUpdatedAt(timeOf(buffer.getLong(updatedAts + row * Long.BYTES)));
+		return product;
+	}
+
+	private String stringAt(int index) {
+		if (index == NONE) {
+			return null;
+		}
+		int start = buffer.getInt(stringOffsets + index * Integer.BYTES);
+		int end = buffer.getInt(stringOffsets + (index + 1) * Integer.BYTES);
+		byte[] bytes = new byte[end - start];
+		buffer.get(stringBytes + start, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static long nanosOf(LocalDateTime time) {
+		if (time == null) {
+			return NO_VALUE;
+		}
+		return Math.addExact(Math.multiplyExact(time.toEpochSecond(ZoneOffset.UTC), 1_000_000_000L), time.getNano());
+	}
+
+	private static LocalDateTime timeOf(long nanos) {
+		if (nanos == NO_VALUE) {
+			return null;
+		}
+		return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L), (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+	}
+
+	/**
+	 * Columns of the products being written, growing as products are added
+	 */
+	private static class Columns {
+		private int size;
+		private long[] ids = new long[1024];
+		private double[] prices = new double[1024];
+		private int[] quantities = new int[1024];
+		private long[] versions = new long[1024];
+		private long[] createdAts = new long[1024];
+		private long[] updatedAts = new long[1024];
+		private int[] names = new int[1024];
+		private int[] descriptions = new int[1024];
+
+		/**
+		 * Distinct strings, by index in the dictionary
+		 */
+		private final Map<String, Integer> dictionary = new HashMap<>();
+		private final List<byte[]> strings = new ArrayList<>();
+		private long stringBytes;
+
+		void add(Product product) {
+			if (size == ids.length) {
+				int capacity = size * 2;
+				ids = Arrays.copyOf(ids, capacity);
+				prices = Arrays.copyOf(prices, capacity);
+				quantities = Arrays.copyOf(quantities, capacity);
+				versions = Arrays.copyOf(versions, capacity);
+				createdAts = Arrays.copyOf(createdAts, capacity);
+				updatedAts = Arrays.copyOf(updatedAts, capacity);
+				names = Arrays.copyOf(names, capacity);
+				descriptions = Arrays.copyOf(descriptions, capacity);
+			}
+			ids[size] = product.getId();
+			prices[size] = product.getPrice();
+			quantities[size] = product.getQuantity();
+			versions[size] = product.getVersion() == null ? NO_VALUE : product.getVersion();
+			createdAts[size] = nanosOf(product.getCreatedAt());
+			updatedAts[size] = nanosOf(product.getUpdatedAt());
+			names[size] = intern(product.getName());
+			descriptions[size] = intern(product.getDescription());
+			size++;
+		}
+
+		private int intern(String value) {
+			if (value == null) {
+				return NONE;
+			}
+			return dictionary.computeIfAbsent(value, key -> {
+				byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+				strings.add(bytes);
+				stringBytes += bytes.length;
+				return strings.size() - 1;
+			});
+		}
+
+		void writeTo(MappedByteBuffer buffer, LocalDateTime takenAt) {
+			buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(size).putInt(strings.size()).putLong(nanosOf(takenAt));
+			for (int row = 0; row < size; row++) {
+				buffer.putLong(ids[row]);
+			}
+			for (int row = 0; row < size; row++) {
+				buffer.putDouble(prices[row]);
+			}
+			for (int row = 0; row < size; row++) {
+				buffer.putInt(quantities[row]);
+			}
+			for (int row = 0; row < size; row++) {
+				buffer.putLong(versions[row]);
+			}
+			for (int row = 0; row < size; row++) {
+				buffer.putLong(createdAts[row]);
+			}
+			for (int row = 0; row < size; row++) {
+				buffer.putLong(updatedAts[row]);
+			}
+			for (int row = 0; row < size; row++) {
+				buffer.putInt(names[row]);
+			}
+			for (int row = 0; row < size; row++) {
+				buffer.putInt(descriptions[row]);
+			}
+
+			int offset = 0;
+			for (byte[] string : strings) {
+				buffer.putInt(offset);
+				offset += string.length;
+			}
+			buffer.putInt(offset);
+			strings.forEach(buffer::put);
+		}
+	}
+}
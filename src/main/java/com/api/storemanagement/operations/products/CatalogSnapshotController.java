@@ -0,0 +1,50 @@
+package com.api.storemanagement.operations.products;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.file.Files;
+
+/**
+ * REST controller for binary snapshots of the product catalog
+ */
+@RestController
+@RequestMapping("/products/admin/snapshot")
+public class CatalogSnapshotController {
+	private final CatalogSnapshotService catalogSnapshotService;
+
+	@Autowired
+	public CatalogSnapshotController(CatalogSnapshotService catalogSnapshotService) {
+		this.catalogSnapshotService = catalogSnapshotService;
+	}
+
+	@PostMapping
+	@PreAuthorize("hasRole('ADMIN')")
+	public ResponseEntity<CatalogSnapshotReport> takeSnapshot() {
+		return ResponseEntity.ok(catalogSnapshotService.takeSnapshot());
+	}
+
+	@GetMapping
+	@PreAuthorize("hasRole('ADMIN')")
+	public ResponseEntity<Resource> exportSnapshot() {
+		// Export the last snapshot taken
+		if (!Files.exists(catalogSnapshotService.path())) {
+			return ResponseEntity.notFound().build();
+		}
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_OCTET_STREAM)
+				.header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+						.filename(catalogSnapshotService.path().getFileName().toString()).build().toString())
+				.body(new FileSystemResource(catalogSnapshotService.path()));
+	}
+}
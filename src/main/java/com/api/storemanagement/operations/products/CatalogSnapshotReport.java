@@ -0,0 +1,11 @@
+package com.api.storemanagement.operations.products;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of a snapshot of the catalog
+ * @param products - number of products in the snapshot
+ * @param bytes - size of the snapshot file
+ * @param takenAt - time the products were read at
+ */
+public record CatalogSnapshotReport(int products, long bytes, LocalDateTime takenAt) {}
@@ -0,0 +1,191 @@
+package com.api.storemanagement.operations.products;
+
+import com.api.storemanagement.cache.ProductCacheConfig;
+import com.api.storemanagement.product.Product;
+import com.api.storemanagement.product.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Warm start of the product cache from a snapshot of the catalog, disabled unless
+ * store.catalog.snapshot.enabled is set. Snapshots are written periodically and at shutdown; at startup,
+ * before the first request, products are read from the memory-mapped snapshot instead of the database,
+ * then the products changed since the snapshot are read from the database and those removed are dropped.
+ */
+@Service
+public class CatalogSnapshotService {
+	/**
+	 * Number of IDs checked per query when dropping removed products
+	 */
+	private static final int ID_CHUNK_SIZE = 1000;
+
+	private final ProductRepository productRepository;
+	private final CacheManager cacheManager;
+	private final TransactionTemplate transactionTemplate;
+	private final boolean enabled;
+	private final Path path;
+
+	/**
+	 * Maximum number of products put in the cache at startup
+	 */
+	private final int warmMaximum;
+
+	/**
+	 * Products changed up to this long before a snapshot are read again, as transactions still running when
+	 * it was taken commit changes made before
+	 */
+	private final Duration catchUpMargin;
+
+	/**
+	 * Logger
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshotService.class);
+
+	@Autowired
+	public CatalogSnapshotService(ProductRepository productRepository, CacheManager cacheManager, PlatformTransactionManager transactionManager,
+								  @Value("${store.catalog.snapshot.enabled:false}") boolean enabled,
+								  @Value("${store.catalog.snapshot.path:${user.home}/store-management-catalog.snapshot}") Path path,
+								  @Value("${store.catalog.snapshot.warm-maximum:10000}") int warmMaximum,
+								  @Value("${store.catalog.snapshot.catch-up-margin:PT1M}") Duration catchUpMargin) {
+		this.productRepository = productRepository;
+		this.cacheManager = cacheManager;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+		this.enabled = enabled;
+		this.path = path;
+		this.warmMaximum = warmMaximum;
+		this.catchUpMargin = catchUpMargin;
+	}
+
+	/**
+	 * Fill the product cache from the last snapshot, if any. A snapshot which cannot be read is ignored:
+	 * products are then read from the database on first use.
+	 */
+	@PostConstruct
+	public void warmUpOnStartup() {
+		if (enabled && Files.exists(path)) {
+			try {
+				warmUp();
+			} catch (RuntimeException e) {
+				logger.warn("Catalog snapshot {} could not be loaded, products will be read from the database.", path, e);
+			}
+		}
+	}
+
+	/**
+	 * Take a snapshot periodically
+	 */
+	@Scheduled(initialDelayString = "${store.catalog.snapshot.interval:PT10M}", fixedDelayString = "${store.catalog.snapshot.interval:PT10M}")
+	public void takeScheduledSnapshot() {
+		if (enabled) {
+			takeSnapshot();
+		}
+	}
+
+	/**
+	 * Take a last snapshot, so that the next start sees an up to date catalog
+	 */
+	@PreDestroy
+	public void takeSnapshotOnShutdown() {
+		if (enabled) {
+			try {
+				takeSnapshot();
+			} catch (RuntimeException e) {
+				logger.warn("Catalog snapshot could not be taken at shutdown.", e);
+			}
+		}
+	}
+
+	/**
+	 * Write all products to the snapshot file, replacing the previous snapshot once complete
+	 * @return number of products and size of the snapshot
+	 */
+	public synchronized CatalogSnapshotReport takeSnapshot() {
+		long start = System.nanoTime();
+		// Products changed while they are read are caught up with by the next start
+		LocalDateTime takenAt = LocalDateTime.now();
+		AtomicInteger products = new AtomicInteger();
+		long bytes = transactionTemplate.execute(status -> {
+			try (Stream<Product> stream = productRepository.streamAll()) {
+				return CatalogSnapshot.write(path, takenAt, stream.peek(product -> products.incrementAndGet()).iterator());
+			}
+		});
+		logger.info("Catalog snapshot of {} products ({} bytes) written to {} in {} ms.", products.get(), bytes, path,
+				(System.nanoTime() - start) / 1_000_000);
+		return new CatalogSnapshotReport(products.get(), bytes, takenAt);
+	}
+
+	/**
+	 * Fill the product cache from the snapshot file, caught up with the changes made since
+	 * @return number of products put in the cache
+	 */
+	public int warmUp() {
+		long start = System.nanoTime();
+		CatalogSnapshot snapshot = CatalogSnapshot.read(path);
+		Map<Long, Product> products = new LinkedHashMap<>();
+		for (int row = 0; row < Math.min(snapshot.size(), warmMaximum); row++) {
+			Product product = snapshot.product(row);
+			products.put(product.getId(), product);
+		}
+
+		int[] changed = new int[1];
+		Set<Long> existingIds = transactionTemplate.execute(status -> {
+			for (Product product : productRepository.findByUpdatedAtGreaterThanEqual(snapshot.takenAt().minus(catchUpMargin))) {
+				if (products.containsKey(product.getId()) || products.size() < warmMaximum) {
+					products.put(product.getId(), product);
+					changed[0]++;
+				}
+			}
+			Set<Long> ids = new HashSet<>(products.size());
+			List<Long> chunk = new ArrayList<>(ID_CHUNK_SIZE);
+			for (Long productId : products.keySet()) {
+				chunk.add(productId);
+				if (chunk.size() == ID_CHUNK_SIZE) {
+					ids.addAll(productRepository.findExistingIds(chunk));
+					chunk.clear();
+				}
+			}
+			if (!chunk.isEmpty()) {
+				ids.addAll(productRepository.findExistingIds(chunk));
+			}
+			return ids;
+		});
+		products.keySet().retainAll(existingIds);
+
+		Cache cache = cacheManager.getCache(ProductCacheConfig.PRODUCTS);
+		products.values().forEach(product -> cache.put(product.getId(), product));
+		logger.info("Product cache warmed with {} products from the catalog snapshot of {} ({} changed since) in {} ms.",
+				products.size(), snapshot.takenAt(), changed[0], (System.nanoTime() - start) / 1_000_000);
+		return products.size();
+	}
+
+	/**
+	 * @return file of the snapshot
+	 */
+	public Path path() {
+		return path;
+	}
+}
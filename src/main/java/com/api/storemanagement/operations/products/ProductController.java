@@ -1,11 +1,16 @@
 package com.api.storemanagement.operations.products;
 
 import com.api.storemanagement.product.Product;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -31,23 +36,37 @@ public class ProductController {
 	}
 
 	@GetMapping("/public/{productId}")
-	public ResponseEntity<Product> findProduct(@PathVariable Long productId) {
+	public ResponseEntity<Product> findProduct(@PathVariable Long productId, WebRequest request) {
 		Product product = productService.findProduct(productId);
+		// Unchanged products are answered with 304 Not Modified, without a body
+		if (checkNotModified(request, ProductService.etagOf(product), ProductService.lastModifiedOf(product))) {
+			return null;
+		}
 		return ResponseEntity.ok(product);
 	}
 
 	@PutMapping("/admin/{productId}")
 	@PreAuthorize("hasRole('ADMIN')")
-	public ResponseEntity<String> updateProduct(@PathVariable Long productId, @RequestBody Product updatedProduct) {
-		productService.updateProduct(productId, updatedProduct);
-		return ResponseEntity.ok("Product updated successfully");
+	public ResponseEntity<String> updateProduct(@PathVariable Long productId, @RequestBody Product updatedProduct,
+												@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		Product savedProduct = productService.updateProduct(productId, updatedProduct, ifMatch);
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+		if (savedProduct != null) {
+			response.eTag(ProductService.etagOf(savedProduct));
+		}
+		return response.body("Product updated successfully");
 	}
 
-	@PatchMapping("/admin/{productId}")
+	@PatchMapping(value = "/admin/{productId}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
 	@PreAuthorize("hasRole('ADMIN')")
-	public ResponseEntity<Product> patchProduct(@PathVariable Long productId, @RequestBody Product incompleteProduct) {
-		Product updatedProduct = productService.patchProduct(productId, incompleteProduct);
-		return ResponseEntity.status(HttpStatus.OK).body(updatedProduct);
+	public ResponseEntity<Product> patchProduct(@PathVariable Long productId, @RequestBody JsonNode patch,
+												@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		Product updatedProduct = productService.patchProduct(productId, patch, ifMatch);
+		ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK);
+		if (updatedProduct != null) {
+			response.eTag(ProductService.etagOf(updatedProduct));
+		}
+		return response.body(updatedProduct);
 	}
 
 	@DeleteMapping("/admin/{productId}")
@@ -58,11 +77,43 @@ public class ProductController {
 	}
 
 	@GetMapping("/public/all")
-	public ResponseEntity<List<Product>> listAllProducts() {
+	public ResponseEntity<List<Product>> listAllProducts(WebRequest request) {
+		// The catalog is only listed if it changed since the version the client holds
+		if (checkNotModified(request, productService.catalogETag(), productService.catalogLastModified())) {
+			return null;
+		}
 		List<Product> products = productService.listAllProducts();
 		return ResponseEntity.ok(products);
 	}
 
+	@GetMapping("/public")
+	public ResponseEntity<ProductPage> listProducts(
+			@RequestParam(value = "after", required = false) Long after,
+			@RequestParam(value = "size", defaultValue = "" + ProductService.DEFAULT_PAGE_SIZE) int size,
+			WebRequest request) {
+		if (checkNotModified(request, productService.catalogETag(), productService.catalogLastModified())) {
+			return null;
+		}
+		ProductPage page = productService.listProducts(after, size);
+		return ResponseEntity.ok(page);
+	}
+
+	@GetMapping("/public/search")
+	public ResponseEntity<List<Product>> searchProducts(
+			@RequestParam("q") String query,
+			@RequestParam(value = "limit", defaultValue = "20") int limit) {
+		List<Product> products = productService.searchProducts(query, limit);
+		return ResponseEntity.ok(products);
+	}
+
+	@GetMapping("/public/export")
+	public ResponseEntity<StreamingResponseBody> exportProducts() {
+		StreamingResponseBody body = productService::exportProducts;
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.body(body);
+	}
+
 	@GetMapping("/public/expensive-low-stock")
 	public ResponseEntity<List<Product>> getExpensiveLowStockProducts(
 			@RequestParam("minPrice") double minPrice,
@@ -73,4 +124,17 @@ public class ProductController {
 		}
 		return ResponseEntity.ok(products);
 	}
+
+	/**
+	 * Check the conditional headers of a request. Last-Modified only has a resolution of one second, so
+	 * while the second of the last change is not over, another change in the same second would keep the
+	 * same date: until then only the entity tag is sent and checked.
+	 * @return true if the client holds the current version, answered with 304 Not Modified
+	 */
+	private static boolean checkNotModified(WebRequest request, String etag, long lastModified) {
+		if (lastModified / 1000 >= System.currentTimeMillis() / 1000) {
+			return request.checkNotModified(etag);
+		}
+		return request.checkNotModified(etag, lastModified);
+	}
 }
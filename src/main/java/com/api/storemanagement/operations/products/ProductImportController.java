@@ -0,0 +1,33 @@
+package com.api.storemanagement.operations.products;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * REST controller for bulk imports of the product catalog
+ */
+@RestController
+@RequestMapping("/products/admin")
+public class ProductImportController {
+	private final ProductImportService productImportService;
+
+	@Autowired
+	public ProductImportController(ProductImportService productImportService) {
+		this.productImportService = productImportService;
+	}
+
+	@PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+	@PreAuthorize("hasRole('ADMIN')")
+	public ResponseEntity<ProductImportReport> importProducts(InputStream body) throws IOException {
+		ProductImportReport report = productImportService.importProducts(body);
+		return ResponseEntity.ok(report);
+	}
+}
@@ -0,0 +1,25 @@
+package com.api.storemanagement.operations.products;
+
+import java.util.List;
+
+/**
+ * Record encapsulating the outcome of a bulk product import
+ * @param created - number of added products
+ * @param updated - number of updated products
+ * @param rejected - number of products that were invalid, conflicting with concurrent changes or could not be saved
+ * @param rows - outcome of every imported product
+ */
+public record ProductImportReport(int created, int updated, int rejected, List<ProductImportResult> rows) {
+	public static ProductImportReport of(List<ProductImportResult> rows) {
+		int created = 0;
+		int updated = 0;
+		for (ProductImportResult row : rows) {
+			switch (row.status()) {
+				case CREATED -> created++;
+				case UPDATED -> updated++;
+				default -> { }
+			}
+		}
+		return new ProductImportReport(created, updated, rows.size() - created - updated, rows);
+	}
+}
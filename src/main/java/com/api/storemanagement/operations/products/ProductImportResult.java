@@ -0,0 +1,22 @@
+package com.api.storemanagement.operations.products;
+
+/**
+ * Record encapsulating the outcome of importing one product
+ * @param row - position of the product in the imported document, starting from 1
+ * @param name - name of the product
+ * @param status - outcome of the import
+ * @param productId - ID of the added or updated product, null if it was not imported
+ * @param message - reason why the product was not imported, null otherwise
+ */
+public record ProductImportResult(int row, String name, Status status, Long productId, String message) {
+	public enum Status {
+		CREATED,
+		UPDATED,
+		INVALID,
+		/**
+		 * A product of the chunk was changed concurrently; importing the rows again is expected to succeed
+		 */
+		CONFLICT,
+		FAILED
+	}
+}
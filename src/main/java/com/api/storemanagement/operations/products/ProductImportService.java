@@ -0,0 +1,213 @@
+package com.api.storemanagement.operations.products;
+
+import com.api.storemanagement.operations.products.ProductImportResult.Status;
+import com.api.storemanagement.operations.stock.InventoryLedger;
+import com.api.storemanagement.product.Product;
+import com.api.storemanagement.product.ProductChangedEvent;
+import com.api.storemanagement.product.ProductRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Service importing many products at once. Products are read one by one from the request body and
+ * persisted in chunks, each in its own transaction, so memory use and transaction size stay bounded.
+ */
+@Service
+public class ProductImportService {
+	private final ProductRepository productRepository;
+	private final ApplicationEventPublisher eventPublisher;
+	private final InventoryLedger inventoryLedger;
+	private final TransactionTemplate transactionTemplate;
+	private final ObjectReader productReader;
+
+	/**
+	 * Number of products persisted per transaction
+	 */
+	private final int chunkSize;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	/**
+	 * Logger
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(ProductImportService.class);
+
+	/**
+	 * Product read from the request body, with its position
+	 */
+	private record ImportRow(int row, Product product) {}
+
+	@Autowired
+	public ProductImportService(ProductRepository productRepository, ApplicationEventPublisher eventPublisher,
+								InventoryLedger inventoryLedger, PlatformTransactionManager transactionManager,
+								ObjectMapper objectMapper, @Value("${store.products.import.chunk-size:500}") int chunkSize) {
+		this.productRepository = productRepository;
+		this.eventPublisher = eventPublisher;
+		this.inventoryLedger = inventoryLedger;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.productReader = objectMapper.readerFor(Product.class);
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Import products from a JSON array or from newline-delimited JSON. Products are matched by name:
+	 * an existing product is updated, otherwise a new one is added.
+	 * @param input - stream of products
+	 * @return outcome of every imported product
+	 * @throws IOException if the stream cannot be read
+	 */
+	public ProductImportReport importProducts(InputStream input) throws IOException {
+		logger.info("Importing products, {} per transaction.", chunkSize);
+		List<ProductImportResult> results = new ArrayList<>();
+		List<ImportRow> chunk = new ArrayList<>(chunkSize);
+
+		try (MappingIterator<Product> iterator = productReader.readValues(input)) {
+			int row = 0;
+			while (true) {
+				Product product;
+				try {
+					if (!iterator.hasNextValue()) {
+						break;
+					}
+					row++;
+					product = iterator.nextValue();
+				} catch (MismatchedInputException e) {
+					// The row is well-formed JSON but not a product, carry on with the next one
+					results.add(new ProductImportResult(row, null, Status.INVALID, null, e.getOriginalMessage()));
+					continue;
+				} catch (JsonProcessingException e) {
+					// Malformed JSON, nothing after this point can be read
+					results.add(new ProductImportResult(row, null, Status.INVALID, null, "Malformed JSON: " + e.getOriginalMessage()));
+					break;
+				}
+
+				String error = validate(product);
+				if (error != null) {
+					results.add(new ProductImportResult(row, product.getName(), Status.INVALID, null, error));
+					continue;
+				}
+				chunk.add(new ImportRow(row, product));
+				if (chunk.size() == chunkSize) {
+					results.addAll(persistChunk(chunk));
+					chunk.clear();
+				}
+			}
+		}
+		if (!chunk.isEmpty()) {
+			results.addAll(persistChunk(chunk));
+		}
+
+		ProductImportReport report = ProductImportReport.of(results);
+		logger.info("Imported products: {} created, {} updated, {} rejected.", report.created(), report.updated(), report.rejected());
+		return report;
+	}
+
+	/**
+	 * Persist a chunk of products in a single transaction. Existing products are found with one query
+	 * on all names of the chunk, and all products are flushed in JDBC batches. A chunk updating a product
+	 * changed meanwhile is rolled back and its rows are reported as conflicting, not as failed.
+	 */
+	private List<ProductImportResult> persistChunk(List<ImportRow> chunk) {
+		try {
+			return transactionTemplate.execute(status -> {
+				Set<String> names = chunk.stream()
+						.map(row -> row.product().getName())
+						.collect(Collectors.toSet());
+				Map<String, Product> productsByName = new HashMap<>();
+				for (Product existing : productRepository.findByNameIn(names)) {
+					// Names are not unique, the oldest product with a name is the one updated
+					productsByName.merge(existing.getName(), existing, (first, second) -> first.getId() < second.getId() ? first : second);
+				}
+
+				List<ProductImportResult> results = new ArrayList<>(chunk.size());
+				Set<Product> products = new LinkedHashSet<>();
+				for (ImportRow row : chunk) {
+					Product imported = row.product();
+					Product product = productsByName.get(imported.getName());
+					boolean created = product == null;
+					if (created) {
+						product = new Product(imported.getName(), imported.getPrice(), imported.getQuantity());
+						productsByName.put(product.getName(), product);
+					}
+					product.setDescription(imported.getDescription());
+					product.setPrice(imported.getPrice());
+					product.setQuantity(imported.getQuantity());
+					products.add(product);
+					results.add(new ProductImportResult(row.row(), product.getName(), created ? Status.CREATED : Status.UPDATED, null, null));
+				}
+
+				productRepository.saveAll(products);
+				entityManager.flush();
+
+				// IDs are known once the products are persisted
+				for (int i = 0; i < results.size(); i++) {
+					ProductImportResult result = results.get(i);
+					Long productId = productsByName.get(result.name()).getId();
+					results.set(i, new ProductImportResult(result.row(), result.name(), result.status(), productId, null));
+				}
+				products.forEach(product -> {
+					eventPublisher.publishEvent(ProductChangedEvent.saved(product));
+					inventoryLedger.set(product.getId(), product.getQuantity());
+				});
+				entityManager.clear();
+				return results;
+			});
+		} catch (OptimisticLockingFailureException | OptimisticLockException e) {
+			// Raised by the flush untranslated, or translated when raised by the commit
+			logger.warn("A chunk of {} products conflicted with concurrent changes.", chunk.size());
+			return chunk.stream()
+					.map(row -> new ProductImportResult(row.row(), row.product().getName(), Status.CONFLICT, null,
+							"A product of the chunk was modified concurrently, import it again."))
+					.toList();
+		} catch (DataAccessException | PersistenceException e) {
+			logger.warn("Failed to import a chunk of {} products.", chunk.size(), e);
+			return chunk.stream()
+					.map(row -> new ProductImportResult(row.row(), row.product().getName(), Status.FAILED, null, "Could not save product: " + e.getMessage()))
+					.toList();
+		}
+	}
+
+	/**
+	 * @return reason why the product cannot be imported, null if it is valid
+	 */
+	private static String validate(Product product) {
+		if (product == null || product.getName() == null || product.getName().isBlank()) {
+			return "Product name is required.";
+		}
+		if (product.getPrice() < 0) {
+			return "Product price cannot be negative.";
+		}
+		if (product.getQuantity() < 0) {
+			return "Product quantity cannot be negative.";
+		}
+		return null;
+	}
+}
@@ -0,0 +1,61 @@
+package com.api.storemanagement.operations.products;
+
+import com.api.storemanagement.cache.ProductCache;
+import com.api.storemanagement.exceptions.ProductNotFoundException;
+import com.api.storemanagement.logging.LogSampler;
+import com.api.storemanagement.product.Product;
+import com.api.storemanagement.product.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Component reading products by ID through the product cache. Products are cached until they change;
+ * every caller gets its own copy.
+ */
+@Component
+public class ProductLookup {
+	private final ProductRepository productRepository;
+	private final ProductCache productCache;
+
+	/**
+	 * Logger
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(ProductLookup.class);
+
+	/**
+	 * Sampler of read log lines, at most one per second
+	 */
+	private static final LogSampler readLogSampler = LogSampler.atMostEvery(Duration.ofSeconds(1));
+
+	@Autowired
+	public ProductLookup(ProductRepository productRepository, ProductCache productCache) {
+		this.productRepository = productRepository;
+		this.productCache = productCache;
+	}
+
+	/**
+	 * Retrieve a product, from the cache or else from the repository
+	 * @param productId - ID of product
+	 * @return product having the provided ID
+	 */
+	public Product findProduct(Long productId) {
+		Product cached = productCache.get(productId);
+		if (cached != null) {
+			return cached;
+		}
+
+		long stamp = productCache.stamp(productId);
+		long skipped = logger.isInfoEnabled() ? readLogSampler.sample() : -1;
+		if (skipped >= 0) {
+			logger.info("Retrieving product with ID: {} ({} similar lines skipped)", productId, skipped);
+		}
+		Product product = productRepository.findById(productId)
+				.orElseThrow(() -> new ProductNotFoundException("Product not found with id: " + productId + "."));
+		productCache.put(product, stamp);
+		return product;
+	}
+}
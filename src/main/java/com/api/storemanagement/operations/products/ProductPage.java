@@ -0,0 +1,12 @@
+package com.api.storemanagement.operations.products;
+
+import com.api.storemanagement.product.Product;
+
+import java.util.List;
+
+/**
+ * Record encapsulating a page of the product catalog
+ * @param items - products of the page, in ascending ID order
+ * @param nextCursor - value of the "after" parameter fetching the next page, null on the last page
+ */
+public record ProductPage(List<Product> items, Long nextCursor) {}
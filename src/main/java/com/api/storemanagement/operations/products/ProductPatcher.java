@@ -1,39 +1,165 @@
 package com.api.storemanagement.operations.products;
 
+import com.api.storemanagement.exceptions.PatchErrorException;
 import com.api.storemanagement.product.Product;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.Column;
+import jakarta.persistence.Id;
+import jakarta.persistence.Version;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
- * Component responsible for patching fields of a product
+ * Component responsible for patching fields of a product.
+ * Patches are JSON merge patches: only the fields present in the patch are changed, so a missing
+ * field is told apart from a field set to zero. Setters are resolved once, when the patcher is created.
  */
 @Component
 public class ProductPatcher {
 	private static final Logger logger = LoggerFactory.getLogger(ProductPatcher.class);
 
-	public void internPatch(Product existingProduct, Product incompleteProduct) throws IllegalAccessException {
-		Class<?> productClass= Product.class;
-		Field[] productFields = productClass.getDeclaredFields();
+	/**
+	 * Patchable field of the product, with its setter adapted to take any object
+	 */
+	private record FieldPatch(Class<?> type, MethodHandle setter) {}
 
-		logger.debug("Product class has {} fields.", productFields.length);
+	/**
+	 * Converted value to set on a field
+	 */
+	private record Change(FieldPatch fieldPatch, Object value) {}
 
-		for (Field field : productFields){
-			logger.debug("Checking {} field", field.getName());
+	private final ObjectMapper objectMapper;
 
-			// Can't access if field is private
-			field.setAccessible(true);
+	/**
+	 * Patchable fields by name
+	 */
+	private final Map<String, FieldPatch> fieldPatches;
 
-			// Check if the field value is not null, if not, update existing product
-			Object value = field.get(incompleteProduct);
-			if (value != null){
-				field.set(existingProduct, value);
+	/**
+	 * Fields which are never changed by a patch (identifiers, versions and timestamps)
+	 */
+	private final Set<String> immutableFields;
+
+	@Autowired
+	public ProductPatcher(ObjectMapper objectMapper) {
+		this.objectMapper = objectMapper;
+
+		Map<String, FieldPatch> patches = new HashMap<>();
+		Set<String> immutable = new HashSet<>();
+		MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+		for (Field field : Product.class.getDeclaredFields()) {
+			if (Modifier.isStatic(field.getModifiers())) {
+				continue;
+			}
+			if (isImmutable(field)) {
+				immutable.add(field.getName());
+				continue;
+			}
+			patches.put(field.getName(), new FieldPatch(field.getType(), setterOf(lookup, field)));
+		}
+		this.fieldPatches = Map.copyOf(patches);
+		this.immutableFields = Set.copyOf(immutable);
+		logger.debug("Product patcher supports fields {} and skips fields {}.", fieldPatches.keySet(), immutableFields);
+	}
+
+	/**
+	 * Apply a JSON merge patch to a product. All values are converted before any field is changed,
+	 * so an invalid patch leaves the product untouched.
+	 * @param existingProduct - product to patch
+	 * @param patch - JSON object holding the fields to change
+	 * @throws PatchErrorException if the patch is not an object, names an unknown field or holds an invalid value
+	 */
+	public void patch(Product existingProduct, JsonNode patch) {
+		if (patch == null || !patch.isObject()) {
+			throw new PatchErrorException("Patch must be a JSON object.");
+		}
+
+		List<Change> changes = new ArrayList<>(patch.size());
+		Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+		while (fields.hasNext()) {
+			Map.Entry<String, JsonNode> field = fields.next();
+			if (immutableFields.contains(field.getKey())) {
+				logger.debug("Skipping immutable field {}.", field.getKey());
+				continue;
+			}
+			FieldPatch fieldPatch = fieldPatches.get(field.getKey());
+			if (fieldPatch == null) {
+				throw new PatchErrorException("Unknown product field: " + field.getKey() + ".");
+			}
+			changes.add(new Change(fieldPatch, convert(field.getKey(), fieldPatch.type(), field.getValue())));
+		}
+
+		for (Change change : changes) {
+			try {
+				change.fieldPatch().setter().invokeExact(existingProduct, change.value());
+			} catch (Throwable e) {
+				throw new PatchErrorException("Failed to patch product with id: " + existingProduct.getId() + ".");
 			}
+		}
+	}
+
+	private Object convert(String name, Class<?> type, JsonNode value) {
+		if (value.isNull()) {
+			// Merge patch semantics: null clears the field, which primitive fields cannot be
+			if (type.isPrimitive()) {
+				throw new PatchErrorException("Field " + name + " cannot be null.");
+			}
+			return null;
+		}
+
+		// Common field types are read straight from the node, anything else goes through Jackson
+		if (type == String.class && value.isTextual()) {
+			return value.textValue();
+		}
+		if ((type == double.class || type == Double.class) && value.isNumber()) {
+			return value.doubleValue();
+		}
+		if ((type == int.class || type == Integer.class) && value.isIntegralNumber() && value.canConvertToInt()) {
+			return value.intValue();
+		}
+		try {
+			return objectMapper.treeToValue(value, type);
+		} catch (JsonProcessingException | IllegalArgumentException e) {
+			throw new PatchErrorException("Invalid value for field " + name + ".");
+		}
+	}
+
+	private static boolean isImmutable(Field field) {
+		Column column = field.getAnnotation(Column.class);
+		return field.isAnnotationPresent(Id.class)
+				|| field.isAnnotationPresent(Version.class)
+				|| field.isAnnotationPresent(CreationTimestamp.class)
+				|| field.isAnnotationPresent(UpdateTimestamp.class)
+				|| (column != null && !column.updatable());
+	}
 
-			// Make field private again
-			field.setAccessible(false);
+	private static MethodHandle setterOf(MethodHandles.Lookup lookup, Field field) {
+		String name = field.getName();
+		String setterName = "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+		try {
+			return lookup.findVirtual(Product.class, setterName, MethodType.methodType(void.class, field.getType()))
+					.asType(MethodType.methodType(void.class, Product.class, Object.class));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			throw new IllegalStateException("Product field " + name + " has no public setter " + setterName + ".", e);
 		}
 	}
 }
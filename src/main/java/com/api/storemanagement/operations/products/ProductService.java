@@ -1,16 +1,51 @@
 package com.api.storemanagement.operations.products;
 
-import com.api.storemanagement.exceptions.PatchErrorException;
+import com.api.storemanagement.cache.CatalogVersion;
+import com.api.storemanagement.exceptions.ConcurrentUpdateException;
+import com.api.storemanagement.exceptions.PreconditionFailedException;
 import com.api.storemanagement.exceptions.ProductNotFoundException;
+import com.api.storemanagement.operations.stock.InventoryLedger;
+import com.api.storemanagement.operations.stock.LowStockIndex;
 import com.api.storemanagement.product.Product;
+import com.api.storemanagement.product.ProductChangedEvent;
 import com.api.storemanagement.product.ProductRepository;
+import com.api.storemanagement.search.ProductSearchIndex;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service that does operations on a product repository
@@ -20,6 +55,69 @@ public class ProductService {
 
 	private final ProductRepository productRepository;
 
+	/**
+	 * Publisher of product changes, keeping caches in sync
+	 */
+	private final ApplicationEventPublisher eventPublisher;
+
+	/**
+	 * In-memory index of product names
+	 */
+	private final ProductSearchIndex searchIndex;
+
+	/**
+	 * Cached reads of products by ID
+	 */
+	private final ProductLookup productLookup;
+
+	/**
+	 * Live stock of products, when stock is written behind
+	 */
+	private final InventoryLedger inventoryLedger;
+
+	/**
+	 * In-memory index of products by stock and price
+	 */
+	private final LowStockIndex lowStockIndex;
+
+	/**
+	 * Version of the catalog, validating listings
+	 */
+	private final CatalogVersion catalogVersion;
+
+	/**
+	 * Transactions of product updates, retried when they conflict with a concurrent update
+	 */
+	private final TransactionTemplate transactionTemplate;
+
+	/**
+	 * Number of attempts of a conflicting update, and maximum pause between two attempts
+	 */
+	private final int updateAttempts;
+	private final Duration updateBackoff;
+
+	/**
+	 * Page sizes of the paginated catalog
+	 */
+	public static final int DEFAULT_PAGE_SIZE = 100;
+	public static final int MAX_PAGE_SIZE = 1000;
+
+	/**
+	 * Maximum number of search results
+	 */
+	public static final int MAX_SEARCH_RESULTS = 100;
+
+	/**
+	 * Writer of exported products, one JSON document per line
+	 */
+	private final ObjectWriter exportWriter;
+
+	/**
+	 * Entity manager, used to detach exported products once written
+	 */
+	@PersistenceContext
+	private EntityManager entityManager;
+
 	/**
 	 * Patcher class responsible for updating certain fields of products
 	 */
@@ -32,8 +130,24 @@ public class ProductService {
 	private static final Logger logger = LoggerFactory.getLogger(ProductService.class);
 
 	@Autowired
-	public ProductService(ProductRepository productRepository) {
+	public ProductService(ProductRepository productRepository, ApplicationEventPublisher eventPublisher,
+						  ProductSearchIndex searchIndex, ProductLookup productLookup, InventoryLedger inventoryLedger,
+						  LowStockIndex lowStockIndex, CatalogVersion catalogVersion, ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+						  @Value("${store.products.update.max-attempts:3}") int updateAttempts,
+						  @Value("${store.products.update.backoff:PT0.05S}") Duration updateBackoff) {
 		this.productRepository = productRepository;
+		this.eventPublisher = eventPublisher;
+		this.searchIndex = searchIndex;
+		this.productLookup = productLookup;
+		this.inventoryLedger = inventoryLedger;
+		this.lowStockIndex = lowStockIndex;
+		this.catalogVersion = catalogVersion;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.updateAttempts = Math.max(1, updateAttempts);
+		this.updateBackoff = updateBackoff;
+		this.exportWriter = objectMapper.writerFor(Product.class)
+				.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+				.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
 		logger.info("ProductService initialized");
 	}
 
@@ -49,19 +163,60 @@ public class ProductService {
 		if (productRepository.existsByName(product.getName())) {
 			logger.warn("Attempting to add a product that already exists with name: {}.", product.getName());
 		}
-		return productRepository.save(product);
+		Product addedProduct = productRepository.save(product);
+		eventPublisher.publishEvent(ProductChangedEvent.saved(addedProduct));
+		return addedProduct;
 	}
 
 	/**
-	 * Method for retrieving a product from the repository
+	 * Method for retrieving a product from the repository. Products are cached until they change;
+	 * when stock is written behind, the stock returned is the live one.
 	 * @param productId - ID of product
 	 * @return product having the provided ID
 	 */
-	@Transactional(readOnly = true)
 	public Product findProduct(Long productId) {
-		logger.info("Retrieving product with ID: {}", productId);
-		return productRepository.findById(productId)
-				.orElseThrow(() -> new ProductNotFoundException("Product not found with id: " + productId + "."));
+		return inventoryLedger.withLiveQuantity(productLookup.findProduct(productId));
+	}
+
+	/**
+	 * Entity tag of a product, changing whenever the product or its stock changes. It holds the version of the
+	 * product, and the stock, which changes without a new version while stock is written behind.
+	 * @param product - product, as returned to clients
+	 * @return quoted entity tag
+	 */
+	public static String etagOf(Product product) {
+		return "\"" + (product.getVersion() == null ? 0 : product.getVersion()) + "-" + product.getQuantity() + "\"";
+	}
+
+	/**
+	 * Time of the last change of a product
+	 * @param product - product, as returned to clients
+	 * @return time of the last change in epoch milliseconds, -1 if unknown
+	 */
+	public static long lastModifiedOf(Product product) {
+		LocalDateTime updatedAt = product.getUpdatedAt();
+		return updatedAt == null ? -1 : updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+	}
+
+	/**
+	 * Entity tag of the catalog listings, changing whenever a product is added, modified or removed.
+	 * Read it before listing, so that a listing is never tagged with a newer version than its content.
+	 * @return quoted entity tag
+	 */
+	public String catalogETag() {
+		String version = catalogVersion.version();
+		// Stock written behind reaches the product table after the change was announced
+		if (inventoryLedger.isEnabled()) {
+			version += "-" + Long.toHexString(inventoryLedger.lastFlushed());
+		}
+		return "\"" + version + "\"";
+	}
+
+	/**
+	 * @return time of the last change of the catalog, in epoch milliseconds
+	 */
+	public long catalogLastModified() {
+		return Math.max(catalogVersion.lastModified(), inventoryLedger.lastFlushed());
 	}
 
 	/**
@@ -70,43 +225,85 @@ public class ProductService {
 	 * @param updatedProduct - new definition of product
 	 * @return updated product definition
 	 */
-	@Transactional
 	public Product updateProduct(Long productId, Product updatedProduct) {
+		return updateProduct(productId, updatedProduct, null);
+	}
+
+	/**
+	 * Method for updating a product, only if it is still in the version known by the client.
+	 * An update conflicting with a concurrent one is retried on the new version of the product.
+	 * @param productId - ID of product to be updated
+	 * @param updatedProduct - new definition of product
+	 * @param ifMatch - entity tags of the versions the client expects, "*" or null for any version
+	 * @return updated product definition
+	 * @throws PreconditionFailedException if the product is in another version
+	 * @throws ConcurrentUpdateException if the update still conflicts after the last attempt
+	 */
+	public Product updateProduct(Long productId, Product updatedProduct, String ifMatch) {
+		return retryingConflicts(productId, () -> doUpdateProduct(productId, updatedProduct, ifMatch));
+	}
+
+	private Product doUpdateProduct(Long productId, Product updatedProduct, String ifMatch) {
 		logger.info("Updating product with ID: {}", productId);
 		Product existingProduct = productRepository.findById(productId)
 				.orElseThrow(() -> new ProductNotFoundException("Product not found with id: " + productId + "."));
+		checkMatches(existingProduct, ifMatch);
 
 		existingProduct.setName(updatedProduct.getName());
 		existingProduct.setDescription(updatedProduct.getDescription());
 		existingProduct.setPrice(updatedProduct.getPrice());
 		existingProduct.setQuantity(updatedProduct.getQuantity());
 
-		return productRepository.save(existingProduct);
+		Product savedProduct = productRepository.save(existingProduct);
+		eventPublisher.publishEvent(ProductChangedEvent.saved(savedProduct));
+		inventoryLedger.set(productId, savedProduct.getQuantity());
+		return savedProduct;
 	}
 
 	/**
 	 * Method for patching a product. Can provide only certain fields of the product.
 	 * @param productId - ID of product to be patched
-	 * @param incompleteProduct - fields to update in the product
+	 * @param patch - JSON merge patch holding the fields to update in the product
 	 * @return new definition of product
 	 */
-	@Transactional
-	public Product patchProduct(Long productId, Product incompleteProduct) {
+	public Product patchProduct(Long productId, JsonNode patch) {
+		return patchProduct(productId, patch, null);
+	}
+
+	/**
+	 * Method for patching a product, only if it is still in the version known by the client.
+	 * A patch conflicting with a concurrent update is applied again on the new version of the product.
+	 * @param productId - ID of product to be patched
+	 * @param patch - JSON merge patch holding the fields to update in the product
+	 * @param ifMatch - entity tags of the versions the client expects, "*" or null for any version
+	 * @return new definition of product
+	 * @throws PreconditionFailedException if the product is in another version
+	 * @throws ConcurrentUpdateException if the patch still conflicts after the last attempt
+	 */
+	public Product patchProduct(Long productId, JsonNode patch, String ifMatch) {
+		return retryingConflicts(productId, () -> doPatchProduct(productId, patch, ifMatch));
+	}
+
+	private Product doPatchProduct(Long productId, JsonNode patch, String ifMatch) {
 		logger.info("Patching product with ID: {}", productId);
 
 		// Find product in the repository
 		Product existingProduct = productRepository.findById(productId)
 				.orElseThrow(() -> new ProductNotFoundException("Product not found with id: " + productId + "."));
+		checkMatches(existingProduct, ifMatch);
 
 		// Perform patch
-		try {
-			patcher.internPatch(existingProduct, incompleteProduct);
-		} catch (IllegalAccessException e) {
-			throw new PatchErrorException("Failed to patch product with id: " + productId + ".");
-		}
+		patcher.patch(existingProduct, patch);
 
 		// Save the updated product
 		productRepository.save(existingProduct);
+		// Unless patched, the stock clients see is the live one
+		eventPublisher.publishEvent(ProductChangedEvent.saved(patch.has("quantity") ? existingProduct : inventoryLedger.withLiveQuantity(existingProduct)));
+		if (patch.has("quantity")) {
+			inventoryLedger.set(productId, existingProduct.getQuantity());
+		} else {
+			inventoryLedger.refresh(productId);
+		}
 		return existingProduct;
 	}
 
@@ -122,6 +319,8 @@ public class ProductService {
 			throw new ProductNotFoundException("Product not found with id: " + productId + ".");
 		}
 		productRepository.deleteById(productId);
+		eventPublisher.publishEvent(ProductChangedEvent.removed(productId));
+		inventoryLedger.forget(productId);
 	}
 
 	/**
@@ -135,15 +334,133 @@ public class ProductService {
 	}
 
 	/**
-	 * Return list of products priced above a specified threshold and with a stock quantity below a defined limit
+	 * List a page of products, seeking on the product ID instead of skipping rows
+	 * @param after - ID of the last product of the previous page, null for the first page
+	 * @param size - maximum number of products in the page, capped to {@link #MAX_PAGE_SIZE}
+	 * @return page of products, with the cursor of the next page
+	 */
+	@Transactional(readOnly = true)
+	public ProductPage listProducts(Long after, int size) {
+		int pageSize = size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+		logger.debug("Listing {} products after ID {}.", pageSize, after);
+
+		List<Product> products = productRepository.findByIdGreaterThanOrderByIdAsc(after == null ? Long.MIN_VALUE : after, Limit.of(pageSize));
+		Long nextCursor = products.size() < pageSize ? null : products.get(products.size() - 1).getId();
+		return new ProductPage(products, nextCursor);
+	}
+
+	/**
+	 * Search products by name. Matching names are found in memory, only the matching products are loaded.
+	 * @param query - text the product names should contain, case-insensitive
+	 * @param limit - maximum number of results, capped to {@link #MAX_SEARCH_RESULTS}
+	 * @return matching products, those whose name starts with the query first
+	 */
+	@Transactional(readOnly = true)
+	public List<Product> searchProducts(String query, int limit) {
+		List<Long> productIds = searchIndex.search(query, Math.min(limit, MAX_SEARCH_RESULTS));
+		logger.debug("Search for \"{}\" matched {} products.", query, productIds.size());
+
+		Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+				.collect(Collectors.toMap(Product::getId, Function.identity()));
+		return productIds.stream()
+				.map(products::get)
+				.filter(Objects::nonNull)
+				.toList();
+	}
+
+	/**
+	 * Write all products to a stream as newline-delimited JSON. Products are streamed from the database
+	 * and detached once written, so memory use does not grow with the size of the catalog.
+	 * @param outputStream - stream to write the products to
+	 * @throws IOException if writing to the stream fails
+	 */
+	@Transactional(readOnly = true)
+	public void exportProducts(OutputStream outputStream) throws IOException {
+		logger.debug("Exporting all products.");
+		try (Stream<Product> products = productRepository.streamAll();
+			 JsonGenerator generator = exportWriter.createGenerator(outputStream)) {
+			// Products are separated by new lines instead of the default space
+			generator.setRootValueSeparator(null);
+			Iterator<Product> iterator = products.iterator();
+			while (iterator.hasNext()) {
+				Product product = iterator.next();
+				exportWriter.writeValue(generator, product);
+				generator.writeRaw('\n');
+				entityManager.detach(product);
+			}
+		}
+	}
+
+	/**
+	 * Return list of products priced above a specified threshold and with a stock quantity below a defined limit.
+	 * Products are found in the in-memory low-stock index, or in the database until the index is built.
 	 * @param minPrice - minimum price to look for
 	 * @param maxQuantity - maximum quantity
-	 * @return list of products respecting the condition
+	 * @return list of products respecting the condition, most expensive first
 	 */
-	@Transactional(readOnly = true)
 	public List<Product> findExpensiveLowStockProducts(double minPrice, int maxQuantity) {
-		logger.debug("Looking for products with price higher than " + minPrice +
-				"and in lower quantity than " + maxQuantity);
+		logger.debug("Looking for products with price higher than {} and in lower quantity than {}.", minPrice, maxQuantity);
+		if (lowStockIndex.isBuilt()) {
+			return lowStockIndex.find(minPrice, maxQuantity);
+		}
 		return productRepository.findExpensiveLowStockProducts(minPrice, maxQuantity);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Run an update of a product in its own transaction, again as long as it conflicts with a concurrent update
+	 * of the product, up to the configured number of attempts. Each attempt reads the product again.
+	 * An update joining the caller's transaction cannot be retried.
+	 * @param productId - ID of updated product
+	 * @param update - update, reading the product and changing it
+	 * @return updated product
+	 */
+	private Product retryingConflicts(Long productId, Supplier<Product> update) {
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			return update.get();
+		}
+		for (int attempt = 1; ; attempt++) {
+			try {
+				return transactionTemplate.execute(status -> update.get());
+			} catch (OptimisticLockingFailureException e) {
+				if (attempt >= updateAttempts) {
+					logger.warn("Update of product {} conflicted {} times, giving up.", productId, attempt);
+					throw new ConcurrentUpdateException("Product with id: " + productId
+							+ " was modified concurrently. Please retry.");
+				}
+				logger.debug("Update of product {} conflicted with a concurrent update, retrying.", productId);
+				pauseBeforeRetry();
+			}
+		}
+	}
+
+	/**
+	 * Pause for a random time, so that conflicting updates do not retry in lockstep
+	 */
+	private void pauseBeforeRetry() {
+		long maxNanos = updateBackoff.toNanos();
+		if (maxNanos <= 0) {
+			return;
+		}
+		try {
+			TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(maxNanos));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Check an If-Match condition against the current version of a product, as clients see it
+	 * @param existingProduct - product as stored in the database
+	 * @param ifMatch - entity tags of the versions the client expects, "*" or null for any version
+	 */
+	private void checkMatches(Product existingProduct, String ifMatch) {
+		if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+			return;
+		}
+		String etag = etagOf(inventoryLedger.withLiveQuantity(existingProduct));
+		if (Arrays.stream(ifMatch.split(",")).map(String::trim).noneMatch(etag::equals)) {
+			throw new PreconditionFailedException("Product with id: " + existingProduct.getId()
+					+ " was modified. Its current version is " + etag + ".");
+		}
+	}
+}
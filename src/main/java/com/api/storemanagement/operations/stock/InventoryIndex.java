@@ -0,0 +1,366 @@
+package com.api.storemanagement.operations.stock;
+
+import com.api.storemanagement.product.Product;
+import com.api.storemanagement.product.ProductChangedEvent;
+import com.api.storemanagement.product.ProductRepository;
+import com.api.storemanagement.product.ProductStock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory stock and price of every product, answering stock lookups and order pre-validation without
+ * touching the database. Products are kept in an open-addressing hash table of primitive arrays (IDs,
+ * quantities, prices and versions side by side, probed linearly), so millions of products take a few
+ * tens of bytes each and no object per product. Lookups read optimistically, without locking, and are
+ * retried under the read lock only if a change raced with them.
+ * Built at startup and kept in sync through product change events; a change older than the indexed
+ * version of a product is ignored. Stock written behind by the {@link InventoryLedger} keeps the product
+ * version, so its changes may be applied out of order: the ledger's counters are authoritative then.
+ */
+@Component
+public class InventoryIndex {
+	/**
+	 * Quantity of products missing from the index
+	 */
+	public static final int UNKNOWN = -1;
+
+	/**
+	 * Product IDs are generated from 1, so an ID of 0 marks an empty slot
+	 */
+	private static final long EMPTY = 0;
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	/**
+	 * Share of slots in use, in percent, above which the table doubles
+	 */
+	private static final int MAX_LOAD_PERCENT = 70;
+
+	private final ProductRepository productRepository;
+
+	/**
+	 * Current table; replaced by a larger one when full, changed in place otherwise. Both happen under the write lock.
+	 */
+	private volatile Table table = new Table(INITIAL_CAPACITY);
+	private final StampedLock lock = new StampedLock();
+
+	/**
+	 * Products removed while the index is built, which the build must not add back
+	 */
+	private final Set<Long> removedDuringBuild = new HashSet<>();
+	private volatile boolean built;
+
+	/**
+	 * Logger
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(InventoryIndex.class);
+
+	@Autowired
+	public InventoryIndex(ProductRepository productRepository) {
+		this.productRepository = productRepository;
+	}
+
+	/**
+	 * Index the stock of all products once the application is started, reading only IDs, quantities,
+	 * prices and versions. Products changed meanwhile are already indexed in a newer state and are left as they are.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Transactional(readOnly = true)
+	public void build() {
+		try (Stream<ProductStock> stream = productRepository.streamStock()) {
+			stream.forEach(stock -> {
+				long stamp = lock.writeLock();
+				try {
+					if (!removedDuringBuild.contains(stock.id())) {
+						put(stock.id(), stock.quantity(), stock.price(), versionOf(stock.version()));
+					}
+				} finally {
+					lock.unlockWrite(stamp);
+				}
+			});
+		}
+		long stamp = lock.writeLock();
+		try {
+			removedDuringBuild.clear();
+			built = true;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+		Table indexed = table;
+		logger.info("Inventory index built with {} products in {} slots ({} KB).", indexed.size, indexed.ids.length,
+				indexed.bytes() / 1024);
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductChanged(ProductChangedEvent event) {
+		Product product = event.product();
+		long stamp = lock.writeLock();
+		try {
+			if (event.isRemoval()) {
+				remove(event.productId());
+				if (!built) {
+					removedDuringBuild.add(event.productId());
+				}
+			} else {
+				put(product.getId(), product.getQuantity(), product.getPrice(), versionOf(product.getVersion()));
+			}
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * @return true once all products of the catalog are indexed
+	 */
+	public boolean isBuilt() {
+		return built;
+	}
+
+	/**
+	 * @param productId - ID of product
+	 * @return units in stock of the product, or {@link #UNKNOWN} if it is not indexed
+	 */
+	public int quantity(long productId) {
+		long stamp = lock.tryOptimisticRead();
+		Table current = table;
+		int slot = current.slotOf(productId);
+		int quantity = slot < 0 ? UNKNOWN : current.quantities[slot];
+		if (!lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				current = table;
+				slot = current.slotOf(productId);
+				quantity = slot < 0 ? UNKNOWN : current.quantities[slot];
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+		return quantity;
+	}
+
+	/**
+	 * Stock and price of a product
+	 * @param productId - ID of product
+	 * @return indexed stock of the product, or null if it is not indexed
+	 */
+	public ProductStock find(long productId) {
+		long stamp = lock.tryOptimisticRead();
+		ProductStock stock = read(productId);
+		if (!lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				stock = read(productId);
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+		return stock;
+	}
+
+	/**
+	 * Find the products of an order known to have too little stock, all read in the same state of the index.
+	 * Products missing from the index are not reported: only the database can tell whether they exist.
+	 * @param quantities - requested quantity per product ID
+	 * @return IDs of indexed products with less stock than requested, in the order of the quantities
+	 */
+	public List<Long> findShort(SortedMap<Long, Integer> quantities) {
+		long stamp = lock.tryOptimisticRead();
+		List<Long> shortProductIds = readShort(quantities);
+		if (!lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				shortProductIds = readShort(quantities);
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+		return shortProductIds;
+	}
+
+	/**
+	 * @return number of indexed products
+	 */
+	public int size() {
+		return table.size;
+	}
+
+	/**
+	 * @return memory taken by the arrays of the index, in bytes
+	 */
+	public long bytes() {
+		return table.bytes();
+	}
+
+	private ProductStock read(long productId) {
+		Table current = table;
+		int slot = current.slotOf(productId);
+		if (slot < 0) {
+			return null;
+		}
+		return new ProductStock(productId, current.quantities[slot], current.prices[slot], current.versions[slot]);
+	}
+
+	private List<Long> readShort(SortedMap<Long, Integer> quantities) {
+		Table current = table;
+		List<Long> shortProductIds = new ArrayList<>();
+		for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+			int slot = current.slotOf(entry.getKey());
+			if (slot >= 0 && current.quantities[slot] < entry.getValue()) {
+				shortProductIds.add(entry.getKey());
+			}
+		}
+		return shortProductIds;
+	}
+
+	/**
+	 * Add or replace the stock of a product, unless the indexed one is newer. Must be called holding the write lock.
+	 */
+	private void put(long productId, int quantity, double price, long version) {
+		if (productId <= EMPTY) {
+			return;
+		}
+		Table current = table;
+		int slot = current.slotOf(productId);
+		if (slot >= 0) {
+			if (current.versions[slot] <= version) {
+				current.quantities[slot] = quantity;
+				current.prices[slot] = price;
+				current.versions[slot] = version;
+			}
+			return;
+		}
+		if ((current.size + 1) * 100L > (long) current.ids.length * MAX_LOAD_PERCENT) {
+			current = current.resized(current.ids.length * 2);
+			table = current;
+		}
+		current.insert(productId, quantity, price, version);
+	}
+
+	/**
+	 * Remove a product from the index. Must be called holding the write lock.
+	 */
+	private void remove(long productId) {
+		table.delete(productId);
+	}
+
+	private static long versionOf(Long version) {
+		return version == null ? 0 : version;
+	}
+
+	/**
+	 * Hash table of product IDs, with the stock, price and version of each product at the same slot of the
+	 * other arrays. The capacity is a power of two; collisions are resolved by probing the next slots.
+	 */
+	private static final class Table {
+		private final long[] ids;
+		private final int[] quantities;
+		private final double[] prices;
+		private final long[] versions;
+		private final int mask;
+		private int size;
+
+		Table(int capacity) {
+			ids = new long[capacity];
+			quantities = new int[capacity];
+			prices = new double[capacity];
+			versions = new long[capacity];
+			mask = capacity - 1;
+		}
+
+		/**
+		 * @return slot of a product, or -1 if it is not in the table. Probing stops after a full turn, so
+		 * a lookup racing with a change always ends.
+		 */
+		int slotOf(long productId) {
+			if (productId <= EMPTY) {
+				return -1;
+			}
+			int slot = home(productId);
+			for (int probes = 0; probes <= mask; probes++) {
+				long id = ids[slot];
+				if (id == productId) {
+					return slot;
+				}
+				if (id == EMPTY) {
+					return -1;
+				}
+				slot = (slot + 1) & mask;
+			}
+			return -1;
+		}
+
+		void insert(long productId, int quantity, double price, long version) {
+			int slot = home(productId);
+			while (ids[slot] != EMPTY) {
+				slot = (slot + 1) & mask;
+			}
+			// The ID goes last, so a concurrent lookup finding it never reads the values of a previous product
+			quantities[slot] = quantity;
+			prices[slot] = price;
+			versions[slot] = version;
+			ids[slot] = productId;
+			size++;
+		}
+
+		/**
+		 * Remove a product, moving back the products probed past its slot so that no lookup stops short of them
+		 */
+		void delete(long productId) {
+			int slot = slotOf(productId);
+			if (slot < 0) {
+				return;
+			}
+			int next = (slot + 1) & mask;
+			while (ids[next] != EMPTY) {
+				int home = home(ids[next]);
+				// Move the product unless its home lies cyclically after the free slot, up to its own slot
+				if (((next - home) & mask) >= ((next - slot) & mask)) {
+					quantities[slot] = quantities[next];
+					prices[slot] = prices[next];
+					versions[slot] = versions[next];
+					ids[slot] = ids[next];
+					slot = next;
+				}
+				next = (next + 1) & mask;
+			}
+			ids[slot] = EMPTY;
+			size--;
+		}
+
+		Table resized(int capacity) {
+			Table resized = new Table(capacity);
+			for (int slot = 0; slot < ids.length; slot++) {
+				if (ids[slot] != EMPTY) {
+					resized.insert(ids[slot], quantities[slot], prices[slot], versions[slot]);
+				}
+			}
+			return resized;
+		}
+
+		long bytes() {
+			return (long) ids.length * (Long.BYTES + Integer.BYTES + Double.BYTES + Long.BYTES);
+		}
+
+		/**
+		 * Home slot of a product: Fibonacci hashing spreads consecutive IDs over the whole table
+		 */
+		private int home(long productId) {
+			return (int) ((productId * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+		}
+	}
+}
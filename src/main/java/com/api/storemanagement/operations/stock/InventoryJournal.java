@@ -0,0 +1,185 @@
+package com.api.storemanagement.operations.stock;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Memory-mapped journal of stock levels not yet written to the database. Each record holds the absolute
+ * quantity of a product after a change, so replaying the journal is idempotent and the last record of a
+ * product wins. Live records run from the start slot stored in the header up to an empty record.
+ * Dropping flushed records only rewrites the start slot, so the journal stays readable if the process
+ * dies at any point. Not thread safe: callers serialize access.
+ */
+class InventoryJournal implements AutoCloseable {
+	/**
+	 * Record layout: product ID (never 0 for a valid record) and quantity. The header takes one record.
+	 */
+	private static final int RECORD_SIZE = Long.BYTES + Integer.BYTES;
+	private static final int HEADER_SIZE = RECORD_SIZE;
+
+	private final FileChannel channel;
+	private MappedByteBuffer buffer;
+	private int capacity;
+
+	/**
+	 * First live record and slot of the next record
+	 */
+	private int start;
+	private int end;
+
+	/**
+	 * Number of slots records were moved back by compactions, so that positions handed out stay valid
+	 */
+	private long base;
+
+	/**
+	 * Run by compactions once records are moved, before the new start slot is written. Lets tests stop a
+	 * compaction half-way, as a crash would.
+	 */
+	Runnable compactionCheckpoint = () -> {};
+
+	/**
+	 * Open or create a journal
+	 * @param path - file of the journal
+	 * @param initialCapacity - number of records mapped at first, doubled whenever the journal is full
+	 */
+	InventoryJournal(Path path, int initialCapacity) {
+		try {
+			if (path.getParent() != null) {
+				Files.createDirectories(path.getParent());
+			}
+			this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			int existingRecords = (int) ((channel.size() - HEADER_SIZE) / RECORD_SIZE);
+			map(Math.max(initialCapacity, existingRecords));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot open inventory journal " + path, e);
+		}
+		start = Math.max(0, Math.min(buffer.getInt(0), capacity - 1));
+		end = start;
+		while (end < capacity && productIdAt(end) != 0) {
+			end++;
+		}
+	}
+
+	/**
+	 * Read the stock levels left in the journal, e.g. by a previous run which stopped before flushing them
+	 * @return last recorded quantity per product ID
+	 */
+	Map<Long, Integer> recover() {
+		Map<Long, Integer> quantities = new LinkedHashMap<>();
+		for (int slot = start; slot < end; slot++) {
+			quantities.put(productIdAt(slot), quantityAt(slot));
+		}
+		return quantities;
+	}
+
+	/**
+	 * Append the quantity of a product
+	 */
+	void append(long productId, int quantity) {
+		if (end + 2 > capacity) {
+			if (!compact()) {
+				map(capacity * 2);
+			}
+		}
+		// Mark the end first, so a record only becomes live once fully written
+		write(end + 1, 0, 0);
+		write(end, productId, quantity);
+		end++;
+	}
+
+	/**
+	 * @return position of the next record; records before it are covered by a flush started now
+	 */
+	long position() {
+		return base + end;
+	}
+
+	/**
+	 * Drop the records before a position, once the stock levels they hold are in the database,
+	 * and write the journal to disk
+	 * @param flushedPosition - position returned by {@link #position()} when the flush started
+	 */
+	void truncate(long flushedPosition) {
+		int flushedEnd = (int) (flushedPosition - base);
+		if (flushedEnd == end) {
+			write(0, 0, 0);
+			setStart(0);
+			base += end;
+			end = 0;
+		} else {
+			setStart(flushedEnd);
+			compact();
+		}
+		buffer.force();
+	}
+
+	/**
+	 * Empty the journal
+	 */
+	void clear() {
+		truncate(position());
+	}
+
+	@Override
+	public void close() throws IOException {
+		buffer.force();
+		channel.close();
+	}
+
+	/**
+	 * Move the live records to the beginning of the journal, when neither they nor the empty record ending
+	 * them overlap the live records. Until the new start slot is written, the journal still reads from the
+	 * old one, so its records must stay intact.
+	 * @return true if the journal was compacted
+	 */
+	private boolean compact() {
+		int live = end - start;
+		if (start == 0 || live >= start) {
+			return false;
+		}
+		for (int slot = 0; slot < live; slot++) {
+			write(slot, productIdAt(start + slot), quantityAt(start + slot));
+		}
+		write(live, 0, 0);
+		compactionCheckpoint.run();
+		base += start;
+		setStart(0);
+		end = live;
+		return true;
+	}
+
+	private long productIdAt(int slot) {
+		return buffer.getLong(HEADER_SIZE + slot * RECORD_SIZE);
+	}
+
+	private int quantityAt(int slot) {
+		return buffer.getInt(HEADER_SIZE + slot * RECORD_SIZE + Long.BYTES);
+	}
+
+	private void write(int slot, long productId, int quantity) {
+		buffer.putInt(HEADER_SIZE + slot * RECORD_SIZE + Long.BYTES, quantity);
+		buffer.putLong(HEADER_SIZE + slot * RECORD_SIZE, productId);
+	}
+
+	private void setStart(int slot) {
+		buffer.putInt(0, slot);
+		start = slot;
+	}
+
+	private void map(int records) {
+		try {
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) records * RECORD_SIZE);
+			capacity = records;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot map inventory journal", e);
+		}
+	}
+}
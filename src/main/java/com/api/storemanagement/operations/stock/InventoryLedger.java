@@ -0,0 +1,368 @@
+package com.api.storemanagement.operations.stock;
+
+import com.api.storemanagement.product.Product;
+import com.api.storemanagement.product.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind ledger of product stock, disabled unless store.inventory.write-behind.enabled is set.
+ * Once a product is loaded, its in-memory counter is its authoritative stock: orders take units out of
+ * the counter without touching the product row, every change is appended to a memory-mapped journal,
+ * and the latest levels are written to the product table in periodic batches. Stock levels left in the
+ * journal by a run which stopped before flushing them are written to the database at startup.
+ */
+@Service
+public class InventoryLedger {
+	private static final String UPDATE_QUANTITY = "UPDATE product SET quantity = ?, updated_at = ?, version = version + 1 WHERE id = ?";
+
+	/**
+	 * Logger
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(InventoryLedger.class);
+
+	private final ProductRepository productRepository;
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final boolean enabled;
+
+	/**
+	 * Journal of changed stock levels, null when the ledger is disabled
+	 */
+	private final InventoryJournal journal;
+
+	/**
+	 * Stock per product ID, and products changed since the last flush. Products are marked
+	 * changed under the journal lock, together with their journal record.
+	 */
+	private final Map<Long, AtomicInteger> counters = new ConcurrentHashMap<>();
+	private final Set<Long> changedProductIds = ConcurrentHashMap.newKeySet();
+
+	private final ReentrantLock journalLock = new ReentrantLock();
+	private final ReentrantLock flushLock = new ReentrantLock();
+
+	/**
+	 * Time of the last flush which wrote stock levels, in epoch milliseconds
+	 */
+	private volatile long lastFlushed;
+
+	@Autowired
+	public InventoryLedger(ProductRepository productRepository, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+						   @Value("${store.inventory.write-behind.enabled:false}") boolean enabled,
+						   @Value("${store.inventory.write-behind.journal-path:${user.home}/store-management-inventory.journal}") Path journalPath,
+						   @Value("${store.inventory.write-behind.journal-capacity:65536}") int journalCapacity) {
+		this.productRepository = productRepository;
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.enabled = enabled;
+		this.journal = enabled ? new InventoryJournal(journalPath, journalCapacity) : null;
+		logger.info("InventoryLedger initialized, write-behind {}.", enabled ? "enabled with journal " + journalPath : "disabled");
+	}
+
+	/**
+	 * Write the stock levels left in the journal by a previous run to the database
+	 */
+	@PostConstruct
+	public void recover() {
+		if (!enabled) {
+			return;
+		}
+		Map<Long, Integer> quantities = journal.recover();
+		if (!quantities.isEmpty()) {
+			write(quantities.entrySet().stream()
+					.map(entry -> new Object[]{entry.getValue(), Timestamp.valueOf(LocalDateTime.now()), entry.getKey()})
+					.toList());
+			logger.info("Recovered stock of {} products from the inventory journal.", quantities.size());
+		}
+		journal.clear();
+	}
+
+	/**
+	 * @return true if stock is kept in memory and written behind
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @return time of the last flush which wrote stock levels to the product table, in epoch milliseconds, 0 if none
+	 */
+	public long lastFlushed() {
+		return lastFlushed;
+	}
+
+	/**
+	 * Take the quantities of an order out of stock, for all products or for none of them.
+	 * Inside a transaction, the quantities are put back if the transaction does not commit.
+	 * @param quantities - requested quantity per product ID
+	 * @return IDs of products that could not be reserved, either missing or with insufficient stock
+	 */
+	public List<Long> reserve(SortedMap<Long, Integer> quantities) {
+		List<Long> rejectedProductIds = new ArrayList<>();
+		List<Long> takenProductIds = new ArrayList<>(quantities.size());
+		for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+			AtomicInteger counter = counter(entry.getKey());
+			if (counter != null && take(counter, entry.getValue())) {
+				takenProductIds.add(entry.getKey());
+			} else {
+				rejectedProductIds.add(entry.getKey());
+			}
+		}
+
+		if (!rejectedProductIds.isEmpty()) {
+			takenProductIds.forEach(productId -> counters.get(productId).addAndGet(quantities.get(productId)));
+			record(takenProductIds);
+			return rejectedProductIds;
+		}
+
+		record(takenProductIds);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					if (status != STATUS_COMMITTED) {
+						release(quantities);
+					}
+				}
+			});
+		}
+		return rejectedProductIds;
+	}
+
+	/**
+	 * @param productId - ID of product
+	 * @return live stock of the product, or null if the ledger does not hold it
+	 */
+	public Integer liveQuantity(Long productId) {
+		AtomicInteger counter = enabled ? counters.get(productId) : null;
+		return counter == null ? null : counter.get();
+	}
+
+	/**
+	 * Overlay the live stock on a product read from the database
+	 * @param product - product as stored in the database
+	 * @return the product itself, or a copy holding the live stock if the ledger holds it
+	 */
+	public Product withLiveQuantity(Product product) {
+		Integer quantity = liveQuantity(product.getId());
+		if (quantity == null) {
+			return product;
+		}
+		Product live = product.copy();
+		live.setQuantity(quantity);
+		return live;
+	}
+
+	/**
+	 * Replace the stock of a product set by an admin, once the surrounding transaction commits
+	 * @param productId - ID of product
+	 * @param quantity - new stock of the product
+	 */
+	public void set(Long productId, int quantity) {
+		if (!enabled) {
+			return;
+		}
+		afterCommit(() -> {
+			AtomicInteger counter = counters.get(productId);
+			if (counter != null) {
+				counter.set(quantity);
+				record(List.of(productId));
+			}
+		});
+	}
+
+	/**
+	 * Write the live stock of a product again at the next flush, once the surrounding transaction commits.
+	 * Used when a product row was saved with a stock level which may be older than the counter.
+	 * @param productId - ID of product
+	 */
+	public void refresh(Long productId) {
+		if (!enabled) {
+			return;
+		}
+		afterCommit(() -> {
+			if (counters.containsKey(productId)) {
+				record(List.of(productId));
+			}
+		});
+	}
+
+	/**
+	 * Drop the stock of a removed product, once the surrounding transaction commits
+	 * @param productId - ID of product
+	 */
+	public void forget(Long productId) {
+		if (!enabled) {
+			return;
+		}
+		afterCommit(() -> {
+			counters.remove(productId);
+			changedProductIds.remove(productId);
+		});
+	}
+
+	/**
+	 * Write the stock of changed products to the database in one batch, then drop the journal records it covers
+	 */
+	@Scheduled(fixedDelayString = "${store.inventory.write-behind.flush-interval:PT1S}")
+	public void flush() {
+		if (!enabled) {
+			return;
+		}
+		flushLock.lock();
+		try {
+			long flushedPosition;
+			List<Long> productIds;
+			journalLock.lock();
+			try {
+				flushedPosition = journal.position();
+				productIds = new ArrayList<>(changedProductIds);
+				changedProductIds.removeAll(productIds);
+			} finally {
+				journalLock.unlock();
+			}
+			if (productIds.isEmpty()) {
+				return;
+			}
+
+			Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+			List<Object[]> rows = new ArrayList<>(productIds.size());
+			for (Long productId : productIds) {
+				AtomicInteger counter = counters.get(productId);
+				if (counter != null) {
+					rows.add(new Object[]{counter.get(), now, productId});
+				}
+			}
+			try {
+				write(rows);
+			} catch (DataAccessException | TransactionException e) {
+				changedProductIds.addAll(productIds);
+				logger.warn("Failed to flush stock of {} products, retrying at the next flush: {}", productIds.size(), e.getMessage());
+				return;
+			}
+
+			lastFlushed = System.currentTimeMillis();
+			journalLock.lock();
+			try {
+				journal.truncate(flushedPosition);
+			} finally {
+				journalLock.unlock();
+			}
+			logger.debug("Flushed stock of {} products.", rows.size());
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	/**
+	 * Flush the remaining stock levels and close the journal
+	 */
+	@PreDestroy
+	public void close() throws IOException {
+		if (!enabled) {
+			return;
+		}
+		flush();
+		journal.close();
+	}
+
+	/**
+	 * Counter of a product, loaded from the database the first time
+	 * @return counter, or null if the product does not exist
+	 */
+	private AtomicInteger counter(Long productId) {
+		AtomicInteger counter = counters.get(productId);
+		if (counter != null) {
+			return counter;
+		}
+		return productRepository.findQuantityById(productId)
+				.map(quantity -> counters.computeIfAbsent(productId, ignored -> new AtomicInteger(quantity)))
+				.orElse(null);
+	}
+
+	private static boolean take(AtomicInteger counter, int quantity) {
+		int available;
+		do {
+			available = counter.get();
+			if (available < quantity) {
+				return false;
+			}
+		} while (!counter.compareAndSet(available, available - quantity));
+		return true;
+	}
+
+	private void release(SortedMap<Long, Integer> quantities) {
+		List<Long> releasedProductIds = new ArrayList<>(quantities.size());
+		quantities.forEach((productId, quantity) -> {
+			AtomicInteger counter = counters.get(productId);
+			if (counter != null) {
+				counter.addAndGet(quantity);
+				releasedProductIds.add(productId);
+			}
+		});
+		record(releasedProductIds);
+	}
+
+	/**
+	 * Append the current stock of products to the journal. The counter is read under the journal lock,
+	 * so the last record of a product is never older than its last change.
+	 */
+	private void record(Collection<Long> productIds) {
+		journalLock.lock();
+		try {
+			for (Long productId : productIds) {
+				AtomicInteger counter = counters.get(productId);
+				if (counter != null) {
+					journal.append(productId, counter.get());
+					changedProductIds.add(productId);
+				}
+			}
+		} finally {
+			journalLock.unlock();
+		}
+	}
+
+	private void write(List<Object[]> rows) {
+		transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_QUANTITY, rows));
+	}
+
+	private static void afterCommit(Runnable action) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					action.run();
+				}
+			});
+		} else {
+			action.run();
+		}
+	}
+}
@@ -0,0 +1,11 @@
+package com.api.storemanagement.operations.stock;
+
+/**
+ * Event published when a product crosses the low-stock threshold, in either direction
+ * @param productId - ID of product
+ * @param name - name of product
+ * @param price - price of product
+ * @param quantity - stock of the product after the change
+ * @param low - true if the product fell below the threshold, false if it was replenished above it
+ */
+public record LowStockAlert(Long productId, String name, double price, int quantity, boolean low) {}
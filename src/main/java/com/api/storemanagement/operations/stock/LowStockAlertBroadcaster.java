@@ -0,0 +1,196 @@
+package com.api.storemanagement.operations.stock;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Component pushing low-stock alerts to subscribed clients as server-sent events. Each subscriber has its
+ * own queue of alerts, drained by one task at a time on a bounded pool of senders, so a slow client takes
+ * up at most one sender and never holds up the changes raising alerts. A client falling
+ * {@link #MAX_PENDING_ALERTS} alerts behind is dropped, and gets the products low on stock again when it
+ * subscribes again.
+ */
+@Component
+public class LowStockAlertBroadcaster {
+	public static final String EVENT_NAME = "low-stock";
+
+	/**
+	 * Alerts queued for a subscriber, above which it is dropped
+	 */
+	public static final int MAX_PENDING_ALERTS = 256;
+
+	private final LowStockIndex lowStockIndex;
+
+	/**
+	 * Time after which a subscription ends, for clients to subscribe again
+	 */
+	private final Duration timeout;
+
+	private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+	private final ExecutorService sender;
+
+	/**
+	 * Logger
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(LowStockAlertBroadcaster.class);
+
+	@Autowired
+	public LowStockAlertBroadcaster(LowStockIndex lowStockIndex,
+									@Value("${store.stock.alerts.subscription-timeout:PT30M}") Duration timeout,
+									@Value("${store.stock.alerts.sender-threads:4}") int senderThreads) {
+		this.lowStockIndex = lowStockIndex;
+		this.timeout = timeout;
+		AtomicInteger senderNumber = new AtomicInteger();
+		this.sender = Executors.newFixedThreadPool(senderThreads, task -> {
+			Thread thread = new Thread(task, "low-stock-alerts-" + senderNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Subscribe to low-stock alerts. The products currently low on stock are sent first.
+	 * @return emitter of the alerts
+	 */
+	public SseEmitter subscribe() {
+		return subscribe(new SseEmitter(timeout.toMillis()));
+	}
+
+	/**
+	 * Subscribe an emitter to low-stock alerts. The products currently low on stock are sent first, by the
+	 * same sender as the alerts, so that no alert overtakes an older state of its product.
+	 * @param emitter - emitter of the alerts
+	 * @return the emitter
+	 */
+	public SseEmitter subscribe(SseEmitter emitter) {
+		Subscriber subscriber = new Subscriber(emitter);
+		emitter.onCompletion(() -> subscribers.remove(subscriber));
+		emitter.onTimeout(() -> subscribers.remove(subscriber));
+		emitter.onError(error -> subscribers.remove(subscriber));
+		// Registered before the products low on stock are read, so that no change is missed in between; the
+		// alerts queued meanwhile wait for the snapshot, which the subscriber is created draining
+		subscribers.add(subscriber);
+		subscriber.snapshot = lowStockIndex.findLowStock().stream()
+				.map(product -> new LowStockAlert(product.getId(), product.getName(), product.getPrice(), product.getQuantity(), true))
+				.toList();
+		subscriber.draining.set(false);
+		schedule(subscriber);
+		logger.debug("Low stock subscription added, {} subscribers.", subscribers.size());
+		return emitter;
+	}
+
+	@EventListener
+	public void onLowStockAlert(LowStockAlert alert) {
+		for (Subscriber subscriber : subscribers) {
+			if (subscriber.pending.offer(alert)) {
+				schedule(subscriber);
+			} else {
+				logger.warn("Low stock subscriber dropped, {} alerts behind.", MAX_PENDING_ALERTS);
+				drop(subscriber, new IOException("Too many pending low stock alerts"));
+			}
+		}
+	}
+
+	/**
+	 * @return number of subscribed clients
+	 */
+	public int subscriberCount() {
+		return subscribers.size();
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		sender.shutdownNow();
+		subscribers.forEach(subscriber -> subscriber.emitter.complete());
+		subscribers.clear();
+	}
+
+	/**
+	 * Start draining the queue of a subscriber, unless a task is already draining it
+	 */
+	private void schedule(Subscriber subscriber) {
+		if (subscriber.draining.compareAndSet(false, true)) {
+			sender.execute(() -> drain(subscriber));
+		}
+	}
+
+	private void drain(Subscriber subscriber) {
+		List<LowStockAlert> snapshot = subscriber.snapshot;
+		subscriber.snapshot = List.of();
+		for (LowStockAlert alert : snapshot) {
+			if (!send(subscriber, alert)) {
+				return;
+			}
+		}
+		LowStockAlert alert;
+		while ((alert = subscriber.pending.poll()) != null) {
+			if (!send(subscriber, alert)) {
+				return;
+			}
+		}
+		subscriber.draining.set(false);
+		// An alert queued after the last poll but before the flag was cleared would otherwise wait for the next one
+		if (!subscriber.pending.isEmpty()) {
+			schedule(subscriber);
+		}
+	}
+
+	/**
+	 * Send an alert to a subscriber, dropping the subscriber if it is gone
+	 * @return true if the alert was sent
+	 */
+	private boolean send(Subscriber subscriber, LowStockAlert alert) {
+		try {
+			subscriber.emitter.send(SseEmitter.event()
+					.name(EVENT_NAME)
+					.id(String.valueOf(alert.productId()))
+					.data(alert, MediaType.APPLICATION_JSON));
+			return true;
+		} catch (IOException | IllegalStateException e) {
+			drop(subscriber, e);
+			return false;
+		}
+	}
+
+	/**
+	 * Drop a subscriber. Its emitter is completed by the sender, as it waits for a send in progress.
+	 */
+	private void drop(Subscriber subscriber, Exception cause) {
+		subscribers.remove(subscriber);
+		subscriber.pending.clear();
+		sender.execute(() -> subscriber.emitter.completeWithError(cause));
+	}
+
+	/**
+	 * Subscribed client, with the alerts not sent to it yet. Created draining, so that no alert is sent
+	 * before the products low on stock when it subscribed.
+	 */
+	private static final class Subscriber {
+		private final SseEmitter emitter;
+		private volatile List<LowStockAlert> snapshot = List.of();
+		private final BlockingQueue<LowStockAlert> pending = new ArrayBlockingQueue<>(MAX_PENDING_ALERTS);
+		private final AtomicBoolean draining = new AtomicBoolean(true);
+
+		Subscriber(SseEmitter emitter) {
+			this.emitter = emitter;
+		}
+	}
+}
@@ -0,0 +1,24 @@
+package com.api.storemanagement.operations.stock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/products/public/low-stock")
+public class LowStockController {
+	private final LowStockAlertBroadcaster broadcaster;
+
+	@Autowired
+	public LowStockController(LowStockAlertBroadcaster broadcaster) {
+		this.broadcaster = broadcaster;
+	}
+
+	@GetMapping(value = "/alerts", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter subscribeToAlerts() {
+		return broadcaster.subscribe();
+	}
+}
@@ -0,0 +1,245 @@
+package com.api.storemanagement.operations.stock;
+
+import com.api.storemanagement.product.Product;
+import com.api.storemanagement.product.ProductChangedEvent;
+import com.api.storemanagement.product.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory index of products by stock and price, answering low-stock queries without touching the
+ * database. Products are partitioned in buckets of quantity (one bucket per quantity below
+ * {@link #EXACT_BUCKETS}, then one per power of two), each sorted by descending price, so a query only
+ * visits the buckets below its quantity and, in each, the products above its price.
+ * Built at startup and kept in sync through product change events, which also raise a
+ * {@link LowStockAlert} whenever a product crosses the low-stock threshold. A change older than the
+ * indexed version of a product is ignored.
+ */
+@Component
+public class LowStockIndex {
+	/**
+	 * Quantities below which each quantity has its own bucket
+	 */
+	static final int EXACT_BUCKETS = 16;
+
+	private static final Comparator<Product> BY_DESCENDING_PRICE = Comparator.comparingDouble(Product::getPrice).reversed()
+			.thenComparing(Product::getId);
+
+	private final ProductRepository productRepository;
+	private final ApplicationEventPublisher eventPublisher;
+
+	/**
+	 * Quantity below which a product is low on stock
+	 */
+	private final int lowStockThreshold;
+
+	/**
+	 * Indexed state of each product by ID, and products sorted by descending price by quantity bucket
+	 */
+	private final Map<Long, Product> products = new HashMap<>();
+	private final TreeMap<Integer, NavigableSet<Product>> buckets = new TreeMap<>();
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * Products removed while the index is built, which the build must not add back
+	 */
+	private final Set<Long> removedDuringBuild = new HashSet<>();
+	private volatile boolean built;
+
+	/**
+	 * Logger
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(LowStockIndex.class);
+
+	@Autowired
+	public LowStockIndex(ProductRepository productRepository, ApplicationEventPublisher eventPublisher,
+						 @Value("${store.stock.alerts.low-threshold:10}") int lowStockThreshold) {
+		this.productRepository = productRepository;
+		this.eventPublisher = eventPublisher;
+		this.lowStockThreshold = lowStockThreshold;
+	}
+
+	/**
+	 * Index all products of the catalog once the application is started. Products changed meanwhile
+	 * are already indexed in a newer state and are left as they are, and products removed meanwhile
+	 * are not added back.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Transactional(readOnly = true)
+	public void build() {
+		try (Stream<Product> stream = productRepository.streamAll()) {
+			stream.forEach(product -> {
+				lock.writeLock().lock();
+				try {
+					Product indexed = products.get(product.getId());
+					if (removedDuringBuild.contains(product.getId())
+							|| (indexed != null && versionOf(indexed) >= versionOf(product))) {
+						return;
+					}
+					if (indexed != null) {
+						unindex(indexed);
+					}
+					index(product.copy());
+				} finally {
+					lock.writeLock().unlock();
+				}
+			});
+		}
+		lock.writeLock().lock();
+		try {
+			removedDuringBuild.clear();
+			built = true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+		logger.info("Low stock index built with {} products.", size());
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductChanged(ProductChangedEvent event) {
+		Product previous;
+		Product current = event.isRemoval() ? null : event.product().copy();
+		lock.writeLock().lock();
+		try {
+			previous = products.get(event.productId());
+			// Events are handled as transactions complete, not necessarily in the order of the changes
+			if (previous != null && current != null && versionOf(previous) > versionOf(current)) {
+				return;
+			}
+			if (previous != null) {
+				unindex(previous);
+			}
+			if (current == null && !built) {
+				removedDuringBuild.add(event.productId());
+			}
+			if (current != null) {
+				index(current);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		boolean wasLow = previous != null && previous.getQuantity() < lowStockThreshold;
+		boolean isLow = current != null && current.getQuantity() < lowStockThreshold;
+		if (current != null && wasLow != isLow) {
+			eventPublisher.publishEvent(new LowStockAlert(current.getId(), current.getName(), current.getPrice(),
+					current.getQuantity(), isLow));
+		}
+	}
+
+	/**
+	 * @return true once all products of the catalog are indexed
+	 */
+	public boolean isBuilt() {
+		return built;
+	}
+
+	/**
+	 * @return quantity below which a product is low on stock
+	 */
+	public int lowStockThreshold() {
+		return lowStockThreshold;
+	}
+
+	/**
+	 * Find products priced above a threshold and with a stock below a limit
+	 * @param minPrice - exclusive lower bound of price
+	 * @param maxQuantity - exclusive upper bound of stock
+	 * @return matching products, most expensive first. They are shared with the index and must not be changed.
+	 */
+	public List<Product> find(double minPrice, int maxQuantity) {
+		// Probe sorting before every product priced at minPrice, after every product of higher price
+		Product probe = new Product(Long.MIN_VALUE, null, minPrice, 0);
+		List<Product> matches = new ArrayList<>();
+		lock.readLock().lock();
+		try {
+			for (NavigableSet<Product> bucket : buckets.headMap(maxQuantity, false).values()) {
+				for (Product product : bucket.headSet(probe, false)) {
+					if (product.getQuantity() < maxQuantity) {
+						matches.add(product);
+					}
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		matches.sort(BY_DESCENDING_PRICE);
+		return matches;
+	}
+
+	/**
+	 * @return products low on stock, most expensive first
+	 */
+	public List<Product> findLowStock() {
+		return find(Double.NEGATIVE_INFINITY, lowStockThreshold);
+	}
+
+	/**
+	 * @return number of indexed products
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return products.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Add a product to the index. Must be called holding the write lock.
+	 */
+	private void index(Product product) {
+		products.put(product.getId(), product);
+		buckets.computeIfAbsent(bucketOf(product.getQuantity()), key -> new TreeSet<>(BY_DESCENDING_PRICE)).add(product);
+	}
+
+	/**
+	 * Remove a product from the index. Must be called holding the write lock.
+	 */
+	private void unindex(Product product) {
+		products.remove(product.getId());
+		int bucket = bucketOf(product.getQuantity());
+		NavigableSet<Product> bucketProducts = buckets.get(bucket);
+		if (bucketProducts != null && bucketProducts.remove(product) && bucketProducts.isEmpty()) {
+			buckets.remove(bucket);
+		}
+	}
+
+	/**
+	 * Bucket of a quantity, named after the lowest quantity it holds
+	 */
+	static int bucketOf(int quantity) {
+		if (quantity < EXACT_BUCKETS) {
+			return Math.max(quantity, 0);
+		}
+		return Integer.highestOneBit(quantity);
+	}
+
+	private static long versionOf(Product product) {
+		return product.getVersion() == null ? 0 : product.getVersion();
+	}
+}
@@ -0,0 +1,86 @@
+package com.api.storemanagement.operations.stock;
+
+import com.api.storemanagement.exceptions.ProductNotFoundException;
+import com.api.storemanagement.operations.products.ProductService;
+import com.api.storemanagement.product.Product;
+import com.api.storemanagement.product.ProductStock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * REST controller for the stock of products, answered from the inventory index, with the live stock of the
+ * inventory ledger when stock is written behind
+ */
+@RestController
+@RequestMapping("/products/public/stock")
+public class StockController {
+	/**
+	 * Maximum number of products per stock request
+	 */
+	static final int MAX_PRODUCTS = 1000;
+
+	private final InventoryIndex inventoryIndex;
+
+	private final InventoryLedger inventoryLedger;
+
+	/**
+	 * Products read until the index is built
+	 */
+	private final ProductService productService;
+
+	@Autowired
+	public StockController(InventoryIndex inventoryIndex, InventoryLedger inventoryLedger, ProductService productService) {
+		this.inventoryIndex = inventoryIndex;
+		this.inventoryLedger = inventoryLedger;
+		this.productService = productService;
+	}
+
+	@GetMapping("/{productId}")
+	public ResponseEntity<ProductStock> findStock(@PathVariable Long productId) {
+		ProductStock stock = stockOf(productId);
+		if (stock == null) {
+			throw new ProductNotFoundException("Product not found with id: " + productId);
+		}
+		return ResponseEntity.ok(stock);
+	}
+
+	@GetMapping
+	public ResponseEntity<List<ProductStock>> findStocks(@RequestParam("ids") List<Long> productIds) {
+		// Products which do not exist are left out, and so are products past the maximum
+		List<ProductStock> stocks = new ArrayList<>();
+		for (Long productId : productIds.stream().filter(Objects::nonNull).distinct().sorted().limit(MAX_PRODUCTS).toList()) {
+			ProductStock stock = stockOf(productId);
+			if (stock != null) {
+				stocks.add(stock);
+			}
+		}
+		return ResponseEntity.ok(stocks);
+	}
+
+	private ProductStock stockOf(Long productId) {
+		ProductStock stock = inventoryIndex.find(productId);
+		if (stock != null) {
+			// Stock written behind keeps the product version, so the index may hold an older quantity
+			Integer liveQuantity = inventoryLedger.liveQuantity(productId);
+			return liveQuantity == null ? stock : new ProductStock(stock.id(), liveQuantity, stock.price(), stock.version());
+		}
+		if (inventoryIndex.isBuilt()) {
+			return null;
+		}
+		try {
+			Product product = productService.findProduct(productId);
+			return new ProductStock(product.getId(), product.getQuantity(), product.getPrice(), product.getVersion());
+		} catch (ProductNotFoundException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package com.api.storemanagement.operations.stock;
+
+import com.api.storemanagement.product.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Service that takes ordered quantities out of product stock.
+ * Every decrement is a conditional update, so stock can never go below zero, no matter how many
+ * orders for the same product are placed concurrently.
+ */
+@Service
+public class StockReservationService {
+	private final ProductRepository productRepository;
+
+	/**
+	 * Optional in-memory path for hot products: orders touching the same products are queued on
+	 * striped locks held until their transaction completes
+	 */
+	private final StripedLocks hotPathLocks;
+
+	/**
+	 * Optional write-behind ledger: when enabled, stock is taken out of its in-memory counters instead of the product rows
+	 */
+	private final InventoryLedger inventoryLedger;
+
+	/**
+	 * Counters of reserved units and rejected reservations
+	 */
+	private final LongAdder reservedUnits = new LongAdder();
+	private final LongAdder rejectedReservations = new LongAdder();
+
+	/**
+	 * Logger
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(StockReservationService.class);
+
+	@Autowired
+	public StockReservationService(ProductRepository productRepository, InventoryLedger inventoryLedger,
+								   @Value("${store.stock.hot-path.enabled:false}") boolean hotPathEnabled,
+								   @Value("${store.stock.hot-path.stripes:64}") int hotPathStripes) {
+		this.productRepository = productRepository;
+		this.inventoryLedger = inventoryLedger;
+		this.hotPathLocks = hotPathEnabled && !inventoryLedger.isEnabled() ? new StripedLocks(hotPathStripes) : null;
+		logger.info("StockReservationService initialized, hot product path {}.", hotPathLocks != null ? "enabled" : "disabled");
+	}
+
+	/**
+	 * Reserve stock for all products of an order, or for none of them: when a product cannot be reserved,
+	 * the quantities already taken out of stock are put back. Must run inside the transaction creating the order.
+	 * @param quantities - requested quantity per product ID; products are reserved in ascending ID
+	 *                   order so that concurrent multi-product orders lock rows in the same order
+	 * @return IDs of products that could not be reserved, either missing or with insufficient stock;
+	 * the order must not be placed unless this list is empty
+	 */
+	@Transactional(propagation = Propagation.MANDATORY)
+	public List<Long> reserve(SortedMap<Long, Integer> quantities) {
+		if (inventoryLedger.isEnabled()) {
+			return count(quantities, inventoryLedger.reserve(quantities));
+		}
+		if (hotPathLocks != null) {
+			lockUntilCompletion(hotPathLocks.stripesFor(quantities.keySet()));
+		}
+
+		List<Long> rejectedProductIds = new ArrayList<>();
+		LocalDateTime now = LocalDateTime.now();
+		for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+			if (productRepository.decrementQuantity(entry.getKey(), entry.getValue(), now) == 0) {
+				rejectedProductIds.add(entry.getKey());
+			}
+		}
+
+		if (!rejectedProductIds.isEmpty()) {
+			release(quantities, rejectedProductIds, now);
+		}
+		return count(quantities, rejectedProductIds);
+	}
+
+	/**
+	 * Lock the products of several orders up front, in ascending ID order, until the surrounding transaction
+	 * completes. Orders for these products can then be reserved one after the other in the same transaction
+	 * without risking a deadlock with concurrent orders.
+	 * @param productIds - IDs of products to lock
+	 */
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void lock(SortedSet<Long> productIds) {
+		// Counters of the ledger are lock-free, only product rows need locking
+		if (productIds.isEmpty() || inventoryLedger.isEnabled()) {
+			return;
+		}
+		if (hotPathLocks != null) {
+			lockUntilCompletion(hotPathLocks.stripesFor(productIds));
+		}
+		productRepository.lockAllById(productIds);
+	}
+
+	/**
+	 * @return total number of units reserved since startup
+	 */
+	public long getReservedUnits() {
+		return reservedUnits.sum();
+	}
+
+	/**
+	 * @return number of reservations rejected since startup
+	 */
+	public long getRejectedReservations() {
+		return rejectedReservations.sum();
+	}
+
+	private List<Long> count(SortedMap<Long, Integer> quantities, List<Long> rejectedProductIds) {
+		if (rejectedProductIds.isEmpty()) {
+			quantities.values().forEach(reservedUnits::add);
+		} else {
+			rejectedReservations.increment();
+		}
+		return rejectedProductIds;
+	}
+
+	/**
+	 * Put back the quantities reserved for the products which were not rejected
+	 */
+	private void release(SortedMap<Long, Integer> quantities, List<Long> rejectedProductIds, LocalDateTime now) {
+		for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+			if (!rejectedProductIds.contains(entry.getKey())) {
+				productRepository.incrementQuantity(entry.getKey(), entry.getValue(), now);
+			}
+		}
+	}
+
+	/**
+	 * Lock the given stripes and release them once the surrounding transaction commits or rolls back,
+	 * so the next order for the same products only starts when the row locks are gone
+	 */
+	private void lockUntilCompletion(int[] stripes) {
+		hotPathLocks.lock(stripes);
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				hotPathLocks.unlock(stripes);
+			}
+		});
+	}
+}
@@ -0,0 +1,55 @@
+package com.api.storemanagement.operations.stock;
+
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks shared by product IDs. Products mapping to the same stripe are serialized,
+ * which queues contending orders for a hot product inside the JVM instead of on the database row.
+ */
+class StripedLocks {
+	private final ReentrantLock[] locks;
+
+	StripedLocks(int stripes) {
+		if (stripes <= 0) {
+			throw new IllegalArgumentException("Number of stripes must be positive: " + stripes);
+		}
+		locks = new ReentrantLock[stripes];
+		for (int i = 0; i < stripes; i++) {
+			locks[i] = new ReentrantLock();
+		}
+	}
+
+	/**
+	 * Compute the stripes guarding the given products, in ascending order.
+	 * Locking them in this order keeps two multi-product orders from deadlocking each other.
+	 * @param productIds - IDs of products
+	 * @return sorted, distinct stripe indexes
+	 */
+	int[] stripesFor(Collection<Long> productIds) {
+		return productIds.stream()
+				.mapToInt(this::stripeOf)
+				.distinct()
+				.sorted()
+				.toArray();
+	}
+
+	void lock(int[] stripes) {
+		for (int stripe : stripes) {
+			locks[stripe].lock();
+		}
+	}
+
+	void unlock(int[] stripes) {
+		for (int i = stripes.length - 1; i >= 0; i--) {
+			locks[stripes[i]].unlock();
+		}
+	}
+
+	private int stripeOf(Long productId) {
+		// Spread the bits so that consecutive IDs do not cluster on neighbouring stripes
+		int hash = Long.hashCode(productId);
+		hash ^= (hash >>> 16);
+		return Math.floorMod(hash, locks.length);
+	}
+}
@@ -0,0 +1,51 @@
+package com.api.storemanagement.orders;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Order moved out of the orders table once old enough. An archived order is a single row:
+ * its items are stored together with it, with the products as they were when archived.
+ */
+@Entity
+@Table(name = "archived_orders", indexes = @Index(name = "idx_archived_orders_username_order_time", columnList = "username, order_time"))
+@Getter @Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ArchivedOrder {
+	/**
+	 * ID of the order before it was archived
+	 */
+	@Id
+	private Long id;
+
+	@Column(nullable = false)
+	private String username;
+
+	@Column(nullable = false)
+	private LocalDateTime orderTime;
+
+	@Column(nullable = false)
+	private LocalDateTime archivedAt;
+
+	/**
+	 * Total and number of units of the order, as computed when it was placed
+	 */
+	@Column(precision = 19, scale = OrderItem.PRICE_SCALE)
+	private BigDecimal subtotal;
+
+	@Column(nullable = false, columnDefinition = "integer default 0")
+	private int itemCount;
+
+	@Lob
+	@Convert(converter = ArchivedOrderItemsConverter.class)
+	@Column(nullable = false)
+	private List<ArchivedOrderItem> items;
+}
@@ -0,0 +1,15 @@
+package com.api.storemanagement.orders;
+
+import java.math.BigDecimal;
+
+/**
+ * Item of an archived order, holding the product as it was when the order was archived
+ * @param id - ID of order item
+ * @param productId - ID of ordered product, null if the product was removed
+ * @param productName - name of ordered product
+ * @param productPrice - price of ordered product
+ * @param quantity - ordered quantity
+ * @param unitPrice - price of the product when it was ordered, null if it was not recorded
+ */
+public record ArchivedOrderItem(Long id, Long productId, String productName, double productPrice, int quantity,
+								BigDecimal unitPrice) {}
@@ -0,0 +1,36 @@
+package com.api.storemanagement.orders;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.List;
+
+/**
+ * Stores the items of an archived order as a single JSON column
+ */
+@Converter
+public class ArchivedOrderItemsConverter implements AttributeConverter<List<ArchivedOrderItem>, String> {
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+	private static final TypeReference<List<ArchivedOrderItem>> ITEMS = new TypeReference<>() {};
+
+	@Override
+	public String convertToDatabaseColumn(List<ArchivedOrderItem> items) {
+		try {
+			return MAPPER.writeValueAsString(items);
+		} catch (JsonProcessingException e) {
+			throw new IllegalArgumentException("Cannot write archived order items", e);
+		}
+	}
+
+	@Override
+	public List<ArchivedOrderItem> convertToEntityAttribute(String json) {
+		try {
+			return MAPPER.readValue(json, ITEMS);
+		} catch (JsonProcessingException e) {
+			throw new IllegalArgumentException("Cannot read archived order items", e);
+		}
+	}
+}
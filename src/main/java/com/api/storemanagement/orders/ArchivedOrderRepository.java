@@ -0,0 +1,67 @@
+package com.api.storemanagement.orders;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository of archived orders
+ */
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+	long countByUsername(String username);
+
+	/**
+	 * Load a page of the archived orders of a user
+	 * @param username - user who placed the orders
+	 * @param pageable - page to load
+	 * @return archived orders of the user, oldest first
+	 */
+	List<ArchivedOrder> findByUsernameOrderByOrderTimeAscIdAsc(String username, Pageable pageable);
+
+	/**
+	 * Find a range of the archived order summaries of a user, without reading their items
+	 * @param username - user who placed the orders
+	 * @param offset - number of older orders to skip
+	 * @param limit - maximum number of summaries to return
+	 * @return summaries of archived orders, oldest first
+	 */
+	@Query("SELECT new com.api.storemanagement.orders.OrderSummary(a.id, a.username, a.orderTime, a.itemCount, a.subtotal) "
+			+ "FROM ArchivedOrder a WHERE a.username = ?1 ORDER BY a.orderTime, a.id LIMIT ?3 OFFSET ?2")
+	List<OrderSummary> findSummariesByUsername(String username, long offset, int limit);
+
+	@Query("SELECT MIN(a.id) FROM ArchivedOrder a")
+	Long findMinId();
+
+	@Query("SELECT MAX(a.id) FROM ArchivedOrder a")
+	Long findMaxId();
+
+	List<ArchivedOrder> findByIdBetween(long fromId, long toId);
+
+	/**
+	 * Find the archived orders matching an optional filter, after a given ID
+	 * @param username - user who placed the orders, or null for all users
+	 * @param from - inclusive lower bound of order time, or null
+	 * @param to - exclusive upper bound of order time, or null
+	 * @param afterId - exclusive lower bound of order IDs
+	 * @param limit - maximum number of IDs to return
+	 * @return IDs of archived orders, in ascending order
+	 */
+	@Query("SELECT a.id FROM ArchivedOrder a WHERE (?1 IS NULL OR a.username = ?1) AND (?2 IS NULL OR a.orderTime >= ?2) "
+			+ "AND (?3 IS NULL OR a.orderTime < ?3) AND a.id > ?4 ORDER BY a.id")
+	List<Long> findIdsMatching(String username, LocalDateTime from, LocalDateTime to, long afterId, Limit limit);
+
+	/**
+	 * Delete archived orders with a single statement
+	 * @param ids - IDs of archived orders
+	 * @return number of deleted archived orders
+	 */
+	@Modifying
+	@Query("DELETE FROM ArchivedOrder a WHERE a.id IN ?1")
+	int deleteByIdIn(Collection<Long> ids);
+}
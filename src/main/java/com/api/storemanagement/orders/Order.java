@@ -3,6 +3,7 @@ package com.api.storemanagement.orders;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -14,14 +15,15 @@ import lombok.Setter;
 import org.hibernate.annotations.CreationTimestamp;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = @Index(name = "idx_orders_username_order_time", columnList = "username, order_time"))
 @Getter @Setter
 @AllArgsConstructor
 @RequiredArgsConstructor
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Order {
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+	@SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
 	private Long id;
 
 	@Column(nullable = false)
@@ -34,4 +36,17 @@ public class Order {
 
 	@CreationTimestamp
 	private LocalDateTime orderTime;
+
+	/**
+	 * Total of the items at the prices they were ordered at, computed when the order is placed.
+	 * Null for orders placed before totals were recorded.
+	 */
+	@Column(precision = 19, scale = OrderItem.PRICE_SCALE)
+	private BigDecimal subtotal;
+
+	/**
+	 * Number of units ordered, all items included
+	 */
+	@Column(nullable = false, columnDefinition = "integer default 0")
+	private int itemCount;
 }
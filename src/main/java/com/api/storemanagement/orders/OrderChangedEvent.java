@@ -0,0 +1,17 @@
+package com.api.storemanagement.orders;
+
+/**
+ * Event published when an order is placed or removed. Listeners keeping in-memory views of orders should
+ * handle it after the transaction commits.
+ * @param order - order placed or removed, with its items
+ * @param removal - true if the order was removed
+ */
+public record OrderChangedEvent(Order order, boolean removal) {
+	public static OrderChangedEvent placed(Order order) {
+		return new OrderChangedEvent(order, false);
+	}
+
+	public static OrderChangedEvent removed(Order order) {
+		return new OrderChangedEvent(order, true);
+	}
+}
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
+import java.math.BigDecimal;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -13,8 +14,14 @@ import lombok.Setter;
 @Setter
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class OrderItem {
+	/**
+	 * Number of decimals kept of prices and totals
+	 */
+	public static final int PRICE_SCALE = 4;
+
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_item_seq")
+	@SequenceGenerator(name = "order_item_seq", sequenceName = "order_item_seq", allocationSize = 50)
 	private Long id;
 
 	@ManyToOne(fetch = FetchType.EAGER)
@@ -25,6 +32,12 @@ public class OrderItem {
 	@Min(0)
 	private int quantity;
 
+	/**
+	 * Price of the product when it was ordered, null for items ordered before prices were recorded
+	 */
+	@Column(precision = 19, scale = PRICE_SCALE)
+	private BigDecimal unitPrice;
+
 	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "order_id", nullable = false)
 	@JsonBackReference
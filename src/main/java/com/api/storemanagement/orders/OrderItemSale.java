@@ -0,0 +1,17 @@
+package com.api.storemanagement.orders;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Item of an order together with the order fields needed for sales reporting, read without loading
+ * entities. An order without items is read as a single row without item.
+ * @param orderId - ID of order
+ * @param username - user who placed the order
+ * @param orderTime - time the order was placed
+ * @param productId - ID of ordered product, null if the product was removed or the order has no items
+ * @param quantity - ordered quantity, null if the order has no items
+ * @param unitPrice - price of the product when it was ordered, null if it was not recorded
+ */
+public record OrderItemSale(Long orderId, String username, LocalDateTime orderTime, Long productId, Integer quantity,
+							BigDecimal unitPrice) {}
@@ -1,12 +1,122 @@
 package com.api.storemanagement.orders;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Order repository
  */
 public interface OrderRepository extends JpaRepository<Order, Long> {
 	List<Order> findByUsername(String username);
-}
\ No newline at end of file
+
+	/**
+	 * Load the orders of a user together with their items and products, in a single query
+	 * @param username - user who placed the orders
+	 * @return orders of the user, oldest first
+	 */
+	@Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.items i LEFT JOIN FETCH i.product WHERE o.username = ?1 ORDER BY o.orderTime, o.id")
+	List<Order> findWithItemsByUsername(String username);
+
+	/**
+	 * Load an order together with its items and products, so that it can be rendered outside a transaction
+	 * @param id - ID of order
+	 * @return order, if it exists
+	 */
+	@Query("SELECT o FROM Order o LEFT JOIN FETCH o.items i LEFT JOIN FETCH i.product WHERE o.id = ?1")
+	Optional<Order> findWithItemsById(Long id);
+
+	/**
+	 * Find a range of the order IDs of a user, served by the (username, order_time) index
+	 * @param username - user who placed the orders
+	 * @param offset - number of older orders to skip
+	 * @param limit - maximum number of IDs to return
+	 * @return IDs of orders, oldest first
+	 */
+	@Query("SELECT o.id FROM Order o WHERE o.username = ?1 ORDER BY o.orderTime, o.id LIMIT ?3 OFFSET ?2")
+	List<Long> findIdsByUsername(String username, long offset, int limit);
+
+	/**
+	 * Find a range of the order summaries of a user, read from the orders table alone
+	 * @param username - user who placed the orders
+	 * @param offset - number of older orders to skip
+	 * @param limit - maximum number of summaries to return
+	 * @return summaries of orders, oldest first
+	 */
+	@Query("SELECT new com.api.storemanagement.orders.OrderSummary(o.id, o.username, o.orderTime, o.itemCount, o.subtotal) "
+			+ "FROM Order o WHERE o.username = ?1 ORDER BY o.orderTime, o.id LIMIT ?3 OFFSET ?2")
+	List<OrderSummary> findSummariesByUsername(String username, long offset, int limit);
+
+	/**
+	 * Load orders together with their items and products, in a single query
+	 * @param ids - IDs of orders
+	 * @return orders, oldest first
+	 */
+	@Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.items i LEFT JOIN FETCH i.product WHERE o.id IN ?1 ORDER BY o.orderTime, o.id")
+	List<Order> findWithItemsByIdIn(Collection<Long> ids);
+
+	@Query("SELECT MIN(o.id) FROM Order o")
+	Long findMinId();
+
+	@Query("SELECT MAX(o.id) FROM Order o")
+	Long findMaxId();
+
+	/**
+	 * Read the items of a range of orders with the order fields needed for sales reporting, without
+	 * loading orders, items or products. Orders without items are read too, so that they are counted.
+	 * @param fromId - inclusive lower bound of order ID
+	 * @param toId - inclusive upper bound of order ID
+	 * @return items of the orders, grouped by order
+	 */
+	@Query("SELECT new com.api.storemanagement.orders.OrderItemSale(o.id, o.username, o.orderTime, i.product.id, i.quantity, i.unitPrice) "
+			+ "FROM Order o LEFT JOIN o.items i WHERE o.id BETWEEN ?1 AND ?2 ORDER BY o.id")
+	List<OrderItemSale> findItemSalesByOrderIdBetween(long fromId, long toId);
+
+	/**
+	 * Find the oldest orders placed before a given time
+	 * @param before - exclusive upper bound of order time
+	 * @param limit - maximum number of IDs to return
+	 * @return IDs of orders, oldest first
+	 */
+	@Query("SELECT o.id FROM Order o WHERE o.orderTime < ?1 ORDER BY o.orderTime, o.id")
+	List<Long> findIdsOrderedBefore(LocalDateTime before, Limit limit);
+
+	/**
+	 * Find the orders matching an optional filter, after a given ID. Matching orders are meant to be deleted
+	 * chunk by chunk, each chunk starting after the last ID of the previous one, so no chunk scans the
+	 * IDs of those before it.
+	 * @param username - user who placed the orders, or null for all users
+	 * @param from - inclusive lower bound of order time, or null
+	 * @param to - exclusive upper bound of order time, or null
+	 * @param afterId - exclusive lower bound of order IDs
+	 * @param limit - maximum number of IDs to return
+	 * @return IDs of orders, in ascending order
+	 */
+	@Query("SELECT o.id FROM Order o WHERE (?1 IS NULL OR o.username = ?1) AND (?2 IS NULL OR o.orderTime >= ?2) "
+			+ "AND (?3 IS NULL OR o.orderTime < ?3) AND o.id > ?4 ORDER BY o.id")
+	List<Long> findIdsMatching(String username, LocalDateTime from, LocalDateTime to, long afterId, Limit limit);
+
+	/**
+	 * Delete the items of orders with a single statement
+	 * @param orderIds - IDs of orders
+	 * @return number of deleted items
+	 */
+	@Modifying
+	@Query("DELETE FROM OrderItem i WHERE i.order.id IN ?1")
+	int deleteItemsByOrderIdIn(Collection<Long> orderIds);
+
+	/**
+	 * Delete orders with a single statement; their items must be deleted first
+	 * @param ids - IDs of orders
+	 * @return number of deleted orders
+	 */
+	@Modifying
+	@Query("DELETE FROM Order o WHERE o.id IN ?1")
+	int deleteByIdIn(Collection<Long> ids);
+}
@@ -0,0 +1,14 @@
+package com.api.storemanagement.orders;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Totals of an order, read without its items or products
+ * @param id - ID of order
+ * @param username - user who placed the order
+ * @param orderTime - time the order was placed
+ * @param itemCount - number of units ordered
+ * @param subtotal - total of the items at the prices they were ordered at, null if it was not recorded
+ */
+public record OrderSummary(Long id, String username, LocalDateTime orderTime, int itemCount, BigDecimal subtotal) {}
@@ -0,0 +1,8 @@
+package com.api.storemanagement.orders;
+
+/**
+ * Event published when orders are deleted in bulk, with set-based statements which do not report
+ * which orders were deleted. Listeners keeping in-memory views of orders have to rebuild them.
+ * @param orders - number of deleted orders, archived orders included
+ */
+public record OrdersDeletedEvent(long orders) {}
@@ -14,13 +14,18 @@ import java.time.LocalDateTime;
  * Product entity
  */
 @Entity
-@Table(name = "product")
+@Table(name = "product", indexes = {
+		@Index(name = "idx_product_name", columnList = "name"),
+		@Index(name = "idx_product_price_quantity", columnList = "price, quantity"),
+		@Index(name = "idx_product_updated_at", columnList = "updated_at")
+})
 @Getter @Setter
 @AllArgsConstructor
 @RequiredArgsConstructor
 public class Product {
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+	@SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 50)
 	private Long id;
 
 	@Column(nullable = false)
@@ -43,6 +48,14 @@ public class Product {
 	@UpdateTimestamp
 	private LocalDateTime updatedAt;
 
+	/**
+	 * Version of the product, incremented by every update, stock changes included. Updates made against
+	 * an older version fail instead of overwriting the changes made since.
+	 */
+	@Version
+	@Column(nullable = false, columnDefinition = "bigint default 0")
+	private Long version;
+
 	public Product(Long id, String name, double price, int quantity) {
 		this.setId(id);
 		this.setName(name);
@@ -63,4 +76,15 @@ public class Product {
 		this.setPrice(price);
 		this.setQuantity(quantity);
 	}
+
+	/**
+	 * @return detached copy of the product, which changes to the product never affect
+	 */
+	public Product copy() {
+		Product copy = new Product(id, name, description, price, quantity);
+		copy.setCreatedAt(createdAt);
+		copy.setUpdatedAt(updatedAt);
+		copy.setVersion(version);
+		return copy;
+	}
 }
@@ -0,0 +1,22 @@
+package com.api.storemanagement.product;
+
+/**
+ * Event published when a product is added, modified (including its stock) or removed.
+ * Listeners keeping in-memory views of the catalog should handle it after the transaction commits.
+ * @param productId - ID of product
+ * @param product - state of the product after the change, with the stock clients see (the live one while stock is
+ *                written behind), null if the product was removed
+ */
+public record ProductChangedEvent(Long productId, Product product) {
+	public static ProductChangedEvent saved(Product product) {
+		return new ProductChangedEvent(product.getId(), product);
+	}
+
+	public static ProductChangedEvent removed(Long productId) {
+		return new ProductChangedEvent(productId, null);
+	}
+
+	public boolean isRemoval() {
+		return product == null;
+	}
+}
@@ -1,9 +1,21 @@
 package com.api.storemanagement.product;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 /**
  * Product repository
@@ -11,7 +23,96 @@ import java.util.List;
 public interface ProductRepository extends JpaRepository<Product, Long> {
 	Boolean existsByName(String name); //Checks if there are any records by name
 
+	List<Product> findByNameIn(Collection<String> names); //Finds all records having one of the names
+
 	@Query("SELECT p FROM Product p WHERE p.price > ?1 AND p.quantity < ?2 ORDER BY p.price DESC")
 	List<Product> findExpensiveLowStockProducts(double minPrice, int maxQuantity);
 
-}
\ No newline at end of file
+	/**
+	 * Seek the next page of products after a given ID
+	 * @param id - last ID of the previous page
+	 * @param limit - maximum number of products to return
+	 * @return products having a greater ID, in ascending ID order
+	 */
+	List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+	/**
+	 * Stream all products in ascending ID order, without loading them all in memory.
+	 * Must be consumed inside a transaction and closed afterwards.
+	 */
+	@QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+	@Query("SELECT p FROM Product p ORDER BY p.id")
+	Stream<Product> streamAll();
+
+	/**
+	 * Stream the stock and price of all products in ascending ID order, without loading the products.
+	 * Must be consumed inside a transaction and closed afterwards.
+	 */
+	@QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+	@Query("SELECT new com.api.storemanagement.product.ProductStock(p.id, p.quantity, p.price, p.version) FROM Product p ORDER BY p.id")
+	Stream<ProductStock> streamStock();
+
+	/**
+	 * Find the products changed since a given time, e.g. to catch up with a snapshot of the catalog
+	 * @param updatedAt - inclusive lower bound of modification time
+	 * @return products changed since then
+	 */
+	List<Product> findByUpdatedAtGreaterThanEqual(LocalDateTime updatedAt);
+
+	/**
+	 * Find which of the given products still exist, without loading them
+	 * @param ids - IDs of products
+	 * @return IDs of existing products
+	 */
+	@Query("SELECT p.id FROM Product p WHERE p.id IN ?1")
+	List<Long> findExistingIds(Collection<Long> ids);
+
+	/**
+	 * Read the stock of a product, without loading it
+	 * @param id - ID of product
+	 * @return stock of the product, if it exists
+	 */
+	@Query("SELECT p.quantity FROM Product p WHERE p.id = ?1")
+	Optional<Integer> findQuantityById(Long id);
+
+	/**
+	 * Aggregate the stock of the whole catalog in a single query
+	 * @param lowStockThreshold - quantity at or below which a product in stock has low stock
+	 * @return stock levels of the catalog
+	 */
+	@Query("SELECT new com.api.storemanagement.product.StockLevels(COUNT(p), COALESCE(SUM(p.quantity), 0), "
+			+ "COALESCE(SUM(CASE WHEN p.quantity = 0 THEN 1 ELSE 0 END), 0), "
+			+ "COALESCE(SUM(CASE WHEN p.quantity > 0 AND p.quantity <= ?1 THEN 1 ELSE 0 END), 0)) FROM Product p")
+	StockLevels findStockLevels(int lowStockThreshold);
+
+	/**
+	 * Lock the rows of products, in ascending ID order, until the end of the current transaction
+	 * @param ids - IDs of products to lock
+	 * @return locked products
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("SELECT p FROM Product p WHERE p.id IN ?1 ORDER BY p.id")
+	List<Product> lockAllById(Collection<Long> ids);
+
+	/**
+	 * Atomically take a quantity out of the stock of a product, only if enough units are available
+	 * @param productId - ID of product
+	 * @param quantity - quantity to take out of stock
+	 * @param updatedAt - new modification time of the product
+	 * @return number of updated rows, 0 if the product does not exist or has insufficient stock
+	 */
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE Product p SET p.quantity = p.quantity - ?2, p.updatedAt = ?3, p.version = p.version + 1 WHERE p.id = ?1 AND p.quantity >= ?2")
+	int decrementQuantity(Long productId, int quantity, LocalDateTime updatedAt);
+
+	/**
+	 * Put a quantity back in the stock of a product
+	 * @param productId - ID of product
+	 * @param quantity - quantity to put back in stock
+	 * @param updatedAt - new modification time of the product
+	 * @return number of updated rows
+	 */
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE Product p SET p.quantity = p.quantity + ?2, p.updatedAt = ?3, p.version = p.version + 1 WHERE p.id = ?1")
+	int incrementQuantity(Long productId, int quantity, LocalDateTime updatedAt);
+}
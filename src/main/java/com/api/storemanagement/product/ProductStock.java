@@ -0,0 +1,10 @@
+package com.api.storemanagement.product;
+
+/**
+ * Stock and price of a product, read without loading the product
+ * @param id - ID of product
+ * @param quantity - units in stock
+ * @param price - unit price
+ * @param version - version of the product row
+ */
+public record ProductStock(Long id, int quantity, double price, Long version) {}
@@ -0,0 +1,10 @@
+package com.api.storemanagement.product;
+
+/**
+ * Aggregated stock of the catalog
+ * @param products - number of products
+ * @param units - units in stock over all products
+ * @param outOfStock - number of products with no unit in stock
+ * @param lowStock - number of products in stock, at or below the low stock threshold
+ */
+public record StockLevels(long products, long units, long outOfStock, long lowStock) {}
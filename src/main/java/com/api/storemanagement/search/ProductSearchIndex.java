@@ -0,0 +1,256 @@
+package com.api.storemanagement.search;
+
+import com.api.storemanagement.exceptions.InvalidSearchException;
+import com.api.storemanagement.product.Product;
+import com.api.storemanagement.product.ProductChangedEvent;
+import com.api.storemanagement.product.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory trigram index of product names, answering prefix and substring searches without
+ * touching the database. Built at startup and kept in sync through product change events; a change
+ * older than the indexed version of a product is ignored.
+ */
+@Component
+public class ProductSearchIndex {
+	private static final int GRAM_LENGTH = 3;
+
+	/**
+	 * Shortest query, so that every query is looked up by its trigrams instead of scanning all names
+	 */
+	public static final int MIN_QUERY_LENGTH = GRAM_LENGTH;
+
+	private final ProductRepository productRepository;
+
+	/**
+	 * Lower-cased product names by product ID
+	 */
+	private final Map<Long, String> names = new HashMap<>();
+
+	/**
+	 * Indexed version of each product by product ID
+	 */
+	private final Map<Long, Long> versions = new HashMap<>();
+
+	/**
+	 * IDs of the products whose name contains a trigram, by trigram
+	 */
+	private final Map<String, Set<Long>> postings = new HashMap<>();
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * Products removed while the index is built, which the build must not add back
+	 */
+	private final Set<Long> removedDuringBuild = new HashSet<>();
+	private boolean built;
+
+	/**
+	 * Logger
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+	@Autowired
+	public ProductSearchIndex(ProductRepository productRepository) {
+		this.productRepository = productRepository;
+	}
+
+	/**
+	 * Index all products of the catalog once the application is started. Products changed meanwhile
+	 * are already indexed in a newer state and are left as they are, and products removed meanwhile
+	 * are not added back.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Transactional(readOnly = true)
+	public void build() {
+		try (Stream<Product> products = productRepository.streamAll()) {
+			products.forEach(product -> {
+				lock.writeLock().lock();
+				try {
+					Long indexedVersion = versions.get(product.getId());
+					if (!removedDuringBuild.contains(product.getId())
+							&& (indexedVersion == null || indexedVersion < versionOf(product))) {
+						put(product.getId(), product.getName(), versionOf(product));
+					}
+				} finally {
+					lock.writeLock().unlock();
+				}
+			});
+		}
+		lock.writeLock().lock();
+		try {
+			removedDuringBuild.clear();
+			built = true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+		logger.info("Product search index built with {} products.", size());
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductChanged(ProductChangedEvent event) {
+		if (event.isRemoval()) {
+			remove(event.productId());
+		} else {
+			put(event.productId(), event.product().getName(), versionOf(event.product()));
+		}
+	}
+
+	/**
+	 * Find products whose name contains the query, ignoring case. Names starting with the query come first,
+	 * then shorter names.
+	 * @param query - text to look for, at least {@link #MIN_QUERY_LENGTH} characters long once trimmed
+	 * @param limit - maximum number of results
+	 * @return IDs of the matching products, best matches first
+	 * @throws InvalidSearchException if the query is too short
+	 */
+	public List<Long> search(String query, int limit) {
+		String normalizedQuery = normalize(query);
+		if (normalizedQuery.length() < MIN_QUERY_LENGTH) {
+			throw new InvalidSearchException("Search queries need at least " + MIN_QUERY_LENGTH + " characters.");
+		}
+		if (limit <= 0) {
+			return List.of();
+		}
+
+		lock.readLock().lock();
+		try {
+			List<Long> matches = new ArrayList<>();
+			for (Long productId : candidates(normalizedQuery)) {
+				if (names.get(productId).contains(normalizedQuery)) {
+					matches.add(productId);
+				}
+			}
+			return matches.stream()
+					.sorted(Comparator.<Long, Boolean>comparing(productId -> !names.get(productId).startsWith(normalizedQuery))
+							.thenComparingInt(productId -> names.get(productId).length())
+							.thenComparing(Comparator.naturalOrder()))
+					.limit(limit)
+					.toList();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return number of indexed products
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return names.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Products which may contain the query: those sharing all its trigrams. Must be called holding the read lock.
+	 */
+	private Set<Long> candidates(String query) {
+		Set<Long> candidates = null;
+		for (String gram : grams(query)) {
+			Set<Long> products = postings.get(gram);
+			if (products == null) {
+				return Set.of();
+			}
+			if (candidates == null) {
+				candidates = new HashSet<>(products);
+			} else {
+				candidates.retainAll(products);
+			}
+			if (candidates.isEmpty()) {
+				break;
+			}
+		}
+		return candidates;
+	}
+
+	/**
+	 * Index the name of a product, unless the indexed one is newer
+	 */
+	private void put(Long productId, String name, long version) {
+		String normalizedName = normalize(name);
+		lock.writeLock().lock();
+		try {
+			Long indexedVersion = versions.get(productId);
+			// Events are handled as transactions complete, not necessarily in the order of the changes
+			if (indexedVersion != null && indexedVersion > version) {
+				return;
+			}
+			versions.put(productId, version);
+			String previousName = names.put(productId, normalizedName);
+			if (normalizedName.equals(previousName)) {
+				return;
+			}
+			if (previousName != null) {
+				unindex(productId, previousName);
+			}
+			for (String gram : grams(normalizedName)) {
+				postings.computeIfAbsent(gram, key -> new HashSet<>()).add(productId);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void remove(Long productId) {
+		lock.writeLock().lock();
+		try {
+			versions.remove(productId);
+			String previousName = names.remove(productId);
+			if (previousName != null) {
+				unindex(productId, previousName);
+			}
+			if (!built) {
+				removedDuringBuild.add(productId);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void unindex(Long productId, String name) {
+		for (String gram : grams(name)) {
+			Set<Long> products = postings.get(gram);
+			if (products != null && products.remove(productId) && products.isEmpty()) {
+				postings.remove(gram);
+			}
+		}
+	}
+
+	private static Set<String> grams(String text) {
+		Set<String> grams = new HashSet<>();
+		for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+			grams.add(text.substring(i, i + GRAM_LENGTH));
+		}
+		return grams;
+	}
+
+	private static long versionOf(Product product) {
+		return product.getVersion() == null ? 0 : product.getVersion();
+	}
+
+	private static String normalize(String text) {
+		return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+	}
+}
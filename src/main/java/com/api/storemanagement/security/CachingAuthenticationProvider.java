@@ -0,0 +1,124 @@
+package com.api.storemanagement.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Authentication provider remembering recently verified credentials, so that stateless HTTP Basic
+ * requests do not pay a password hash verification each time.
+ * Credentials are never stored: entries are keyed by an HMAC of the username and password, under a
+ * key generated at startup. An entry is only used while the user is still enabled and still has the
+ * password hash it was verified against, so password changes and disabled accounts take effect at once.
+ */
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+	private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+	private final AuthenticationProvider delegate;
+	private final UserDetailsService userDetailsService;
+
+	/**
+	 * Password hash each entry was verified against, by HMAC of the credentials
+	 */
+	private final Cache<String, String> verifiedCredentials;
+
+	private final SecretKeySpec hmacKey;
+
+	/**
+	 * Constructor
+	 * @param delegate - provider verifying the credentials which are not cached
+	 * @param userDetailsService - service loading the current state of users
+	 * @param timeToLive - how long verified credentials are remembered
+	 * @param maximumSize - maximum number of remembered credentials
+	 */
+	public CachingAuthenticationProvider(AuthenticationProvider delegate, UserDetailsService userDetailsService,
+										 Duration timeToLive, long maximumSize) {
+		this.delegate = delegate;
+		this.userDetailsService = userDetailsService;
+		this.verifiedCredentials = Caffeine.newBuilder()
+				.expireAfterWrite(timeToLive)
+				.maximumSize(maximumSize)
+				.build();
+
+		byte[] key = new byte[32];
+		new SecureRandom().nextBytes(key);
+		this.hmacKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+	}
+
+	@Override
+	public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+		if (authentication.getName() == null || !(authentication.getCredentials() instanceof String password)) {
+			return delegate.authenticate(authentication);
+		}
+
+		String cacheKey = cacheKey(authentication.getName(), password);
+		String verifiedPasswordHash = verifiedCredentials.getIfPresent(cacheKey);
+		if (verifiedPasswordHash != null) {
+			UserDetails user = currentUser(authentication.getName());
+			if (user != null && verifiedPasswordHash.equals(user.getPassword()) && isUsable(user)) {
+				UsernamePasswordAuthenticationToken result = UsernamePasswordAuthenticationToken.authenticated(
+						user, authentication.getCredentials(), user.getAuthorities());
+				result.setDetails(authentication.getDetails());
+				return result;
+			}
+			verifiedCredentials.invalidate(cacheKey);
+		}
+
+		Authentication result = delegate.authenticate(authentication);
+		if (result != null && result.getPrincipal() instanceof UserDetails user && user.getPassword() != null) {
+			verifiedCredentials.put(cacheKey, user.getPassword());
+		}
+		return result;
+	}
+
+	@Override
+	public boolean supports(Class<?> authentication) {
+		return delegate.supports(authentication);
+	}
+
+	/**
+	 * Forget all verified credentials
+	 */
+	public void invalidateAll() {
+		verifiedCredentials.invalidateAll();
+	}
+
+	private UserDetails currentUser(String username) {
+		try {
+			return userDetailsService.loadUserByUsername(username);
+		} catch (UsernameNotFoundException e) {
+			return null;
+		}
+	}
+
+	private static boolean isUsable(UserDetails user) {
+		return user.isEnabled() && user.isAccountNonLocked() && user.isAccountNonExpired() && user.isCredentialsNonExpired();
+	}
+
+	private String cacheKey(String username, String password) {
+		try {
+			Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+			mac.init(hmacKey);
+			mac.update(username.getBytes(StandardCharsets.UTF_8));
+			mac.update((byte) 0);
+			mac.update(password.getBytes(StandardCharsets.UTF_8));
+			return Base64.getEncoder().encodeToString(mac.doFinal());
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Cannot compute credentials key", e);
+		}
+	}
+}
@@ -1,9 +1,12 @@
 package com.api.storemanagement.security;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.access.hierarchicalroles.RoleHierarchy;
 import org.springframework.security.access.hierarchicalroles.RoleHierarchyImpl;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -15,6 +18,8 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 
+import java.time.Duration;
+
 /**
  * Security configuration
  */
@@ -32,6 +37,8 @@ public class StoreSecurityConfig {
 					auth.requestMatchers("/admin").hasRole("ADMIN");
 					auth.requestMatchers("/orders/**").hasRole("USER");
 					auth.requestMatchers("/orders/admin/**").hasRole("ADMIN");
+					auth.requestMatchers("/actuator/health").permitAll();
+					auth.requestMatchers("/actuator/**").hasRole("ADMIN");
 				})
 				.formLogin(Customizer.withDefaults())
 				.httpBasic(Customizer.withDefaults())
@@ -62,6 +69,23 @@ public class StoreSecurityConfig {
 		return new InMemoryUserDetailsManager(user, user2, admin);
 	}
 
+	/**
+	 * Authentication provider verifying passwords with the password encoder. Unless disabled, verified
+	 * credentials are remembered for a while so that repeated HTTP Basic requests skip BCrypt.
+	 */
+	@Bean
+	public AuthenticationProvider authenticationProvider(UserDetailsService userDetailsService, PasswordEncoder passwordEncoder,
+														 @Value("${store.security.credential-cache.enabled:true}") boolean credentialCacheEnabled,
+														 @Value("${store.security.credential-cache.ttl:PT5M}") Duration credentialCacheTtl,
+														 @Value("${store.security.credential-cache.maximum-size:10000}") long credentialCacheSize) {
+		DaoAuthenticationProvider daoProvider = new DaoAuthenticationProvider(passwordEncoder);
+		daoProvider.setUserDetailsService(userDetailsService);
+		if (!credentialCacheEnabled) {
+			return daoProvider;
+		}
+		return new CachingAuthenticationProvider(daoProvider, userDetailsService, credentialCacheTtl, credentialCacheSize);
+	}
+
 	@Bean
 	public PasswordEncoder passwordEncoder() {
 		return new BCryptPasswordEncoder();
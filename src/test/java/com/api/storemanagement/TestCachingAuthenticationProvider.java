@@ -0,0 +1,84 @@
+package com.api.storemanagement;
+
+import com.api.storemanagement.security.CachingAuthenticationProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestCachingAuthenticationProvider {
+	private final AtomicInteger verifications = new AtomicInteger();
+	private InMemoryUserDetailsManager users;
+	private BCryptPasswordEncoder encoder;
+	private CachingAuthenticationProvider provider;
+
+	@BeforeEach
+	public void setUp() {
+		encoder = new BCryptPasswordEncoder(4) {
+			@Override
+			public boolean matches(CharSequence rawPassword, String encodedPassword) {
+				verifications.incrementAndGet();
+				return super.matches(rawPassword, encodedPassword);
+			}
+		};
+		users = new InMemoryUserDetailsManager(User.builder()
+				.username("user")
+				.password(encoder.encode("password"))
+				.roles("USER")
+				.build());
+		DaoAuthenticationProvider daoProvider = new DaoAuthenticationProvider(encoder);
+		daoProvider.setUserDetailsService(users);
+		provider = new CachingAuthenticationProvider(daoProvider, users, Duration.ofMinutes(5), 100);
+	}
+
+	@Test
+	public void testVerifiedCredentialsRemembered() {
+		Authentication first = provider.authenticate(credentials("user", "password"));
+		Authentication second = provider.authenticate(credentials("user", "password"));
+
+		assertTrue(first.isAuthenticated());
+		assertTrue(second.isAuthenticated());
+		assertEquals("user", second.getName());
+		assertEquals(first.getAuthorities(), second.getAuthorities());
+		assertEquals(1, verifications.get());
+	}
+
+	@Test
+	public void testWrongPasswordNeverRemembered() {
+		provider.authenticate(credentials("user", "password"));
+
+		assertThrows(BadCredentialsException.class, () -> provider.authenticate(credentials("user", "wrong")));
+		assertThrows(BadCredentialsException.class, () -> provider.authenticate(credentials("user", "wrong")));
+		assertEquals(3, verifications.get());
+	}
+
+	@Test
+	public void testPasswordChangeInvalidatesCredentials() {
+		provider.authenticate(credentials("user", "password"));
+
+		users.updateUser(User.builder()
+				.username("user")
+				.password(encoder.encode("new_password"))
+				.roles("USER")
+				.build());
+
+		assertThrows(BadCredentialsException.class, () -> provider.authenticate(credentials("user", "password")));
+		assertTrue(provider.authenticate(credentials("user", "new_password")).isAuthenticated());
+	}
+
+	private static UsernamePasswordAuthenticationToken credentials(String username, String password) {
+		return UsernamePasswordAuthenticationToken.unauthenticated(username, password);
+	}
+}
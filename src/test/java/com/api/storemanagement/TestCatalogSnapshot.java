@@ -0,0 +1,101 @@
+package com.api.storemanagement;
+
+import com.api.storemanagement.cache.ProductCacheConfig;
+import com.api.storemanagement.metrics.StatementCounter;
+import com.api.storemanagement.operations.products.CatalogSnapshot;
+import com.api.storemanagement.operations.products.CatalogSnapshotReport;
+import com.api.storemanagement.operations.products.CatalogSnapshotService;
+import com.api.storemanagement.operations.products.ProductLookup;
+import com.api.storemanagement.product.Product;
+import com.api.storemanagement.product.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:catalog-snapshot;DB_CLOSE_DELAY=-1",
+		"store.catalog.snapshot.path=target/test-catalog.snapshot"
+})
+public class TestCatalogSnapshot {
+	@Autowired
+	private CatalogSnapshotService catalogSnapshotService;
+
+	@Autowired
+	private ProductLookup productLookup;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private StatementCounter statementCounter;
+
+	@AfterEach
+	public void cleanUp() {
+		productRepository.deleteAll();
+		cacheManager.getCache(ProductCacheConfig.PRODUCTS).clear();
+	}
+
+	@Test
+	public void testSnapshotReadBack() {
+		productRepository.save(new Product(null, "snapshot_product_1", "Shared description", 10.5, 3));
+		productRepository.save(new Product(null, "snapshot_product_2", "Shared description", 20, 0));
+		productRepository.save(new Product(null, "snapshot_product_é", null, 0.99, 7));
+
+		CatalogSnapshotReport report = catalogSnapshotService.takeSnapshot();
+		CatalogSnapshot snapshot = CatalogSnapshot.read(catalogSnapshotService.path());
+
+		assertEquals(3, report.products());
+		assertEquals(3, snapshot.size());
+		assertEquals(report.takenAt(), snapshot.takenAt());
+		List<Product> expected = productRepository.findAll().stream().sorted(Comparator.comparing(Product::getId)).toList();
+		List<Product> read = IntStream.range(0, snapshot.size()).mapToObj(snapshot::product).toList();
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).getId(), read.get(i).getId());
+			assertEquals(expected.get(i).getName(), read.get(i).getName());
+			assertEquals(expected.get(i).getDescription(), read.get(i).getDescription());
+			assertEquals(expected.get(i).getPrice(), read.get(i).getPrice());
+			assertEquals(expected.get(i).getQuantity(), read.get(i).getQuantity());
+			assertEquals(expected.get(i).getVersion(), read.get(i).getVersion());
+			assertEquals(expected.get(i).getUpdatedAt().truncatedTo(ChronoUnit.MICROS), read.get(i).getUpdatedAt().truncatedTo(ChronoUnit.MICROS));
+		}
+	}
+
+	@Test
+	public void testCacheWarmedAndCaughtUp() {
+		Product changed = productRepository.save(new Product("warm_product_changed", 10, 5));
+		Product removed = productRepository.save(new Product("warm_product_removed", 10, 5));
+		Product unchanged = productRepository.save(new Product("warm_product_unchanged", 10, 5));
+		catalogSnapshotService.takeSnapshot();
+
+		Product repriced = productRepository.findById(changed.getId()).orElseThrow();
+		repriced.setPrice(12);
+		productRepository.save(repriced);
+		productRepository.deleteById(removed.getId());
+		Product added = productRepository.save(new Product("warm_product_added", 10, 5));
+
+		assertEquals(3, catalogSnapshotService.warmUp());
+
+		// Products are served from the cache, as they are now in the database
+		statementCounter.reset();
+		assertEquals(12, productLookup.findProduct(changed.getId()).getPrice());
+		assertEquals("warm_product_unchanged", productLookup.findProduct(unchanged.getId()).getName());
+		assertEquals("warm_product_added", productLookup.findProduct(added.getId()).getName());
+		assertEquals(0, statementCounter.count());
+		Cache cache = cacheManager.getCache(ProductCacheConfig.PRODUCTS);
+		assertNull(cache.get(removed.getId()));
+	}
+}
@@ -0,0 +1,65 @@
+package com.api.storemanagement;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import com.api.storemanagement.logging.CountingAsyncAppender;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestCountingAsyncAppender {
+	private static final int EVENTS = 50_000;
+	private static final LoggerContext CONTEXT = (LoggerContext) LoggerFactory.getILoggerFactory();
+
+	@Test
+	public void testEveryEventDeliveredOrCounted() throws Exception {
+		// Delivery is slow enough for the small queue to fill up, and frees slots while events race for them
+		AtomicLong delivered = new AtomicLong();
+		AppenderBase<ILoggingEvent> slow = new AppenderBase<>() {
+			@Override
+			protected void append(ILoggingEvent event) {
+				LockSupport.parkNanos(1_000);
+				delivered.incrementAndGet();
+			}
+		};
+		slow.setContext(CONTEXT);
+		slow.start();
+
+		CountingAsyncAppender appender = new CountingAsyncAppender();
+		appender.setContext(CONTEXT);
+		appender.setQueueSize(4);
+		appender.setDiscardingThreshold(0);
+		appender.setNeverBlock(true);
+		appender.setMaxFlushTime(10_000);
+		appender.addAppender(slow);
+		appender.start();
+
+		long dropped = CountingAsyncAppender.droppedEvents();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		for (int i = 0; i < EVENTS; i++) {
+			executor.execute(() -> appender.doAppend(event()));
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+		// Stopping delivers the events left in the queue
+		appender.stop();
+
+		assertEquals(EVENTS, delivered.get() + CountingAsyncAppender.droppedEvents() - dropped);
+	}
+
+	private static ILoggingEvent event() {
+		return new LoggingEvent(TestCountingAsyncAppender.class.getName(), CONTEXT.getLogger("test"), Level.INFO,
+				"event", null, null);
+	}
+}
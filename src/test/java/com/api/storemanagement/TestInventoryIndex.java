@@ -0,0 +1,119 @@
+package com.api.storemanagement;
+
+import com.api.storemanagement.exceptions.InsufficientQuantityException;
+import com.api.storemanagement.metrics.StatementCounter;
+import com.api.storemanagement.operations.orders.OrderItemRequest;
+import com.api.storemanagement.operations.orders.OrderService;
+import com.api.storemanagement.operations.products.ProductService;
+import com.api.storemanagement.operations.stock.InventoryIndex;
+import com.api.storemanagement.product.Product;
+import com.api.storemanagement.product.ProductChangedEvent;
+import com.api.storemanagement.product.ProductRepository;
+import com.api.storemanagement.product.ProductStock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:inventory-index;DB_CLOSE_DELAY=-1")
+public class TestInventoryIndex {
+	/**
+	 * IDs of products only known to the index, far above those of the database
+	 */
+	private static final long FIRST_ID = 1_000_000_000L;
+	private static final int PRODUCTS = 20_000;
+
+	@Autowired
+	private InventoryIndex inventoryIndex;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private StatementCounter statementCounter;
+
+	@AfterEach
+	public void cleanUp() {
+		orderService.deleteAll();
+		productRepository.deleteAll();
+	}
+
+	@Test
+	public void testTableGrowsAndShrinks() {
+		int initialSize = inventoryIndex.size();
+		for (int i = 0; i < PRODUCTS; i++) {
+			inventoryIndex.onProductChanged(ProductChangedEvent.saved(indexedProduct(FIRST_ID + i, i, 0L)));
+		}
+		assertEquals(initialSize + PRODUCTS, inventoryIndex.size());
+
+		// Removing every other product moves the others back along their probe sequences
+		for (int i = 0; i < PRODUCTS; i += 2) {
+			inventoryIndex.onProductChanged(ProductChangedEvent.removed(FIRST_ID + i));
+		}
+		for (int i = 0; i < PRODUCTS; i++) {
+			assertEquals(i % 2 == 0 ? InventoryIndex.UNKNOWN : i, inventoryIndex.quantity(FIRST_ID + i));
+		}
+		assertEquals(new ProductStock(FIRST_ID + 1, 1, 1.5, 0L), inventoryIndex.find(FIRST_ID + 1));
+
+		// Changes older than the indexed version are ignored
+		inventoryIndex.onProductChanged(ProductChangedEvent.saved(indexedProduct(FIRST_ID + 1, 100, 2L)));
+		inventoryIndex.onProductChanged(ProductChangedEvent.saved(indexedProduct(FIRST_ID + 1, 50, 1L)));
+		assertEquals(100, inventoryIndex.quantity(FIRST_ID + 1));
+
+		for (int i = 1; i < PRODUCTS; i += 2) {
+			inventoryIndex.onProductChanged(ProductChangedEvent.removed(FIRST_ID + i));
+		}
+		assertEquals(initialSize, inventoryIndex.size());
+		assertNull(inventoryIndex.find(FIRST_ID + 1));
+	}
+
+	@Test
+	public void testOrdersValidatedAgainstIndex() {
+		assertTrue(inventoryIndex.isBuilt());
+		Product product = productService.addProduct(new Product("indexed_product", 10, 3));
+		assertEquals(3, inventoryIndex.quantity(product.getId()));
+
+		// An order the index knows to exceed the stock never reaches the database
+		statementCounter.reset();
+		InsufficientQuantityException exception = assertThrows(InsufficientQuantityException.class,
+				() -> orderService.createOrder("user", List.of(new OrderItemRequest(product.getId(), 5))));
+		assertEquals(0, statementCounter.count());
+		assertEquals("Cannot place order for product " + product.getId() + ". Quantity available is 3.", exception.getMessage());
+
+		orderService.createOrder("user", List.of(new OrderItemRequest(product.getId(), 2)));
+		assertEquals(1, inventoryIndex.quantity(product.getId()));
+
+		// Products unknown to the index are left to the database
+		TreeMap<Long, Integer> quantities = new TreeMap<>();
+		quantities.put(product.getId(), 2);
+		quantities.put(-1L, 1);
+		assertEquals(List.of(product.getId()), inventoryIndex.findShort(quantities));
+
+		orderService.deleteAll();
+		productService.removeProduct(product.getId());
+		assertEquals(InventoryIndex.UNKNOWN, inventoryIndex.quantity(product.getId()));
+	}
+
+	/**
+	 * @return product as the indexes see it in change events, without loading it
+	 */
+	static Product indexedProduct(long id, int quantity, Long version) {
+		Product product = new Product(id, null, 1.5, quantity);
+		product.setVersion(version);
+		return product;
+	}
+}
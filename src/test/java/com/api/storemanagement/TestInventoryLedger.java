@@ -0,0 +1,148 @@
+package com.api.storemanagement;
+
+import com.api.storemanagement.exceptions.InsufficientQuantityException;
+import com.api.storemanagement.operations.orders.OrderItemRequest;
+import com.api.storemanagement.operations.orders.OrderService;
+import com.api.storemanagement.operations.products.ProductService;
+import com.api.storemanagement.operations.stock.InventoryIndex;
+import com.api.storemanagement.operations.stock.InventoryLedger;
+import com.api.storemanagement.operations.stock.StockController;
+import com.api.storemanagement.product.Product;
+import com.api.storemanagement.product.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:inventory-ledger;DB_CLOSE_DELAY=-1",
+		"store.inventory.write-behind.enabled=true",
+		"store.inventory.write-behind.journal-path=target/inventory-ledger/inventory.journal",
+		"store.inventory.write-behind.journal-capacity=16",
+		"store.inventory.write-behind.flush-interval=PT1H"
+})
+public class TestInventoryLedger {
+	@Autowired
+	private InventoryLedger inventoryLedger;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private InventoryIndex inventoryIndex;
+
+	@Autowired
+	private StockController stockController;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@AfterEach
+	public void cleanUp() {
+		inventoryLedger.flush();
+		orderService.deleteAll();
+		productRepository.findAll().forEach(product -> productService.removeProduct(product.getId()));
+	}
+
+	@Test
+	public void testStockWrittenBehind() throws Exception {
+		Product product = productRepository.save(new Product("ledger_product", 10, 100));
+
+		// 200 concurrent orders of one unit, only 100 can be placed
+		AtomicInteger created = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		for (int i = 0; i < 200; i++) {
+			executor.execute(() -> {
+				try {
+					orderService.createOrder("user", List.of(new OrderItemRequest(product.getId(), 1)));
+					created.incrementAndGet();
+				} catch (InsufficientQuantityException ignored) {
+					// Out of stock
+				}
+			});
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+		assertEquals(100, created.get());
+
+		// The live stock is read from the ledger, the row is only written by the flush
+		assertEquals(0, productService.findProduct(product.getId()).getQuantity());
+		assertEquals(100, productRepository.findQuantityById(product.getId()).orElseThrow());
+		inventoryLedger.flush();
+		assertEquals(0, productRepository.findQuantityById(product.getId()).orElseThrow());
+	}
+
+	@Test
+	public void testAdminStockChangeReplacesCounter() {
+		Product product = productRepository.save(new Product("restocked_product", 10, 1));
+		orderService.createOrder("user", List.of(new OrderItemRequest(product.getId(), 1)));
+		assertEquals(0, productService.findProduct(product.getId()).getQuantity());
+
+		productService.updateProduct(product.getId(), new Product("restocked_product", 10, 50));
+		orderService.createOrder("user", List.of(new OrderItemRequest(product.getId(), 5)));
+		assertEquals(45, productService.findProduct(product.getId()).getQuantity());
+	}
+
+	@Test
+	public void testOrderRolledBackAfterLaterCommitKeepsStock() {
+		Product product = productService.addProduct(new Product("rolled_back_product", 10, 2));
+		TransactionTemplate outer = new TransactionTemplate(transactionManager);
+		TransactionTemplate inner = new TransactionTemplate(transactionManager);
+		inner.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+		// The first order takes one unit and rolls back after a second one took the last unit and committed
+		outer.executeWithoutResult(status -> {
+			orderService.createOrder("rolled_back_user", List.of(new OrderItemRequest(product.getId(), 1)));
+			inner.executeWithoutResult(innerStatus ->
+					orderService.createOrder("user", List.of(new OrderItemRequest(product.getId(), 1))));
+			status.setRollbackOnly();
+		});
+
+		// The index kept the stock published by the committed order, the ledger got the unit back
+		assertEquals(0, inventoryIndex.quantity(product.getId()));
+		assertEquals(1, stockController.findStock(product.getId()).getBody().quantity());
+		orderService.createOrder("user", List.of(new OrderItemRequest(product.getId(), 1)));
+		assertEquals(0, productService.findProduct(product.getId()).getQuantity());
+	}
+
+	@Test
+	public void testStockRecoveredFromJournal() throws Exception {
+		Product first = productRepository.save(new Product("journaled_product_1", 10, 50));
+		Product second = productRepository.save(new Product("journaled_product_2", 10, 50));
+		for (int i = 0; i < 20; i++) {
+			orderService.createOrder("user", List.of(new OrderItemRequest(first.getId(), 1), new OrderItemRequest(second.getId(), 2)));
+		}
+		assertEquals(50, productRepository.findQuantityById(first.getId()).orElseThrow());
+
+		// A new ledger on the same journal, as after a crash, writes the stock left in the journal
+		InventoryLedger restarted = new InventoryLedger(productRepository, jdbcTemplate, transactionManager, true,
+				Path.of("target/inventory-ledger/inventory.journal"), 16);
+		restarted.recover();
+		assertEquals(30, productRepository.findQuantityById(first.getId()).orElseThrow());
+		assertEquals(10, productRepository.findQuantityById(second.getId()).orElseThrow());
+	}
+}
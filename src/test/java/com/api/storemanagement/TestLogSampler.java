@@ -0,0 +1,31 @@
+package com.api.storemanagement;
+
+import com.api.storemanagement.logging.LogSampler;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TestLogSampler {
+	@Test
+	public void testAtMostOneLinePerInterval() {
+		LogSampler sampler = LogSampler.atMostEvery(Duration.ofHours(1));
+
+		assertEquals(0, sampler.sample());
+		for (int i = 0; i < 100; i++) {
+			assertEquals(-1, sampler.sample());
+		}
+	}
+
+	@Test
+	public void testSkippedLinesReported() throws Exception {
+		LogSampler sampler = LogSampler.atMostEvery(Duration.ofMillis(20));
+
+		assertEquals(0, sampler.sample());
+		assertEquals(-1, sampler.sample());
+		assertEquals(-1, sampler.sample());
+		Thread.sleep(50);
+		assertEquals(2, sampler.sample());
+	}
+}
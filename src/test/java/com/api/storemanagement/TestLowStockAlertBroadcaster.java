@@ -0,0 +1,112 @@
+package com.api.storemanagement;
+
+import com.api.storemanagement.operations.stock.LowStockAlert;
+import com.api.storemanagement.operations.stock.LowStockAlertBroadcaster;
+import com.api.storemanagement.operations.stock.LowStockIndex;
+import com.api.storemanagement.product.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Alerts sent to subscribers, through emitters standing for the clients
+ */
+public class TestLowStockAlertBroadcaster {
+	private final LowStockIndex lowStockIndex = Mockito.mock(LowStockIndex.class);
+	private final LowStockAlertBroadcaster broadcaster = new LowStockAlertBroadcaster(lowStockIndex, Duration.ofMinutes(1), 2);
+
+	/**
+	 * Released once the test is over, so that the slow subscriber stops blocking
+	 */
+	private final CountDownLatch released = new CountDownLatch(1);
+
+	@AfterEach
+	public void shutdown() {
+		released.countDown();
+		broadcaster.shutdown();
+	}
+
+	@Test
+	public void testSlowSubscriberHoldsUpNobody() throws Exception {
+		Mockito.when(lowStockIndex.findLowStock()).thenReturn(List.of());
+		BlockingQueue<SseEmitter.SseEventBuilder> received = new LinkedBlockingQueue<>();
+		CountDownLatch slowSending = new CountDownLatch(1);
+		broadcaster.subscribe(new SseEmitter() {
+			@Override
+			public void send(SseEventBuilder builder) throws IOException {
+				slowSending.countDown();
+				try {
+					released.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		broadcaster.subscribe(new SseEmitter() {
+			@Override
+			public void send(SseEventBuilder builder) {
+				received.add(builder);
+			}
+		});
+		assertEquals(2, broadcaster.subscriberCount());
+
+		// The slow subscriber blocks on the first alert, the other one gets them all
+		broadcaster.onLowStockAlert(new LowStockAlert(1L, "alert_product", 10, 5, true));
+		assertNotNull(received.poll(5, TimeUnit.SECONDS));
+		slowSending.await(5, TimeUnit.SECONDS);
+		for (int i = 0; i < LowStockAlertBroadcaster.MAX_PENDING_ALERTS; i++) {
+			broadcaster.onLowStockAlert(new LowStockAlert(1L, "alert_product", 10, 5, true));
+			assertNotNull(received.poll(5, TimeUnit.SECONDS));
+		}
+
+		// One more alert than can be queued drops the slow subscriber
+		broadcaster.onLowStockAlert(new LowStockAlert(1L, "alert_product", 10, 5, true));
+		assertNotNull(received.poll(5, TimeUnit.SECONDS));
+		assertEquals(1, broadcaster.subscriberCount());
+		assertNull(received.poll());
+	}
+
+	@Test
+	public void testProductsLowOnStockSentBeforeAlerts() throws Exception {
+		Product product = new Product(1L, "alert_product", 10, 5);
+		LowStockAlert recovered = new LowStockAlert(1L, "alert_product", 10, 50, false);
+		// The product recovers while the products low on stock are read for the new subscriber
+		Mockito.when(lowStockIndex.findLowStock()).thenAnswer(invocation -> {
+			broadcaster.onLowStockAlert(recovered);
+			return List.of(product);
+		});
+		BlockingQueue<LowStockAlert> received = new LinkedBlockingQueue<>();
+		broadcaster.subscribe(new SseEmitter() {
+			@Override
+			public void send(SseEventBuilder builder) {
+				received.add(alertOf(builder));
+			}
+		});
+
+		assertEquals(new LowStockAlert(1L, "alert_product", 10, 5, true), received.poll(5, TimeUnit.SECONDS));
+		assertEquals(recovered, received.poll(5, TimeUnit.SECONDS));
+	}
+
+	private static LowStockAlert alertOf(SseEmitter.SseEventBuilder builder) {
+		return builder.build().stream()
+				.map(ResponseBodyEmitter.DataWithMediaType::getData)
+				.filter(LowStockAlert.class::isInstance)
+				.map(LowStockAlert.class::cast)
+				.findFirst()
+				.orElseThrow();
+	}
+}
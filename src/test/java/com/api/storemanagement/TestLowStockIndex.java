@@ -0,0 +1,120 @@
+package com.api.storemanagement;
+
+import com.api.storemanagement.operations.orders.OrderItemRequest;
+import com.api.storemanagement.operations.orders.OrderService;
+import com.api.storemanagement.operations.products.ProductService;
+import com.api.storemanagement.operations.stock.LowStockAlert;
+import com.api.storemanagement.operations.stock.LowStockIndex;
+import com.api.storemanagement.product.Product;
+import com.api.storemanagement.product.ProductChangedEvent;
+import com.api.storemanagement.product.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:low-stock-index;DB_CLOSE_DELAY=-1",
+		"store.stock.alerts.low-threshold=10"
+})
+@RecordApplicationEvents
+public class TestLowStockIndex {
+	@Autowired
+	private LowStockIndex lowStockIndex;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private ApplicationEvents applicationEvents;
+
+	@AfterEach
+	public void cleanUp() {
+		orderService.deleteAll();
+		List.copyOf(productRepository.findAll()).forEach(product -> productService.removeProduct(product.getId()));
+	}
+
+	@Test
+	public void testMatchesDatabaseQuery() {
+		int[] quantities = {0, 1, 5, 9, 15, 16, 17, 31, 32, 100, 1000};
+		for (int i = 0; i < quantities.length; i++) {
+			productService.addProduct(new Product("indexed_product_" + i, 10 + 7 * i % 23, quantities[i]));
+		}
+
+		assertTrue(lowStockIndex.isBuilt());
+		for (double minPrice : new double[]{0, 10, 17, 24, 100}) {
+			for (int maxQuantity : new int[]{0, 1, 6, 16, 17, 32, 33, 1001}) {
+				assertEquals(ids(productRepository.findExpensiveLowStockProducts(minPrice, maxQuantity)),
+						ids(lowStockIndex.find(minPrice, maxQuantity)), "price > " + minPrice + ", quantity < " + maxQuantity);
+			}
+		}
+	}
+
+	@Test
+	public void testFollowsStockAndRaisesAlerts() {
+		Product product = productService.addProduct(new Product("alerting_product", 50, 12));
+
+		orderService.createOrder("user", List.of(new OrderItemRequest(product.getId(), 3)));
+		assertEquals(List.of(product.getId()), ids(productService.findExpensiveLowStockProducts(40, 10)));
+
+		productService.updateProduct(product.getId(), new Product("alerting_product", 50, 20));
+		assertEquals(List.of(), ids(productService.findExpensiveLowStockProducts(40, 10)));
+
+		assertEquals(List.of(new LowStockAlert(product.getId(), "alerting_product", 50, 9, true),
+						new LowStockAlert(product.getId(), "alerting_product", 50, 20, false)),
+				applicationEvents.stream(LowStockAlert.class).toList());
+	}
+
+	@Test
+	public void testOlderChangesIgnored() {
+		// A product only known to the index, changed by events arriving out of order
+		long productId = 1_000_000_000L;
+		lowStockIndex.onProductChanged(ProductChangedEvent.saved(TestInventoryIndex.indexedProduct(productId, 5, 2L)));
+		lowStockIndex.onProductChanged(ProductChangedEvent.saved(TestInventoryIndex.indexedProduct(productId, 50, 1L)));
+		assertEquals(List.of(productId), ids(lowStockIndex.find(0, 10)));
+		assertEquals(List.of(new LowStockAlert(productId, null, 1.5, 5, true)), applicationEvents.stream(LowStockAlert.class).toList());
+
+		lowStockIndex.onProductChanged(ProductChangedEvent.removed(productId));
+		assertEquals(List.of(), ids(lowStockIndex.find(0, 10)));
+	}
+
+	@Test
+	public void testChangesDuringBuildKept() {
+		ProductRepository repository = Mockito.mock(ProductRepository.class);
+		LowStockIndex index = new LowStockIndex(repository, Mockito.mock(ApplicationEventPublisher.class), 10);
+		// The first product is removed and the second one restocked after they are read, before they are indexed
+		Mockito.when(repository.streamAll()).thenReturn(Stream.of(1L, 2L, 3L)
+				.map(productId -> TestInventoryIndex.indexedProduct(productId, 5, 1L))
+				.peek(product -> {
+					if (product.getId() == 1L) {
+						index.onProductChanged(ProductChangedEvent.removed(1L));
+					} else if (product.getId() == 2L) {
+						index.onProductChanged(ProductChangedEvent.saved(TestInventoryIndex.indexedProduct(2L, 50, 2L)));
+					}
+				}));
+
+		index.build();
+		assertEquals(List.of(3L), ids(index.find(0, 10)));
+		assertEquals(2, index.size());
+	}
+
+	private static List<Long> ids(List<Product> products) {
+		return products.stream().map(Product::getId).toList();
+	}
+}
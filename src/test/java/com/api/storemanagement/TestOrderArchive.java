@@ -0,0 +1,124 @@
+package com.api.storemanagement;
+
+import com.api.storemanagement.exceptions.OrderNotFoundException;
+import com.api.storemanagement.operations.orders.OrderArchiver;
+import com.api.storemanagement.operations.orders.OrderItemRequest;
+import com.api.storemanagement.operations.orders.OrderResponse;
+import com.api.storemanagement.operations.orders.OrderService;
+import com.api.storemanagement.orders.ArchivedOrderRepository;
+import com.api.storemanagement.orders.Order;
+import com.api.storemanagement.orders.OrderRepository;
+import com.api.storemanagement.product.Product;
+import com.api.storemanagement.product.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:order-archive;DB_CLOSE_DELAY=-1",
+		"store.orders.archive.chunk-size=2"
+})
+public class TestOrderArchive {
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private OrderArchiver orderArchiver;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private ArchivedOrderRepository archivedOrderRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@AfterEach
+	public void cleanUp() {
+		orderService.deleteAll();
+		productRepository.deleteAll();
+	}
+
+	@Test
+	public void testOldOrdersArchivedAndListed() {
+		Product product = productRepository.save(new Product("archived_product", 10, 100));
+		List<Long> orderIds = new ArrayList<>();
+		for (int i = 0; i < 7; i++) {
+			Order order = orderService.createOrder("archive_user", List.of(new OrderItemRequest(product.getId(), i + 1)));
+			orderIds.add(order.getId());
+			// The first five orders are a year old, one day apart
+			if (i < 5) {
+				jdbcTemplate.update("UPDATE orders SET order_time = ? WHERE id = ?",
+						Timestamp.valueOf(LocalDateTime.now().minusDays(365 - i)), order.getId());
+			}
+		}
+		orderService.createOrder("other_user", List.of(new OrderItemRequest(product.getId(), 1)));
+
+		assertEquals(5, orderArchiver.archiveOrdersBefore(LocalDateTime.now().minusDays(90)));
+		assertEquals(3, orderRepository.count());
+		assertEquals(5, archivedOrderRepository.count());
+
+		List<OrderResponse> orders = orderService.findOrdersByUsername("archive_user");
+		assertEquals(orderIds, orders.stream().map(OrderResponse::id).toList());
+		assertEquals(3, orders.get(2).items().get(0).quantity());
+		assertEquals("archived_product", orders.get(2).items().get(0).product().name());
+
+		// Pages run across archived and current orders
+		List<Long> pagedIds = new ArrayList<>();
+		for (int page = 0; page < 3; page++) {
+			orderService.findOrdersByUsername("archive_user", page, 3).forEach(order -> pagedIds.add(order.id()));
+		}
+		assertEquals(orderIds, pagedIds);
+		assertEquals(List.of(orderIds.get(5), orderIds.get(6)),
+				orderService.findOrdersByUsername("archive_user", 1, 5).stream().map(OrderResponse::id).toList());
+	}
+
+	@Test
+	public void testArchivedOrderKeepsRemovedProduct() {
+		Product product = productRepository.save(new Product("removed_product", 10, 100));
+		Order order = orderService.createOrder("archive_user", List.of(new OrderItemRequest(product.getId(), 1)));
+		jdbcTemplate.update("UPDATE orders SET order_time = ? WHERE id = ?",
+				Timestamp.valueOf(LocalDateTime.now().minusDays(365)), order.getId());
+
+		orderArchiver.archive();
+		// Archived orders no longer reference products, which can then be removed
+		productRepository.deleteAll();
+
+		OrderResponse archived = orderService.findOrdersByUsername("archive_user").get(0);
+		assertEquals(order.getId(), archived.id());
+		assertEquals("removed_product", archived.items().get(0).product().name());
+		assertNull(orderRepository.findById(order.getId()).orElse(null));
+	}
+
+	@Test
+	public void testArchivedOrderFoundAndDeletedById() {
+		Product product = productRepository.save(new Product("archived_by_id", 10, 100));
+		Order order = orderService.createOrder("archive_user", List.of(new OrderItemRequest(product.getId(), 2)));
+		jdbcTemplate.update("UPDATE orders SET order_time = ? WHERE id = ?",
+				Timestamp.valueOf(LocalDateTime.now().minusDays(365)), order.getId());
+		orderArchiver.archive();
+
+		OrderResponse archived = orderService.findOrderById(order.getId());
+		assertEquals("archive_user", archived.username());
+		assertEquals(2, archived.items().get(0).quantity());
+
+		orderService.deleteOrderById(order.getId());
+		assertEquals(0, archivedOrderRepository.count());
+		assertThrows(OrderNotFoundException.class, () -> orderService.findOrderById(order.getId()));
+	}
+}
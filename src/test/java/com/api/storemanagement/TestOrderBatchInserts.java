@@ -0,0 +1,82 @@
+package com.api.storemanagement;
+
+import com.api.storemanagement.orders.Order;
+import com.api.storemanagement.orders.OrderItem;
+import com.api.storemanagement.orders.OrderRepository;
+import com.api.storemanagement.product.Product;
+import com.api.storemanagement.product.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:order-batch-inserts;DB_CLOSE_DELAY=-1",
+		"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+public class TestOrderBatchInserts {
+	private static final Logger logger = LoggerFactory.getLogger(TestOrderBatchInserts.class);
+	private static final int ORDERS = 20;
+	private static final int ITEMS_PER_ORDER = 500;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@AfterEach
+	public void cleanUp() {
+		orderRepository.deleteAll();
+		productRepository.deleteAll();
+	}
+
+	@Test
+	public void testLargeOrdersFlushedInBatches() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		Product product = productRepository.save(new Product("batched_product", 10, 100));
+
+		statistics.clear();
+		long start = System.nanoTime();
+		for (int i = 0; i < ORDERS; i++) {
+			orderRepository.save(largeOrder(product));
+		}
+		long elapsedNanos = System.nanoTime() - start;
+
+		long rows = (long) ORDERS * (ITEMS_PER_ORDER + 1);
+		logger.info("Inserted {} rows in {} ms ({} inserts/s) using {} statements", rows, elapsedNanos / 1_000_000,
+				rows * 1_000_000_000L / elapsedNanos, statistics.getPrepareStatementCount());
+		assertEquals(rows, statistics.getEntityInsertCount());
+		// Sequence values are fetched in blocks and items are inserted in batches, not one statement per row
+		assertTrue(statistics.getPrepareStatementCount() < rows / 10);
+	}
+
+	private Order largeOrder(Product product) {
+		Order order = new Order();
+		order.setUsername("user");
+		List<OrderItem> items = new ArrayList<>();
+		for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+			OrderItem item = new OrderItem();
+			item.setProduct(product);
+			item.setQuantity(1);
+			item.setOrder(order);
+			items.add(item);
+		}
+		order.setItems(items);
+		return order;
+	}
+}
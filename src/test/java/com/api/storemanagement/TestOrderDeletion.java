@@ -0,0 +1,109 @@
+package com.api.storemanagement;
+
+import com.api.storemanagement.operations.orders.OrderArchiver;
+import com.api.storemanagement.operations.orders.OrderDeletionReport;
+import com.api.storemanagement.operations.orders.OrderItemRequest;
+import com.api.storemanagement.operations.orders.OrderService;
+import com.api.storemanagement.orders.ArchivedOrderRepository;
+import com.api.storemanagement.orders.Order;
+import com.api.storemanagement.orders.OrderRepository;
+import com.api.storemanagement.product.Product;
+import com.api.storemanagement.product.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:order-deletion;DB_CLOSE_DELAY=-1",
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"store.orders.delete.chunk-size=2"
+})
+public class TestOrderDeletion {
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private OrderArchiver orderArchiver;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private ArchivedOrderRepository archivedOrderRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@AfterEach
+	public void cleanUp() {
+		orderService.deleteAll();
+		productRepository.deleteAll();
+	}
+
+	@Test
+	public void testDeleteAllInChunksWithoutLoadingOrders() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		Product first = productRepository.save(new Product("deleted_product_1", 10, 100));
+		Product second = productRepository.save(new Product("deleted_product_2", 10, 100));
+		List<Long> orderIds = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			orderIds.add(orderService.createOrder("user_" + (i % 2), List.of(
+					new OrderItemRequest(first.getId(), 1),
+					new OrderItemRequest(second.getId(), 1))).getId());
+		}
+		// Chunks are found after the last ID of the previous chunk
+		assertEquals(orderIds.subList(2, 4), orderRepository.findIdsMatching(null, null, null, orderIds.get(1), Limit.of(2)));
+
+		statistics.clear();
+		OrderDeletionReport report = orderService.deleteAll();
+
+		assertEquals(new OrderDeletionReport(5, 10, 0), report);
+		assertEquals(0, orderRepository.count());
+		// Orders are deleted by ID, never loaded into the persistence context
+		assertEquals(0, statistics.getEntityLoadCount());
+	}
+
+	@Test
+	public void testDeleteFilteredOrders() {
+		Product product = productRepository.save(new Product("filtered_product", 10, 100));
+		// Two orders of old_user are archived, one is old but current, one is recent
+		int[] ageInDays = {400, 400, 200, 0};
+		for (int age : ageInDays) {
+			backdate(orderService.createOrder("old_user", List.of(new OrderItemRequest(product.getId(), 1))), age);
+		}
+		backdate(orderService.createOrder("other_user", List.of(new OrderItemRequest(product.getId(), 1))), 200);
+		orderArchiver.archiveOrdersBefore(LocalDateTime.now().minusDays(300));
+
+		OrderDeletionReport report = orderService.deleteOrders("old_user", null, LocalDateTime.now().minusDays(100));
+
+		assertEquals(new OrderDeletionReport(1, 1, 2), report);
+		assertEquals(2, orderRepository.count());
+		assertEquals(0, archivedOrderRepository.count());
+		assertEquals(List.of("old_user", "other_user"), orderRepository.findAll().stream()
+				.map(Order::getUsername).sorted().toList());
+	}
+
+	private void backdate(Order order, int days) {
+		jdbcTemplate.update("UPDATE orders SET order_time = ? WHERE id = ?",
+				Timestamp.valueOf(LocalDateTime.now().minusDays(days)), order.getId());
+	}
+}
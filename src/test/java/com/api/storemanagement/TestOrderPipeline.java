@@ -0,0 +1,185 @@
+package com.api.storemanagement;
+
+import com.api.storemanagement.exceptions.IdempotencyKeyReusedException;
+import com.api.storemanagement.exceptions.InvalidOrderException;
+import com.api.storemanagement.exceptions.OrderQueueFullException;
+import com.api.storemanagement.metrics.OrderMetrics;
+import com.api.storemanagement.operations.orders.OrderItemRequest;
+import com.api.storemanagement.operations.orders.OrderPipeline;
+import com.api.storemanagement.operations.orders.OrderService;
+import com.api.storemanagement.operations.orders.OrderSubmission;
+import com.api.storemanagement.operations.orders.OrderSubmissionStatus;
+import com.api.storemanagement.operations.orders.OrderSubmissionStatus.Status;
+import com.api.storemanagement.orders.OrderRepository;
+import com.api.storemanagement.product.Product;
+import com.api.storemanagement.product.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:order-pipeline;DB_CLOSE_DELAY=-1",
+		"store.orders.async.batch-size=5"
+})
+@AutoConfigureMockMvc
+public class TestOrderPipeline {
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private OrderPipeline orderPipeline;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private OrderMetrics orderMetrics;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@AfterEach
+	public void cleanUp() {
+		orderService.deleteAll();
+		productRepository.deleteAll();
+	}
+
+	@Test
+	public void testQueuedOrdersPlacedOnce() throws Exception {
+		Product product = productRepository.save(new Product("queued_product", 10, 15));
+
+		// Twenty orders of one unit and their retries: only fifteen can be placed
+		List<OrderSubmission> submissions = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			List<OrderItemRequest> items = List.of(new OrderItemRequest(product.getId(), 1));
+			OrderSubmission submission = orderPipeline.submit("user", "key-" + i, items);
+			assertSame(submission, orderPipeline.submit("user", "key-" + i, items));
+			submissions.add(submission);
+		}
+
+		int created = 0;
+		for (OrderSubmission submission : submissions) {
+			OrderSubmissionStatus status = submission.completion().get(10, TimeUnit.SECONDS);
+			created += status.status() == Status.CREATED ? 1 : 0;
+		}
+		assertEquals(15, created);
+		assertEquals(15, orderRepository.count());
+		assertEquals(0, productRepository.findById(product.getId()).orElseThrow().getQuantity());
+	}
+
+	@Test
+	public void testInvalidSubmissionsRejected() throws Exception {
+		Product product = productRepository.save(new Product("rejected_product", 10, 5));
+		List<OrderItemRequest> items = List.of(new OrderItemRequest(product.getId(), 1));
+
+		assertThrows(InvalidOrderException.class, () -> orderPipeline.submit("user", null, items));
+		assertThrows(InvalidOrderException.class, () -> orderPipeline.submit("user", "empty-key", List.of()));
+
+		OrderSubmission submission = orderPipeline.submit("user", "reused-key", items);
+		assertThrows(IdempotencyKeyReusedException.class, () ->
+				orderPipeline.submit("user", "reused-key", List.of(new OrderItemRequest(product.getId(), 2))));
+		assertEquals(Status.CREATED, submission.completion().get(10, TimeUnit.SECONDS).status());
+	}
+
+	@Test
+	public void testConcurrentRetriesShareOneSubmission() throws Exception {
+		Product product = productRepository.save(new Product("retried_product", 10, 5));
+		List<OrderItemRequest> items = List.of(new OrderItemRequest(product.getId(), 1));
+
+		List<Callable<OrderSubmission>> retries = new ArrayList<>();
+		for (int i = 0; i < 16; i++) {
+			retries.add(() -> orderPipeline.submit("user", "retried-key", items));
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(retries.size());
+		List<OrderSubmission> submissions = new ArrayList<>();
+		try {
+			for (Future<OrderSubmission> submission : executor.invokeAll(retries)) {
+				submissions.add(submission.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		OrderSubmission submission = submissions.get(0);
+		submissions.forEach(retry -> assertSame(submission, retry));
+		assertTrue(orderPipeline.find("user", submission.handle()).isPresent());
+		assertEquals(Status.CREATED, submission.completion().get(10, TimeUnit.SECONDS).status());
+		assertEquals(1, orderRepository.count());
+	}
+
+	@Test
+	public void testRejectedSubmissionNeverSeen() {
+		// A pipeline without workers, holding a single order
+		OrderPipeline pipeline = new OrderPipeline(orderService, orderMetrics, new SimpleMeterRegistry(), new MockEnvironment(),
+				1, 0, 5, Duration.ofHours(1), 100);
+		List<OrderItemRequest> items = List.of(new OrderItemRequest(1L, 1));
+		assertThrows(OrderQueueFullException.class, () -> pipeline.submit("user", "before-start", items));
+
+		pipeline.start();
+		try {
+			OrderSubmission queued = pipeline.submit("user", "queued-key", items);
+			assertTrue(pipeline.find("user", queued.handle()).isPresent());
+			assertThrows(OrderQueueFullException.class, () -> pipeline.submit("user", "rejected-key", items));
+			// The rejected key was never taken: retrying it is rejected again, not answered with a failed submission
+			assertThrows(OrderQueueFullException.class, () -> pipeline.submit("user", "rejected-key", items));
+			assertSame(queued, pipeline.submit("user", "queued-key", items));
+		} finally {
+			pipeline.stop();
+		}
+	}
+
+	@Test
+	@WithMockUser(username = "user", roles = "USER")
+	public void testSubmitAndLongPoll() throws Exception {
+		Product product = productRepository.save(new Product("polled_product", 10, 5));
+
+		MvcResult submitted = mockMvc.perform(post("/orders/async")
+						.header("Idempotency-Key", "polled-order")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"items\": [{\"productId\": " + product.getId() + ", \"quantity\": 2}]}"))
+				.andExpect(status().isAccepted())
+				.andExpect(header().exists("Location"))
+				.andReturn();
+		String location = submitted.getResponse().getHeader("Location");
+
+		MvcResult polled = mockMvc.perform(get(location).param("waitSeconds", "10"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(polled))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.status").value("CREATED"));
+		assertEquals(3, productRepository.findById(product.getId()).orElseThrow().getQuantity());
+	}
+}
@@ -0,0 +1,191 @@
+package com.api.storemanagement;
+
+import com.api.storemanagement.exceptions.ProductNotFoundException;
+import com.api.storemanagement.operations.orders.OrderItemRequest;
+import com.api.storemanagement.operations.orders.OrderResponse;
+import com.api.storemanagement.operations.orders.OrderService;
+import com.api.storemanagement.orders.Order;
+import com.api.storemanagement.orders.OrderItem;
+import com.api.storemanagement.orders.OrderSummary;
+import com.api.storemanagement.product.Product;
+import com.api.storemanagement.product.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:order-product-lookup;DB_CLOSE_DELAY=-1",
+		"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+public class TestOrderProductLookup {
+	private static final Logger logger = LoggerFactory.getLogger(TestOrderProductLookup.class);
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@AfterEach
+	public void cleanUp() {
+		orderService.deleteAll();
+		productRepository.deleteAll();
+	}
+
+	@Test
+	public void testProductsLoadedWithSingleQuery() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+		for (int basketSize : new int[]{1, 10, 50}) {
+			List<OrderItemRequest> items = new ArrayList<>();
+			for (int i = 0; i < basketSize; i++) {
+				Product product = productRepository.save(new Product("product_" + basketSize + "_" + i, 10, 100));
+				items.add(new OrderItemRequest(product.getId(), 1));
+			}
+
+			statistics.clear();
+			long start = System.nanoTime();
+			Order order = orderService.createOrder("user", items);
+			long elapsedMicros = (System.nanoTime() - start) / 1000;
+
+			logger.info("Basket of {} items: {} statements, {} queries, {} us", basketSize,
+					statistics.getPrepareStatementCount(), statistics.getQueryExecutionCount(), elapsedMicros);
+			assertEquals(basketSize, order.getItems().size());
+			// A single query loads all products, whatever the basket size
+			assertEquals(1, statistics.getQueryExecutionCount());
+			assertEquals(basketSize, statistics.getEntityStatistics(Product.class.getName()).getLoadCount());
+		}
+	}
+
+	@Test
+	public void testOrderHistoryLoadedWithSingleQuery() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		Product first = productRepository.save(new Product("history_product_1", 10, 100));
+		Product second = productRepository.save(new Product("history_product_2", 20, 100));
+		for (int i = 0; i < 20; i++) {
+			orderService.createOrder("history_user", List.of(
+					new OrderItemRequest(first.getId(), 1),
+					new OrderItemRequest(second.getId(), 1)));
+		}
+
+		statistics.clear();
+		List<OrderResponse> orders = orderService.findOrdersByUsername("history_user");
+
+		assertEquals(20, orders.size());
+		assertEquals(2, orders.get(0).items().size());
+		assertEquals("history_product_2", orders.get(0).items().get(1).product().name());
+		// One query for archived orders, one for current orders with their items and products
+		assertEquals(2, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	public void testTotalsKeptAtOrderPrices() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		Product first = productRepository.save(new Product("totals_product_1", 0.1, 100));
+		Product second = productRepository.save(new Product("totals_product_2", 19.99, 100));
+		Order order = orderService.createOrder("totals_user", List.of(
+				new OrderItemRequest(first.getId(), 3),
+				new OrderItemRequest(second.getId(), 2)));
+
+		// Exact decimal arithmetic: 3 x 0.1 + 2 x 19.99, which doubles would not add up to
+		assertEquals(0, new BigDecimal("40.28").compareTo(order.getSubtotal()));
+		assertEquals(5, order.getItemCount());
+
+		// Price changes made afterwards leave the order as it was placed
+		Product repriced = productRepository.findById(second.getId()).orElseThrow();
+		repriced.setPrice(25);
+		productRepository.save(repriced);
+
+		statistics.clear();
+		List<OrderSummary> summaries = orderService.findOrderSummariesByUsername("totals_user", 0, 10);
+
+		assertEquals(1, summaries.size());
+		assertEquals(0, new BigDecimal("40.28").compareTo(summaries.get(0).subtotal()));
+		assertEquals(5, summaries.get(0).itemCount());
+		// One count of archived orders and one query for summaries: neither items nor products are read
+		assertEquals(2, statistics.getPrepareStatementCount());
+		assertEquals(0, statistics.getEntityLoadCount());
+		assertEquals(0, new BigDecimal("19.99").compareTo(
+				orderService.findOrdersByUsername("totals_user").get(0).items().get(1).unitPrice()));
+	}
+
+	@Test
+	public void testTotalsMatchStoredUnitPrices() {
+		// Prices with more decimals than are stored: unit prices are rounded first, half to even
+		Product first = productRepository.save(new Product("rounded_product_1", 0.12345, 100));
+		Product second = productRepository.save(new Product("rounded_product_2", 2.00005, 100));
+		Order order = orderService.createOrder("rounding_user", List.of(
+				new OrderItemRequest(first.getId(), 3),
+				new OrderItemRequest(second.getId(), 7)));
+
+		OrderResponse stored = orderService.findOrderById(order.getId());
+		assertEquals(List.of(new BigDecimal("0.1234"), new BigDecimal("2.0000")),
+				stored.items().stream().map(item -> item.unitPrice().setScale(OrderItem.PRICE_SCALE)).toList());
+		BigDecimal itemsTotal = stored.items().stream()
+				.map(item -> item.unitPrice().multiply(BigDecimal.valueOf(item.quantity())))
+				.reduce(BigDecimal.ZERO, BigDecimal::add);
+		assertEquals(0, itemsTotal.compareTo(stored.subtotal()));
+		assertEquals(0, new BigDecimal("14.3702").compareTo(stored.subtotal()));
+	}
+
+	@Test
+	public void testOrderLoadedWithItems() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		Product product = productRepository.save(new Product("loaded_product", 10, 5));
+		Order created = orderService.createOrder("user", List.of(new OrderItemRequest(product.getId(), 1)));
+
+		statistics.clear();
+		OrderResponse order = orderService.findOrderById(created.getId());
+
+		assertEquals("loaded_product", order.items().get(0).product().name());
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	public void testDuplicateProductsMerged() {
+		Product product = productRepository.save(new Product("merged_product", 10, 5));
+
+		Order order = orderService.createOrder("user", List.of(
+				new OrderItemRequest(product.getId(), 2),
+				new OrderItemRequest(product.getId(), 3)));
+
+		assertEquals(1, order.getItems().size());
+		assertEquals(5, order.getItems().get(0).getQuantity());
+		assertEquals(0, productRepository.findById(product.getId()).orElseThrow().getQuantity());
+	}
+
+	@Test
+	public void testAllUnavailableProductsReported() {
+		Product available = productRepository.save(new Product("available_product", 10, 5));
+		Product scarce = productRepository.save(new Product("scarce_product", 10, 1));
+
+		ProductNotFoundException exception = assertThrows(ProductNotFoundException.class, () ->
+				orderService.createOrder("user", List.of(
+						new OrderItemRequest(available.getId(), 1),
+						new OrderItemRequest(-1L, 1),
+						new OrderItemRequest(scarce.getId(), 2),
+						new OrderItemRequest(-2L, 1))));
+
+		assertTrue(exception.getMessage().contains("-2, -1"));
+		assertTrue(exception.getMessage().contains("product " + scarce.getId() + ". Quantity available is 1"));
+		// Nothing was taken out of stock
+		assertEquals(5, productRepository.findById(available.getId()).orElseThrow().getQuantity());
+	}
+}
@@ -0,0 +1,114 @@
+package com.api.storemanagement;
+
+import com.api.storemanagement.cache.ProductCache;
+import com.api.storemanagement.exceptions.PreconditionFailedException;
+import com.api.storemanagement.operations.orders.OrderItemRequest;
+import com.api.storemanagement.operations.orders.OrderService;
+import com.api.storemanagement.operations.products.ProductService;
+import com.api.storemanagement.product.Product;
+import com.api.storemanagement.product.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:product-cache;DB_CLOSE_DELAY=-1",
+		"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+public class TestProductCache {
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private ProductCache productCache;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@AfterEach
+	public void cleanUp() {
+		orderService.deleteAll();
+		productRepository.deleteAll();
+	}
+
+	@Test
+	public void testProductReadThroughAndInvalidated() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		Product product = productService.addProduct(new Product("cached_product", 10, 10));
+		Long productId = product.getId();
+
+		statistics.clear();
+		productService.findProduct(productId);
+		productService.findProduct(productId);
+		assertEquals(1, statistics.getEntityLoadCount());
+
+		// Admin changes evict the product
+		productService.updateProduct(productId, new Product("cached_product", 12, 10));
+		statistics.clear();
+		assertEquals(12, productService.findProduct(productId).getPrice());
+		assertEquals(1, statistics.getEntityLoadCount());
+
+		// Stock changes from orders evict the product too
+		orderService.createOrder("user", List.of(new OrderItemRequest(productId, 4)));
+		assertEquals(6, productService.findProduct(productId).getQuantity());
+	}
+
+	@Test
+	public void testVersionsChangeWithProducts() {
+		Product product = productService.addProduct(new Product("versioned_product", 10, 10));
+		Long productId = product.getId();
+		String catalogETag = productService.catalogETag();
+		String etag = ProductService.etagOf(productService.findProduct(productId));
+
+		productService.updateProduct(productId, new Product("versioned_product", 11, 10), etag);
+		assertNotEquals(catalogETag, productService.catalogETag());
+
+		// The tag the update was made against is no longer current
+		assertThrows(PreconditionFailedException.class, () ->
+				productService.updateProduct(productId, new Product("versioned_product", 12, 10), etag));
+		assertEquals(11, productService.findProduct(productId).getPrice());
+	}
+
+	@Test
+	public void testCallersGetTheirOwnCopy() {
+		Long productId = productService.addProduct(new Product("copied_product", 10, 10)).getId();
+		Product first = productService.findProduct(productId);
+		first.setPrice(99);
+
+		Product second = productService.findProduct(productId);
+		assertNotSame(first, second);
+		assertEquals(10, second.getPrice());
+	}
+
+	@Test
+	public void testStaleLoadNotCached() {
+		Long productId = productService.addProduct(new Product("raced_product", 10, 10)).getId();
+
+		// A load starts, the product is updated and evicted, then the load completes with the old state
+		long stamp = productCache.stamp(productId);
+		Product stale = productRepository.findById(productId).orElseThrow();
+		productService.updateProduct(productId, new Product("raced_product", 12, 10));
+		productCache.put(stale, stamp);
+
+		assertNull(productCache.get(productId));
+		assertEquals(12, productService.findProduct(productId).getPrice());
+	}
+}
@@ -1,5 +1,7 @@
 package com.api.storemanagement;
 
+import com.api.storemanagement.exceptions.PreconditionFailedException;
+import com.api.storemanagement.operations.products.ProductPage;
 import com.api.storemanagement.operations.products.ProductService;
 import com.api.storemanagement.operations.products.ProductController;
 import com.api.storemanagement.product.Product;
@@ -12,11 +14,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
-
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.List;
 
@@ -93,7 +103,67 @@ public class TestProductController {
 				.andExpect(status().isOk())
 				.andExpect(content().string("Product updated successfully"));
 		Mockito.verify(this.service, Mockito.times(1))
-				.updateProduct(Mockito.any(Long.class), Mockito.any(Product.class));
+				.updateProduct(Mockito.any(Long.class), Mockito.any(Product.class), Mockito.isNull());
+	}
+
+	@Test
+	@WithMockUser(value = "admin", password = "admin", roles = "ADMIN")
+	public void testUpdateProductPreconditionFailed() throws Exception {
+		Product updatedProduct = new Product(1L, "test_product_new", 15, 15);
+		Mockito.when(service.updateProduct(Mockito.eq(1L), Mockito.any(Product.class), Mockito.eq("\"stale\"")))
+				.thenThrow(new PreconditionFailedException("Product with id: 1 was modified."));
+		mockMvc.perform(put("/products/admin/1")
+						.header(HttpHeaders.IF_MATCH, "\"stale\"")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(mapper.writeValueAsString(updatedProduct)))
+				.andExpect(status().isPreconditionFailed());
+	}
+
+	@Test
+	@WithMockUser(value = "user", password = "password")
+	public void testFindProductNotModified() throws Exception {
+		Product product = new Product(1L, "test_product", 10, 10);
+		product.setUpdatedAt(LocalDateTime.of(2024, 1, 1, 12, 0));
+		Mockito.when(service.findProduct(1L)).thenReturn(product);
+
+		String etag = mockMvc.perform(get("/products/public/1"))
+				.andExpect(status().isOk())
+				.andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		mockMvc.perform(get("/products/public/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+
+		// A stock change gives the product a new tag
+		product.setQuantity(9);
+		mockMvc.perform(get("/products/public/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	@WithMockUser(value = "user", password = "password")
+	public void testProductChangedThisSecondNotDated() throws Exception {
+		Product product = new Product(1L, "test_product", 10, 10);
+		product.setUpdatedAt(LocalDateTime.now());
+		Mockito.when(service.findProduct(1L)).thenReturn(product);
+
+		// Another change in the same second would keep the date, so none is sent and none is trusted
+		mockMvc.perform(get("/products/public/1"))
+				.andExpect(status().isOk())
+				.andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED));
+		mockMvc.perform(get("/products/public/1").header(HttpHeaders.IF_MODIFIED_SINCE,
+						DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC))))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	@WithMockUser(value = "user", password = "password")
+	public void testListAllNotModified() throws Exception {
+		Mockito.when(service.catalogETag()).thenReturn("\"catalog-1\"");
+		mockMvc.perform(get("/products/public/all").header(HttpHeaders.IF_NONE_MATCH, "\"catalog-1\""))
+				.andExpect(status().isNotModified());
+		// The catalog is not even listed
+		Mockito.verify(this.service, Mockito.never()).listAllProducts();
 	}
 
 	@Test
@@ -140,4 +210,38 @@ public class TestProductController {
 		Mockito.verify(this.service, Mockito.times(1))
 				.findExpensiveLowStockProducts(Mockito.any(Double.class), Mockito.any(Integer.class));
 	}
+
+	@Test
+	@WithMockUser(value = "user", password = "password")
+	public void testListProductsPage() throws Exception {
+		List<Product> products = Arrays.asList(new Product(11L, "product_11", 10, 10), new Product(12L, "product_12", 10, 10));
+		Mockito.when(service.listProducts(10L, 2)).thenReturn(new ProductPage(products, 12L));
+
+		mockMvc.perform(get("/products/public")
+						.param("after", "10")
+						.param("size", "2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items", Matchers.hasSize(2)))
+				.andExpect(jsonPath("$.items[0].id", Matchers.is(11)))
+				.andExpect(jsonPath("$.nextCursor", Matchers.is(12)));
+		Mockito.verify(this.service, Mockito.times(1)).listProducts(10L, 2);
+	}
+
+	@Test
+	@WithMockUser(value = "user", password = "password")
+	public void testExportProducts() throws Exception {
+		Mockito.doAnswer(invocation -> {
+			OutputStream outputStream = invocation.getArgument(0);
+			outputStream.write("{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8));
+			return null;
+		}).when(service).exportProducts(Mockito.any(OutputStream.class));
+
+		MvcResult result = mockMvc.perform(get("/products/public/export"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+				.andExpect(content().string("{\"id\":1}\n{\"id\":2}\n"));
+	}
 }
@@ -0,0 +1,117 @@
+package com.api.storemanagement;
+
+import com.api.storemanagement.operations.products.ProductImportReport;
+import com.api.storemanagement.operations.products.ProductImportResult.Status;
+import com.api.storemanagement.operations.products.ProductImportService;
+import com.api.storemanagement.product.Product;
+import com.api.storemanagement.product.ProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:product-import;DB_CLOSE_DELAY=-1",
+		"store.products.import.chunk-size=2"
+})
+public class TestProductImport {
+	@Autowired
+	private ProductImportService productImportService;
+
+	@SpyBean
+	private ProductRepository productRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@AfterEach
+	public void cleanUp() {
+		productRepository.deleteAll();
+	}
+
+	@Test
+	public void testImportNewlineDelimitedProducts() throws Exception {
+		Product existing = productRepository.save(new Product("existing_product", 10, 10));
+
+		ProductImportReport report = productImportService.importProducts(stream("""
+				{"name": "new_product_1", "price": 5, "quantity": 1}
+				{"name": "existing_product", "price": 12, "quantity": 3}
+				{"name": "invalid_product", "price": -1, "quantity": 1}
+				{"name": "mistyped_product", "price": "cheap", "quantity": 1}
+				{"name": "new_product_2", "description": "Second", "price": 7, "quantity": 2}
+				"""));
+
+		assertEquals(2, report.created());
+		assertEquals(1, report.updated());
+		assertEquals(2, report.rejected());
+		assertEquals(List.of(Status.CREATED, Status.UPDATED, Status.INVALID, Status.INVALID, Status.CREATED),
+				report.rows().stream().map(row -> row.status()).toList());
+
+		Product updated = productRepository.findById(existing.getId()).orElseThrow();
+		assertEquals(12, updated.getPrice());
+		assertEquals(3, updated.getQuantity());
+		assertEquals(3, productRepository.count());
+	}
+
+	@Test
+	public void testImportProductArray() throws Exception {
+		ProductImportReport report = productImportService.importProducts(stream("""
+				[
+					{"name": "array_product_1", "price": 1, "quantity": 1},
+					{"name": "array_product_2", "price": 2, "quantity": 2},
+					{"name": "array_product_1", "price": 3, "quantity": 3}
+				]
+				"""));
+
+		assertEquals(2, report.created());
+		assertEquals(1, report.updated());
+		assertEquals(2, productRepository.count());
+		assertEquals(3, productRepository.findByNameIn(List.of("array_product_1")).get(0).getQuantity());
+	}
+
+	@Test
+	public void testConcurrentUpdateReportedAsConflict() throws Exception {
+		Product contended = productRepository.save(new Product("contended_product", 10, 10));
+		// Another transaction changes the product once the chunk has read it. The repository is a proxy
+		// whose methods cannot be called through the spy, so the chunk reads the products here.
+		doAnswer(invocation -> {
+			List<Product> found = entityManager.createQuery("SELECT p FROM Product p WHERE p.name IN :names", Product.class)
+					.setParameter("names", invocation.getArgument(0))
+					.getResultList();
+			CompletableFuture.runAsync(() -> jdbcTemplate.update(
+					"UPDATE product SET quantity = 99, version = version + 1 WHERE id = ?", contended.getId())).join();
+			return found;
+		}).when(productRepository).findByNameIn(anyCollection());
+
+		ProductImportReport report = productImportService.importProducts(stream("""
+				{"name": "contended_product", "price": 12, "quantity": 3}
+				{"name": "conflicting_new_product", "price": 5, "quantity": 1}
+				"""));
+
+		assertEquals(2, report.rejected());
+		assertEquals(List.of(Status.CONFLICT, Status.CONFLICT), report.rows().stream().map(row -> row.status()).toList());
+		// The concurrent change is kept and the chunk is rolled back
+		assertEquals(99, productRepository.findById(contended.getId()).orElseThrow().getQuantity());
+		assertEquals(1, productRepository.count());
+	}
+
+	private static ByteArrayInputStream stream(String body) {
+		return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,69 @@
+package com.api.storemanagement;
+
+import com.api.storemanagement.exceptions.PatchErrorException;
+import com.api.storemanagement.operations.products.ProductPatcher;
+import com.api.storemanagement.product.Product;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestProductPatcher {
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final ProductPatcher patcher = new ProductPatcher(mapper);
+
+	@Test
+	public void testAbsentFieldsKept() throws Exception {
+		Product product = new Product(1L, "test_product", "Description", 15, 7);
+
+		patcher.patch(product, json("{\"name\": \"patched_product\"}"));
+
+		assertEquals("patched_product", product.getName());
+		assertEquals("Description", product.getDescription());
+		assertEquals(15, product.getPrice());
+		assertEquals(7, product.getQuantity());
+	}
+
+	@Test
+	public void testZeroAndNullApplied() throws Exception {
+		Product product = new Product(1L, "test_product", "Description", 15, 7);
+
+		patcher.patch(product, json("{\"quantity\": 0, \"description\": null}"));
+
+		assertEquals(0, product.getQuantity());
+		assertNull(product.getDescription());
+		assertEquals(15, product.getPrice());
+	}
+
+	@Test
+	public void testImmutableFieldsSkipped() throws Exception {
+		Product product = new Product(1L, "test_product", 15, 7);
+		LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 0, 0);
+		product.setCreatedAt(createdAt);
+
+		patcher.patch(product, json("{\"id\": 5, \"createdAt\": \"2025-01-01T00:00:00\", \"price\": 20}"));
+
+		assertEquals(1L, product.getId());
+		assertEquals(createdAt, product.getCreatedAt());
+		assertEquals(20, product.getPrice());
+	}
+
+	@Test
+	public void testInvalidPatchRejected() throws Exception {
+		Product product = new Product(1L, "test_product", 15, 7);
+
+		assertThrows(PatchErrorException.class, () -> patcher.patch(product, json("{\"prize\": 20}")));
+		assertThrows(PatchErrorException.class, () -> patcher.patch(product, json("{\"price\": null}")));
+		assertThrows(PatchErrorException.class, () -> patcher.patch(product, json("{\"name\": \"renamed\", \"quantity\": \"many\"}")));
+		assertEquals("test_product", product.getName());
+	}
+
+	private JsonNode json(String patch) throws Exception {
+		return mapper.readTree(patch);
+	}
+}
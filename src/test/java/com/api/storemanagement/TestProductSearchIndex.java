@@ -0,0 +1,88 @@
+package com.api.storemanagement;
+
+import com.api.storemanagement.exceptions.InvalidSearchException;
+import com.api.storemanagement.product.Product;
+import com.api.storemanagement.product.ProductChangedEvent;
+import com.api.storemanagement.product.ProductRepository;
+import com.api.storemanagement.search.ProductSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestProductSearchIndex {
+	private ProductSearchIndex index;
+
+	@BeforeEach
+	public void setUp() {
+		index = new ProductSearchIndex(null);
+		index.onProductChanged(ProductChangedEvent.saved(new Product(1L, "Wireless Mouse", 20, 5)));
+		index.onProductChanged(ProductChangedEvent.saved(new Product(2L, "Mouse Pad", 5, 50)));
+		index.onProductChanged(ProductChangedEvent.saved(new Product(3L, "Mechanical Keyboard", 80, 3)));
+	}
+
+	@Test
+	public void testSubstringAndPrefixSearch() {
+		assertEquals(List.of(2L, 1L), index.search("MOUSE", 10));
+		assertEquals(List.of(3L), index.search("board", 10));
+		assertEquals(List.of(2L, 1L), index.search("mou", 2));
+		assertEquals(List.of(), index.search("trackpad", 10));
+	}
+
+	@Test
+	public void testShortQueriesRejected() {
+		assertThrows(InvalidSearchException.class, () -> index.search("m", 10));
+		assertThrows(InvalidSearchException.class, () -> index.search(" mo ", 10));
+	}
+
+	@Test
+	public void testIndexFollowsProductChanges() {
+		index.onProductChanged(ProductChangedEvent.saved(new Product(2L, "Desk Mat", 5, 50)));
+		index.onProductChanged(ProductChangedEvent.removed(1L));
+
+		assertEquals(List.of(), index.search("mouse", 10));
+		assertEquals(List.of(2L), index.search("mat", 10));
+		assertEquals(2, index.size());
+	}
+
+	@Test
+	public void testChangesDuringBuildKept() {
+		ProductRepository repository = Mockito.mock(ProductRepository.class);
+		ProductSearchIndex building = new ProductSearchIndex(repository);
+		// The first product is removed and the second one renamed after they are read, before they are indexed
+		Mockito.when(repository.streamAll()).thenReturn(Stream.of(
+						new Product(1L, "Wireless Mouse", 20, 5), new Product(2L, "Mouse Pad", 5, 50))
+				.peek(product -> {
+					if (product.getId() == 1L) {
+						building.onProductChanged(ProductChangedEvent.removed(1L));
+					} else {
+						Product renamed = new Product(2L, "Desk Mat", 5, 50);
+						renamed.setVersion(1L);
+						building.onProductChanged(ProductChangedEvent.saved(renamed));
+					}
+				}));
+
+		building.build();
+		assertEquals(List.of(), building.search("mouse", 10));
+		assertEquals(List.of(2L), building.search("mat", 10));
+		assertEquals(1, building.size());
+	}
+
+	@Test
+	public void testOlderChangesIgnored() {
+		Product renamed = new Product(2L, "Desk Mat", 5, 50);
+		renamed.setVersion(2L);
+		Product older = new Product(2L, "Mouse Mat", 5, 50);
+		older.setVersion(1L);
+		index.onProductChanged(ProductChangedEvent.saved(renamed));
+		index.onProductChanged(ProductChangedEvent.saved(older));
+
+		assertEquals(List.of(2L), index.search("desk", 10));
+		assertEquals(List.of(1L), index.search("mouse", 10));
+	}
+}
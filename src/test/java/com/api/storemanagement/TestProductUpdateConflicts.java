@@ -0,0 +1,108 @@
+package com.api.storemanagement;
+
+import com.api.storemanagement.exceptions.ConcurrentUpdateException;
+import com.api.storemanagement.operations.orders.OrderItemRequest;
+import com.api.storemanagement.operations.orders.OrderService;
+import com.api.storemanagement.operations.products.ProductPatcher;
+import com.api.storemanagement.operations.products.ProductService;
+import com.api.storemanagement.product.Product;
+import com.api.storemanagement.product.ProductRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:product-update-conflicts;DB_CLOSE_DELAY=-1",
+		"store.products.update.max-attempts=3",
+		"store.products.update.backoff=PT0S"
+})
+public class TestProductUpdateConflicts {
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@SpyBean
+	private ProductPatcher patcher;
+
+	@AfterEach
+	public void cleanUp() {
+		orderService.deleteAll();
+		productRepository.deleteAll();
+	}
+
+	@Test
+	public void testConflictingPatchRetried() throws Exception {
+		Product product = productRepository.save(new Product("conflicting_product", 10, 10));
+		AtomicInteger attempts = concurrentUpdateDuringPatch(product.getId(), 1);
+
+		Product patched = productService.patchProduct(product.getId(), patch("{\"price\": 12}"));
+
+		assertEquals(2, attempts.get());
+		assertEquals(12, patched.getPrice());
+		assertEquals(12, productRepository.findById(product.getId()).orElseThrow().getPrice());
+	}
+
+	@Test
+	public void testConflictAfterLastAttempt() throws Exception {
+		Product product = productRepository.save(new Product("contended_product", 10, 10));
+		AtomicInteger attempts = concurrentUpdateDuringPatch(product.getId(), Integer.MAX_VALUE);
+
+		assertThrows(ConcurrentUpdateException.class, () ->
+				productService.patchProduct(product.getId(), patch("{\"price\": 12}")));
+
+		assertEquals(3, attempts.get());
+		assertEquals(10, productRepository.findById(product.getId()).orElseThrow().getPrice());
+	}
+
+	@Test
+	public void testStockChangesIncrementVersion() {
+		Product product = productRepository.save(new Product("versioned_stock_product", 10, 10));
+		long version = product.getVersion();
+
+		orderService.createOrder("user", List.of(new OrderItemRequest(product.getId(), 1)));
+
+		assertEquals(version + 1, productRepository.findById(product.getId()).orElseThrow().getVersion());
+	}
+
+	/**
+	 * Make the patcher change the patched product behind the back of the patch, for a number of attempts
+	 * @return number of patch attempts
+	 */
+	private AtomicInteger concurrentUpdateDuringPatch(Long productId, int conflicts) {
+		AtomicInteger attempts = new AtomicInteger();
+		Mockito.doAnswer(invocation -> {
+			if (attempts.incrementAndGet() <= conflicts) {
+				jdbcTemplate.update("UPDATE product SET version = version + 1 WHERE id = ?", productId);
+			}
+			return invocation.callRealMethod();
+		}).when(patcher).patch(Mockito.any(Product.class), Mockito.any(JsonNode.class));
+		return attempts;
+	}
+
+	private JsonNode patch(String json) throws Exception {
+		return objectMapper.readTree(json);
+	}
+}
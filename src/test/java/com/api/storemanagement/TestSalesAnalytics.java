@@ -0,0 +1,171 @@
+package com.api.storemanagement;
+
+import com.api.storemanagement.exceptions.InvalidRankingException;
+import com.api.storemanagement.metrics.StatementCounter;
+import com.api.storemanagement.operations.analytics.ProductSales;
+import com.api.storemanagement.operations.analytics.SalesAnalytics;
+import com.api.storemanagement.operations.analytics.SalesAnalyticsController;
+import com.api.storemanagement.operations.analytics.SalesPoint;
+import com.api.storemanagement.operations.analytics.SalesRebuildReport;
+import com.api.storemanagement.operations.analytics.SalesTotals;
+import com.api.storemanagement.operations.orders.OrderArchiver;
+import com.api.storemanagement.operations.orders.OrderItemRequest;
+import com.api.storemanagement.operations.orders.OrderService;
+import com.api.storemanagement.orders.Order;
+import com.api.storemanagement.product.Product;
+import com.api.storemanagement.product.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:sales-analytics;DB_CLOSE_DELAY=-1",
+		"store.analytics.bucket=P1D",
+		"store.analytics.rebuild.chunk-size=2",
+		"store.analytics.rebuild.threads=2"
+})
+public class TestSalesAnalytics {
+	@Autowired
+	private SalesAnalytics salesAnalytics;
+
+	@Autowired
+	private SalesAnalyticsController salesAnalyticsController;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private OrderArchiver orderArchiver;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private StatementCounter statementCounter;
+
+	@AfterEach
+	public void cleanUp() {
+		orderService.deleteAll();
+		productRepository.deleteAll();
+	}
+
+	@Test
+	public void testAggregatesFollowOrders() {
+		Product cheap = productRepository.save(new Product("cheap_product", 1.5, 100));
+		Product expensive = productRepository.save(new Product("expensive_product", 100, 100));
+		orderService.createOrder("buyer_1", List.of(new OrderItemRequest(cheap.getId(), 10)));
+		orderService.createOrder("buyer_2", List.of(
+				new OrderItemRequest(cheap.getId(), 2),
+				new OrderItemRequest(expensive.getId(), 1)));
+		Order removed = orderService.createOrder("buyer_2", List.of(new OrderItemRequest(expensive.getId(), 5)));
+		orderService.deleteOrderById(removed.getId());
+
+		statementCounter.reset();
+		List<ProductSales> byUnits = salesAnalytics.topProducts(null, null, 10, SalesAnalytics.BY_UNITS);
+		List<ProductSales> byRevenue = salesAnalytics.topProducts(null, null, 10, SalesAnalytics.BY_REVENUE);
+		SalesTotals buyer = salesAnalytics.userSales("buyer_2").sales();
+
+		assertEquals(List.of(cheap.getId(), expensive.getId()), byUnits.stream().map(ProductSales::productId).toList());
+		assertEquals(List.of(expensive.getId(), cheap.getId()), byRevenue.stream().map(ProductSales::productId).toList());
+		assertEquals(new SalesTotals(2, 12, new BigDecimal("18.0000")), byUnits.get(0).sales());
+		assertEquals(1, buyer.orders());
+		assertEquals(0, new BigDecimal("103").compareTo(buyer.revenue()));
+		// Reports never touch the database
+		assertEquals(0, statementCounter.count());
+	}
+
+	@Test
+	public void testRebuildFromHistory() {
+		Product product = productRepository.save(new Product("history_product", 2, 100));
+		int[] ageInDays = {400, 400, 200, 0, 0};
+		for (int i = 0; i < ageInDays.length; i++) {
+			backdate(orderService.createOrder("history_user", List.of(new OrderItemRequest(product.getId(), i + 1))), ageInDays[i]);
+		}
+		orderArchiver.archiveOrdersBefore(LocalDateTime.now().minusDays(300));
+
+		SalesRebuildReport report = salesAnalytics.rebuild();
+
+		assertEquals(3, report.orders());
+		assertEquals(2, report.archivedOrders());
+		assertEquals(new SalesTotals(5, 15, new BigDecimal("30.0000")), salesAnalytics.userSales("history_user").sales());
+
+		List<SalesPoint> points = salesAnalytics.salesOverTime(product.getId(), null, null);
+		assertEquals(List.of(3L, 3L, 9L), points.stream().map(point -> point.sales().units()).toList());
+		LocalDateTime today = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS);
+		assertEquals(List.of(new SalesPoint(today, new SalesTotals(2, 9, new BigDecimal("18.0000")))),
+				salesAnalytics.salesOverTime(null, today, null));
+		// Only the order of 200 days ago falls in the period
+		assertEquals(3, salesAnalytics.topProducts(today.minusDays(300), today, 10, SalesAnalytics.BY_UNITS)
+				.get(0).sales().units());
+	}
+
+	@Test
+	public void testRankingsOverRollUpsMatchBuckets() {
+		Product product = productRepository.save(new Product("rolled_up_product", 2, 1000));
+		for (int age = 0; age < 200; age += 7) {
+			backdate(orderService.createOrder("rolled_up_user", List.of(new OrderItemRequest(product.getId(), age % 5 + 1))), age);
+		}
+		salesAnalytics.rebuild();
+
+		// Periods covering no roll-up, whole roll-ups, and parts of roll-ups at either end
+		LocalDateTime today = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS);
+		for (int[] period : new int[][]{{3, 1}, {70, 2}, {150, 10}, {199, 0}, {500, 0}}) {
+			LocalDateTime from = today.minusDays(period[0]);
+			LocalDateTime to = today.minusDays(period[1]).plusHours(12);
+			long units = salesAnalytics.salesOverTime(product.getId(), from, to).stream()
+					.mapToLong(point -> point.sales().units())
+					.sum();
+			List<ProductSales> top = salesAnalytics.topProducts(from, to, 10, SalesAnalytics.BY_UNITS);
+			assertEquals(units, top.isEmpty() ? 0 : top.get(0).sales().units(), from + " to " + to);
+		}
+		long allTime = salesAnalytics.salesOverTime(product.getId(), null, null).stream()
+				.mapToLong(point -> point.sales().units())
+				.sum();
+		assertEquals(allTime, salesAnalytics.topProducts(null, null, 10, SalesAnalytics.BY_UNITS).get(0).sales().units());
+	}
+
+	@Test
+	@WithMockUser(roles = "ADMIN")
+	public void testUnknownRankingRejected() {
+		assertThrows(InvalidRankingException.class, () -> salesAnalyticsController.topProducts(null, null, null, "price"));
+		assertThrows(InvalidRankingException.class, () -> salesAnalyticsController.topUsers(null, "orders"));
+	}
+
+	@Test
+	public void testOrdersWithoutItemsCounted() {
+		Product product = productRepository.save(new Product("counted_product", 2, 100));
+		orderService.createOrder("empty_user", List.of());
+		orderService.createOrder("empty_user", List.of(new OrderItemRequest(product.getId(), 1)));
+
+		SalesRebuildReport report = salesAnalytics.rebuild();
+
+		assertEquals(2, report.orders());
+		assertEquals(new SalesTotals(2, 1, new BigDecimal("2.0000")), salesAnalytics.userSales("empty_user").sales());
+	}
+
+	@Test
+	public void testBucketsShorterThanOneSecondRejected() {
+		assertThrows(IllegalArgumentException.class, () -> new SalesAnalytics(null, null, null, Duration.ofMillis(500), 1, 1));
+	}
+
+	private void backdate(Order order, int days) {
+		jdbcTemplate.update("UPDATE orders SET order_time = ? WHERE id = ?",
+				Timestamp.valueOf(LocalDateTime.now().minusDays(days)), order.getId());
+	}
+}
@@ -0,0 +1,89 @@
+package com.api.storemanagement;
+
+import com.api.storemanagement.orders.Order;
+import com.api.storemanagement.orders.OrderItem;
+import com.api.storemanagement.orders.OrderRepository;
+import com.api.storemanagement.product.Product;
+import com.api.storemanagement.product.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:sequence-aligner;DB_CLOSE_DELAY=-1")
+public class TestSequenceAligner {
+	/**
+	 * IDs of rows added before sequences were used, far above the start of the sequences
+	 */
+	private static final long LEGACY_ORDER_ID = 10_000;
+	private static final long LEGACY_ITEM_ID = 20_000;
+	private static final long LEGACY_PRODUCT_ID = 30_000;
+
+	@Autowired
+	private SequenceAligner sequenceAligner;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@AfterEach
+	public void cleanUp() {
+		orderRepository.deleteAll();
+		productRepository.deleteAll();
+	}
+
+	@Test
+	public void testEmptySchemaLeftAlone() {
+		List<Long> before = nextValues();
+		sequenceAligner.align();
+		assertEquals(before, nextValues());
+	}
+
+	@Test
+	public void testNewRowsAfterLegacyIds() {
+		jdbcTemplate.update("INSERT INTO product (id, name, price, quantity, version, created_at, updated_at) VALUES (?, 'legacy_product', 10, 5, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)",
+				LEGACY_PRODUCT_ID);
+		Product product = productRepository.findById(LEGACY_PRODUCT_ID).orElseThrow();
+		jdbcTemplate.update("INSERT INTO orders (id, username, item_count) VALUES (?, 'legacy_user', 1)", LEGACY_ORDER_ID);
+		jdbcTemplate.update("INSERT INTO order_item (id, order_id, product_id, quantity) VALUES (?, ?, ?, 1)",
+				LEGACY_ITEM_ID, LEGACY_ORDER_ID, product.getId());
+
+		sequenceAligner.align();
+
+		assertTrue(productRepository.save(new Product("new_product", 10, 5)).getId() > LEGACY_PRODUCT_ID);
+
+		Order order = new Order();
+		order.setUsername("user");
+		order.setSubtotal(BigDecimal.TEN);
+		order.setItemCount(1);
+		OrderItem item = new OrderItem();
+		item.setProduct(product);
+		item.setQuantity(1);
+		item.setOrder(order);
+		order.setItems(List.of(item));
+		Order saved = orderRepository.save(order);
+
+		assertTrue(saved.getId() > LEGACY_ORDER_ID);
+		assertTrue(saved.getItems().get(0).getId() > LEGACY_ITEM_ID);
+	}
+
+	/**
+	 * @return next value of every sequence, read without using it up
+	 */
+	private List<Long> nextValues() {
+		return jdbcTemplate.queryForList("SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME IN "
+				+ "('PRODUCT_SEQ', 'ORDERS_SEQ', 'ORDER_ITEM_SEQ') ORDER BY SEQUENCE_NAME", Long.class);
+	}
+}
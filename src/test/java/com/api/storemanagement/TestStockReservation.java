@@ -0,0 +1,113 @@
+package com.api.storemanagement;
+
+import com.api.storemanagement.exceptions.InsufficientQuantityException;
+import com.api.storemanagement.operations.orders.OrderItemRequest;
+import com.api.storemanagement.operations.orders.OrderService;
+import com.api.storemanagement.product.Product;
+import com.api.storemanagement.product.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Reservations under contention, on the default path locking product rows.
+ * {@link TestStockReservationHotPath} runs the same tests on the in-memory hot path.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:stock-reservation;DB_CLOSE_DELAY=-1",
+		"store.stock.hot-path.enabled=false"
+})
+public class TestStockReservation {
+	private static final int THREADS = 64;
+	private static final int ORDERS_PER_THREAD = 20;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@AfterEach
+	public void cleanUp() {
+		orderService.deleteAll();
+		productRepository.deleteAll();
+	}
+
+	@Test
+	public void testNoOversellUnderContention() throws Exception {
+		int stock = 250;
+		Product product = productRepository.save(new Product("hot_product", 10, stock));
+
+		AtomicInteger placed = new AtomicInteger();
+		AtomicInteger rejected = new AtomicInteger();
+		runConcurrently(() -> {
+			try {
+				orderService.createOrder("user", List.of(new OrderItemRequest(product.getId(), 1)));
+				placed.incrementAndGet();
+			} catch (InsufficientQuantityException e) {
+				rejected.incrementAndGet();
+			}
+		});
+
+		assertEquals(stock, placed.get());
+		assertEquals(THREADS * ORDERS_PER_THREAD - stock, rejected.get());
+		assertEquals(0, productRepository.findById(product.getId()).orElseThrow().getQuantity());
+	}
+
+	@Test
+	public void testMultiProductOrdersInOppositeOrder() throws Exception {
+		int stock = 300;
+		Product first = productRepository.save(new Product("first_product", 10, stock));
+		Product second = productRepository.save(new Product("second_product", 10, stock));
+
+		AtomicInteger counter = new AtomicInteger();
+		AtomicInteger placed = new AtomicInteger();
+		runConcurrently(() -> {
+			// Half of the orders list the products in reverse order
+			List<OrderItemRequest> items = counter.incrementAndGet() % 2 == 0
+					? List.of(new OrderItemRequest(first.getId(), 1), new OrderItemRequest(second.getId(), 1))
+					: List.of(new OrderItemRequest(second.getId(), 1), new OrderItemRequest(first.getId(), 1));
+			try {
+				orderService.createOrder("user", items);
+				placed.incrementAndGet();
+			} catch (InsufficientQuantityException e) {
+				// Expected once stock runs out
+			}
+		});
+
+		assertEquals(stock, placed.get());
+		assertEquals(0, productRepository.findById(first.getId()).orElseThrow().getQuantity());
+		assertEquals(0, productRepository.findById(second.getId()).orElseThrow().getQuantity());
+	}
+
+	private void runConcurrently(Runnable order) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Callable<Void>> tasks = new ArrayList<>();
+			for (int i = 0; i < THREADS; i++) {
+				tasks.add(() -> {
+					for (int j = 0; j < ORDERS_PER_THREAD; j++) {
+						order.run();
+					}
+					return null;
+				});
+			}
+			for (Future<Void> result : executor.invokeAll(tasks)) {
+				result.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
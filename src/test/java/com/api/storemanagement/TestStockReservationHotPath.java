@@ -0,0 +1,13 @@
+package com.api.storemanagement;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Reservations under contention, with orders for the same products queued on striped locks
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:stock-reservation-hot-path;DB_CLOSE_DELAY=-1",
+		"store.stock.hot-path.enabled=true"
+})
+public class TestStockReservationHotPath extends TestStockReservation {
+}
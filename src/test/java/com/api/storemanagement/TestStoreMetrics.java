@@ -0,0 +1,124 @@
+package com.api.storemanagement;
+
+import com.api.storemanagement.exceptions.InsufficientQuantityException;
+import com.api.storemanagement.exceptions.ProductNotFoundException;
+import com.api.storemanagement.logging.CountingAsyncAppender;
+import com.api.storemanagement.metrics.StockMetrics;
+import com.api.storemanagement.operations.orders.OrderItemRequest;
+import com.api.storemanagement.operations.orders.OrderService;
+import com.api.storemanagement.product.Product;
+import com.api.storemanagement.product.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:store-metrics;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+public class TestStoreMetrics {
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private StockMetrics stockMetrics;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@AfterEach
+	public void cleanUp() {
+		orderService.deleteAll();
+		productRepository.deleteAll();
+	}
+
+	@Test
+	public void testOrderMetrics() {
+		Product first = productRepository.save(new Product("metrics_product_1", 10, 5));
+		Product second = productRepository.save(new Product("metrics_product_2", 10, 5));
+		double created = meterRegistry.counter("store.orders.created").count();
+		long ordersRecorded = meterRegistry.get("store.orders.items").summary().count();
+
+		orderService.createOrder("user", List.of(new OrderItemRequest(first.getId(), 1), new OrderItemRequest(second.getId(), 1)));
+		assertThrows(InsufficientQuantityException.class,
+				() -> orderService.createOrder("user", List.of(new OrderItemRequest(first.getId(), 100))));
+		assertThrows(ProductNotFoundException.class,
+				() -> orderService.createOrder("user", List.of(new OrderItemRequest(-1L, 1))));
+
+		assertEquals(created + 1, meterRegistry.counter("store.orders.created").count());
+		assertEquals(ordersRecorded + 1, meterRegistry.get("store.orders.items").summary().count());
+		assertTrue(meterRegistry.get("store.orders.failed").tag("reason", "InsufficientQuantityException").counter().count() >= 1);
+		assertTrue(meterRegistry.get("store.orders.failed").tag("reason", "ProductNotFoundException").counter().count() >= 1);
+	}
+
+	@Test
+	public void testFailuresAtCommitCounted() {
+		Product product = productRepository.save(new Product("commit_failure_product", 10, 5));
+		double created = meterRegistry.counter("store.orders.created").count();
+		double failed = failedOrders();
+
+		// Orders are inserted when their transaction commits, where the username overflows its column
+		assertThrows(RuntimeException.class,
+				() -> orderService.createOrder("u".repeat(300), List.of(new OrderItemRequest(product.getId(), 1))));
+
+		assertEquals(created, meterRegistry.counter("store.orders.created").count());
+		assertEquals(failed + 1, failedOrders());
+		assertEquals(5, productRepository.findById(product.getId()).orElseThrow().getQuantity());
+	}
+
+	@Test
+	public void testStockGauges() {
+		productRepository.save(new Product("stock_product_1", 10, 0));
+		productRepository.save(new Product("stock_product_2", 10, 3));
+		productRepository.save(new Product("stock_product_3", 10, 50));
+
+		stockMetrics.refresh();
+		assertEquals(3, meterRegistry.get("store.stock.products").gauge().value());
+		assertEquals(53, meterRegistry.get("store.stock.units").gauge().value());
+		assertEquals(1, meterRegistry.get("store.stock.out").gauge().value());
+		assertEquals(1, meterRegistry.get("store.stock.low").gauge().value());
+	}
+
+	@Test
+	@WithMockUser(roles = "USER")
+	public void testStatementsPerRequest() throws Exception {
+		productRepository.save(new Product("statement_product", 10, 10));
+
+		mockMvc.perform(get("/products/public/all")).andExpect(status().isOk());
+
+		DistributionSummary statements = meterRegistry.get("store.http.statements")
+				.tag("method", "GET")
+				.tag("uri", "/products/public/all")
+				.summary();
+		assertEquals(1, statements.count());
+		assertEquals(1, statements.totalAmount());
+	}
+
+	@Test
+	public void testDroppedLogEventsExposed() {
+		assertEquals(CountingAsyncAppender.droppedEvents(), meterRegistry.get("store.logging.dropped").functionCounter().count());
+	}
+
+	private double failedOrders() {
+		return meterRegistry.find("store.orders.failed").counters().stream().mapToDouble(Counter::count).sum();
+	}
+}
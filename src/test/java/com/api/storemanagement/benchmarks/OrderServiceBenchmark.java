@@ -0,0 +1,61 @@
+package com.api.storemanagement.benchmarks;
+
+import com.api.storemanagement.operations.orders.OrderItemRequest;
+import com.api.storemanagement.operations.orders.OrderService;
+import com.api.storemanagement.orders.Order;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link OrderService#createOrder} for a catalog and order size: stock reservation,
+ * product lookup and batched inserts of the order and its items
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderServiceBenchmark {
+	@Param({"1000", "10000"})
+	private int catalogSize;
+
+	@Param({"1", "10"})
+	private int itemsPerOrder;
+
+	private StoreFixture fixture;
+	private OrderService orderService;
+	private SplittableRandom random;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		fixture = StoreFixture.start(catalogSize);
+		orderService = fixture.bean(OrderService.class);
+		random = new SplittableRandom(42);
+	}
+
+	@TearDown(Level.Iteration)
+	public void deleteOrders() {
+		// Keep the orders table from growing across iterations
+		orderService.deleteAll();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		fixture.close();
+	}
+
+	@Benchmark
+	public Order createOrder() {
+		List<Long> productIds = fixture.productIds();
+		List<OrderItemRequest> items = new ArrayList<>(itemsPerOrder);
+		for (int i = 0; i < itemsPerOrder; i++) {
+			items.add(new OrderItemRequest(productIds.get(random.nextInt(productIds.size())), 1));
+		}
+		return orderService.createOrder("benchmark_user", items);
+	}
+}
@@ -0,0 +1,63 @@
+package com.api.storemanagement.benchmarks;
+
+import com.api.storemanagement.operations.products.ProductPatcher;
+import com.api.storemanagement.product.Product;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the merge patch engine of {@link ProductPatcher} with the reflective patcher it replaced
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductPatcherBenchmark {
+	private ProductPatcher patcher;
+	private Product existingProduct;
+	private JsonNode patch;
+	private Product incompleteProduct;
+
+	@Setup
+	public void setUp() throws Exception {
+		ObjectMapper mapper = new ObjectMapper();
+		patcher = new ProductPatcher(mapper);
+		existingProduct = new Product(1L, "test_product", "Description", 15, 7);
+		patch = mapper.readTree("{\"name\": \"patched_product\", \"price\": 20.5}");
+		incompleteProduct = new Product();
+		incompleteProduct.setName("patched_product");
+		incompleteProduct.setPrice(20.5);
+	}
+
+	@Benchmark
+	public Product compiledPatch() {
+		patcher.patch(existingProduct, patch);
+		return existingProduct;
+	}
+
+	@Benchmark
+	public Product reflectivePatch() throws IllegalAccessException {
+		reflectivePatch(existingProduct, incompleteProduct);
+		return existingProduct;
+	}
+
+	/**
+	 * Previous implementation of the patcher, walking the product fields with reflection on every call
+	 */
+	private static void reflectivePatch(Product existingProduct, Product incompleteProduct) throws IllegalAccessException {
+		for (Field field : Product.class.getDeclaredFields()) {
+			field.setAccessible(true);
+			Object value = field.get(incompleteProduct);
+			if (value != null) {
+				field.set(existingProduct, value);
+			}
+			field.setAccessible(false);
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package com.api.storemanagement.benchmarks;
+
+import com.api.storemanagement.operations.products.ProductService;
+import com.api.storemanagement.product.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures patching a product and listing the whole catalog through {@link ProductService}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductServiceBenchmark {
+	@Param({"1000", "10000"})
+	private int catalogSize;
+
+	private StoreFixture fixture;
+	private ProductService productService;
+	private ObjectMapper objectMapper;
+	private SplittableRandom random;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		fixture = StoreFixture.start(catalogSize);
+		productService = fixture.bean(ProductService.class);
+		objectMapper = fixture.bean(ObjectMapper.class);
+		random = new SplittableRandom(42);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		fixture.close();
+	}
+
+	@Benchmark
+	public Product patchProduct() {
+		List<Long> productIds = fixture.productIds();
+		ObjectNode patch = objectMapper.createObjectNode()
+				.put("price", 1 + random.nextInt(500))
+				.put("description", "Patched description");
+		return productService.patchProduct(productIds.get(random.nextInt(productIds.size())), patch);
+	}
+
+	@Benchmark
+	public List<Product> listAllProducts() {
+		return productService.listAllProducts();
+	}
+}
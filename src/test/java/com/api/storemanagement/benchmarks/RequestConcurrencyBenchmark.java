@@ -0,0 +1,74 @@
+package com.api.storemanagement.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the HTTP API at high concurrency, comparing request handling on virtual threads with the
+ * platform thread pool of Tomcat. Every request authenticates and reads a page of products from the database.
+ * Virtual threads need Java 21 (mvn -P java21,benchmarks); on older runtimes both modes run on platform threads.
+ * Concurrency is the number of JMH threads, e.g. -Djmh.args="RequestConcurrencyBenchmark -t 1000".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(400)
+@Fork(1)
+public class RequestConcurrencyBenchmark {
+	@Param({"false", "true"})
+	private boolean virtualThreads;
+
+	@Param({"10000"})
+	private int catalogSize;
+
+	private StoreFixture fixture;
+	private HttpClient httpClient;
+	private String authorization;
+	private URI pageUri;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		fixture = StoreFixture.startServer(catalogSize, "spring.threads.virtual.enabled=" + virtualThreads);
+		httpClient = HttpClient.newBuilder()
+				.connectTimeout(Duration.ofSeconds(10))
+				.build();
+		authorization = "Basic " + Base64.getEncoder().encodeToString("user:password".getBytes(StandardCharsets.UTF_8));
+		pageUri = URI.create("http://localhost:" + fixture.port() + "/products/public");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		fixture.close();
+	}
+
+	@State(Scope.Thread)
+	public static class Client {
+		private final SplittableRandom random = new SplittableRandom();
+	}
+
+	@Benchmark
+	public int listProductPage(Client client) throws IOException, InterruptedException {
+		long after = fixture.productIds().get(client.random.nextInt(fixture.productIds().size()));
+		HttpRequest request = HttpRequest.newBuilder(URI.create(pageUri + "?after=" + after + "&size=20"))
+				.header("Authorization", authorization)
+				.GET()
+				.build();
+		HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+		if (response.statusCode() != 200) {
+			throw new IllegalStateException("Unexpected status " + response.statusCode());
+		}
+		return response.body().length;
+	}
+}
@@ -0,0 +1,79 @@
+package com.api.storemanagement.benchmarks;
+
+import com.api.storemanagement.operations.orders.OrderResponse;
+import com.api.storemanagement.orders.Order;
+import com.api.storemanagement.orders.OrderItem;
+import com.api.storemanagement.product.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures JSON serialization of the response bodies, with the object mapper configuration used by Spring MVC
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+	@Param({"1", "10", "100"})
+	private int itemsPerOrder;
+
+	@Param({"100", "1000"})
+	private int productsPerPage;
+
+	private ObjectMapper objectMapper;
+	private Order order;
+	private OrderResponse orderResponse;
+	private List<Product> products;
+
+	@Setup
+	public void setUp() {
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+		products = new ArrayList<>(productsPerPage);
+		for (int i = 0; i < productsPerPage; i++) {
+			Product product = new Product((long) i, "benchmark_product_" + i, "Benchmark product " + i, 1 + i % 500, 100);
+			product.setCreatedAt(LocalDateTime.now());
+			product.setUpdatedAt(LocalDateTime.now());
+			products.add(product);
+		}
+
+		order = new Order(1L, "benchmark_user", new ArrayList<>(), LocalDateTime.now(), BigDecimal.ZERO, 0);
+		for (int i = 0; i < itemsPerOrder; i++) {
+			OrderItem item = new OrderItem();
+			item.setId((long) i);
+			item.setProduct(products.get(i % products.size()));
+			item.setQuantity(1 + i % 5);
+			item.setUnitPrice(BigDecimal.valueOf(item.getProduct().getPrice()));
+			item.setOrder(order);
+			order.getItems().add(item);
+			order.setSubtotal(order.getSubtotal().add(item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity()))));
+			order.setItemCount(order.getItemCount() + item.getQuantity());
+		}
+		orderResponse = OrderResponse.from(order);
+	}
+
+	@Benchmark
+	public byte[] serializeOrder() throws Exception {
+		return objectMapper.writeValueAsBytes(order);
+	}
+
+	@Benchmark
+	public byte[] serializeOrderResponse() throws Exception {
+		return objectMapper.writeValueAsBytes(orderResponse);
+	}
+
+	@Benchmark
+	public byte[] serializeProducts() throws Exception {
+		return objectMapper.writeValueAsBytes(products);
+	}
+}
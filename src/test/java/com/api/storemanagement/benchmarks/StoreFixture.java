@@ -0,0 +1,96 @@
+package com.api.storemanagement.benchmarks;
+
+import com.api.storemanagement.StoreManagementApplication;
+import com.api.storemanagement.product.Product;
+import com.api.storemanagement.product.ProductRepository;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Application context of the benchmarks, backed by its own in-memory H2 database holding a catalog of products
+ */
+final class StoreFixture implements AutoCloseable {
+	/**
+	 * Stock of every product, large enough for orders never to run out during a run
+	 */
+	static final int PRODUCT_STOCK = 1_000_000_000;
+
+	private static final int SEED_CHUNK_SIZE = 1000;
+
+	private final ConfigurableApplicationContext context;
+	private final List<Long> productIds;
+
+	private StoreFixture(ConfigurableApplicationContext context, List<Long> productIds) {
+		this.context = context;
+		this.productIds = productIds;
+	}
+
+	/**
+	 * Start the application without a web server and seed the catalog
+	 * @param catalogSize - number of products in the catalog
+	 * @return started fixture
+	 */
+	static StoreFixture start(int catalogSize) {
+		return start(catalogSize, WebApplicationType.NONE);
+	}
+
+	/**
+	 * Start the application with a web server on a random port and seed the catalog
+	 * @param catalogSize - number of products in the catalog
+	 * @param properties - additional application properties
+	 * @return started fixture
+	 */
+	static StoreFixture startServer(int catalogSize, String... properties) {
+		return start(catalogSize, WebApplicationType.SERVLET, properties);
+	}
+
+	private static StoreFixture start(int catalogSize, WebApplicationType webApplicationType, String... properties) {
+		ConfigurableApplicationContext context = new SpringApplicationBuilder(StoreManagementApplication.class)
+				.web(webApplicationType)
+				.properties(
+						"spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+						"spring.jpa.hibernate.ddl-auto=create-drop",
+						"spring.h2.console.enabled=false",
+						"server.port=0",
+						"logging.level.root=WARN")
+				.properties(properties)
+				.run();
+
+		ProductRepository productRepository = context.getBean(ProductRepository.class);
+		List<Long> productIds = new ArrayList<>(catalogSize);
+		List<Product> chunk = new ArrayList<>(SEED_CHUNK_SIZE);
+		for (int i = 0; i < catalogSize; i++) {
+			chunk.add(new Product(null, "benchmark_product_" + i, "Benchmark product " + i, 1 + i % 500, PRODUCT_STOCK));
+			if (chunk.size() == SEED_CHUNK_SIZE || i == catalogSize - 1) {
+				productRepository.saveAll(chunk).forEach(product -> productIds.add(product.getId()));
+				chunk.clear();
+			}
+		}
+		return new StoreFixture(context, List.copyOf(productIds));
+	}
+
+	<T> T bean(Class<T> type) {
+		return context.getBean(type);
+	}
+
+	List<Long> productIds() {
+		return productIds;
+	}
+
+	/**
+	 * @return port of the web server, when started with one
+	 */
+	int port() {
+		return Integer.parseInt(context.getEnvironment().getRequiredProperty("local.server.port"));
+	}
+
+	@Override
+	public void close() {
+		context.close();
+	}
+}
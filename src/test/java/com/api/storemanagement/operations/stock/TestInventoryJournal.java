@@ -0,0 +1,68 @@
+package com.api.storemanagement.operations.stock;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Journal recovery after a crash in the middle of a compaction. Unlike the other tests, this one lives in
+ * the package of the journal: the journal is an implementation detail of the inventory ledger, and the
+ * crash is simulated through its package-private compaction checkpoint, which no public API reaches.
+ */
+public class TestInventoryJournal {
+	private static final int CAPACITY = 9;
+
+	@TempDir
+	private Path directory;
+
+	@Test
+	public void testCrashWhileCompactingKeepsRecords() throws Exception {
+		Path path = directory.resolve("compacted.journal");
+		try (InventoryJournal journal = new InventoryJournal(path, CAPACITY)) {
+			// Three records flushed, two live: the live ones move before the start and the crash happens
+			// before the new start is written
+			for (long productId = 1; productId <= 5; productId++) {
+				journal.append(productId, (int) productId * 10);
+			}
+			journal.compactionCheckpoint = () -> {
+				throw new IllegalStateException("crash");
+			};
+			assertThrows(IllegalStateException.class, () -> journal.truncate(journal.position() - 2));
+
+			try (InventoryJournal recovered = new InventoryJournal(path, CAPACITY)) {
+				assertEquals(Map.of(4L, 40, 5L, 50), recovered.recover());
+			}
+		}
+	}
+
+	@Test
+	public void testLiveRecordsAsManyAsFlushedNotCompacted() throws Exception {
+		Path path = directory.resolve("overlapping.journal");
+		try (InventoryJournal journal = new InventoryJournal(path, CAPACITY)) {
+			// Four records flushed, four live: the empty record ending the moved records would land on the
+			// first live one, so a crash before the new start is written would lose them all
+			for (long productId = 1; productId <= 8; productId++) {
+				journal.append(productId, (int) productId * 10);
+			}
+			journal.compactionCheckpoint = () -> {
+				throw new IllegalStateException("crash");
+			};
+			journal.truncate(journal.position() - 4);
+			journal.append(9L, 90);
+
+			Map<Long, Integer> expected = new LinkedHashMap<>();
+			for (long productId = 5; productId <= 9; productId++) {
+				expected.put(productId, (int) productId * 10);
+			}
+			try (InventoryJournal recovered = new InventoryJournal(path, CAPACITY)) {
+				assertEquals(expected, recovered.recover());
+			}
+		}
+	}
+}